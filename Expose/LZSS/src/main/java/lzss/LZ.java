@@ -1,12 +1,14 @@
 package lzss;
 
+import org.jsuffixarrays.SAIS;
+
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * The class housing the functions necessary for computing the LZSS Factorization of a string
  * Use the {@link #factorize(String)} function to compute a list of {@link LZFactor} objects,
+ * the {@link #factorizeLinear(String)} function to compute the same factors in linear time as an {@link LZFactorization},
  * or the {@link #factorizedString(String)} function to get the result as a String.
  */
 public class LZ {
@@ -137,15 +139,104 @@ public class LZ {
         return list;
     }
 
+    /**
+     * Calculates the same LZ factorization as {@link #factorize(String)} in linear time with Karkkainen, Kempa and Puglisi's
+     * algorithm KKP3 from "Linear Time Lempel-Ziv Factorization: Simple, Fast, Small".
+     * Instead of the minimum of the lcp array between two suffixes, the length of a factor is determined by comparing its
+     * characters to the ones at the psv and nsv positions directly. Neither comparison passes more than one character
+     * beyond the end of the factor, so all factors together take linear time.
+     * No lcp array or inverse suffix array is built and the factors are stored in int arrays, so this only needs
+     * three ints per character
+     * @param s A string to factorize
+     * @return The LZSS Representation of the string
+     */
+    public static LZFactorization factorizeLinear(String s) {
+        final int n = s.length();
+        final var factors = new LZFactorization(n / 8);
+        if (n == 0) return factors;
+
+        final int[] psv = new int[n];
+        final int[] nsv = new int[n];
+        // SA-IS builds the suffix array in linear time, also for the highly repetitive strings on which
+        // the default builder of SuffixArrays degrades, and works on the string without copying it into an int array
+        final int[] suffixArray = new int[n];
+        SAIS.suffixsort(s, suffixArray, n);
+        computePsvNsvPositions(suffixArray, n, psv, nsv);
+
+        int k = 0;
+        while (k < n) {
+            final int lcpLenLesser = matchLength(s, k, psv[k]);
+            final int lcpLenGreater = matchLength(s, k, nsv[k]);
+
+            // Choose the longer match of the two, as in lzFactor
+            final int factorPosition = lcpLenLesser > lcpLenGreater ? psv[k] : nsv[k];
+            final int factorLength = Math.max(lcpLenLesser, lcpLenGreater);
+
+            if (factorLength == 0) {
+                factors.addChar(s.charAt(k));
+                k++;
+            } else {
+                factors.addPattern(factorPosition, factorLength);
+                k += factorLength;
+            }
+        }
+
+        return factors;
+    }
+
+    /**
+     * Calculates the psv and nsv values in the order of the string, so that psv[k] and nsv[k] are the start indices of
+     * the next lexicographically lesser and greater suffixes of the suffix at index k, which start before k, or -1 if
+     * there is no such suffix.
+     * The suffix array is scanned once while a stack of increasing start indices is kept. A suffix is popped from the stack
+     * as soon as a suffix, which starts before it, is found, which is the suffix's nsv. Its psv is the suffix below it on the stack.
+     * As every suffix is pushed once and the stack never holds more entries than suffixes have been scanned,
+     * the stack is stored in the already scanned part of the suffix array itself
+     * @param suffixArray The suffix array of the string. It is overwritten
+     * @param n The length of the string
+     * @param psv The array to store the psv values in
+     * @param nsv The array to store the nsv values in
+     */
+    private static void computePsvNsvPositions(int[] suffixArray, int n, int[] psv, int[] nsv) {
+        // The index of the top of the stack in the suffix array, the bottom of the stack is an implicit -1
+        int top = -1;
+        for (int i = 0; i <= n; i++) {
+            // The empty suffix after the end of the string starts before no other suffix, so it empties the stack
+            final int current = i < n ? suffixArray[i] : -1;
+            while (top >= 0 && suffixArray[top] > current) {
+                final int k = suffixArray[top];
+                nsv[k] = current;
+                psv[k] = top > 0 ? suffixArray[top - 1] : -1;
+                top--;
+            }
+            if (i < n) suffixArray[++top] = current;
+        }
+    }
+
+    /**
+     * Calculates the length of the longest common prefix of two suffixes by comparing their characters
+     * @param s The string which contains the suffixes
+     * @param k The start index of the suffix to factorize
+     * @param source The start index of a suffix before k, or -1 for the empty suffix
+     * @return The length of the longest common prefix of these two suffixes
+     */
+    private static int matchLength(String s, int k, int source) {
+        if (source == -1) return 0;
+
+        int length = 0;
+        while (k + length < s.length() && s.charAt(source + length) == s.charAt(k + length)) {
+            length++;
+        }
+        return length;
+    }
+
     /**
      * Create a string representing the LZSS Factorization of the given string
      * @param s A string to factorize
      * @return The LZSS Representation of the string
      */
     public static String factorizedString(String s) {
-        return factorize(s) // Calculate the LZ Factorization of the string
-                .stream()
-                .map(LZFactor::toString) // Convert each factors to a string
-                .collect(Collectors.joining("")); // Join the separate strings together
+        // The linear factorization has the same factors and string representation as factorize
+        return factorizeLinear(s).toString();
     }
 }
@@ -0,0 +1,169 @@
+package lzss;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An LZSS factorization, whose factors are stored in two int arrays instead of as {@link LZFactor} objects.
+ * The i-th factor either represents a single character, in which case its length is zero and its position is the
+ * character itself, or a repeated character sequence, in which case its position is the start index of the original pattern.
+ * Use {@link LZ#factorizeLinear(String)} to compute it
+ */
+public class LZFactorization {
+
+    /**
+     * The start index of the original pattern of every factor, or the character itself for single character factors
+     */
+    private int[] positions;
+
+    /**
+     * The length of the pattern of every factor, or zero for single character factors
+     */
+    private int[] lengths;
+
+    /**
+     * The amount of factors
+     */
+    private int size;
+
+    /**
+     * Creates a new empty factorization
+     * @param initialCapacity The amount of factors this factorization can hold before its arrays have to grow
+     */
+    LZFactorization(int initialCapacity) {
+        final int capacity = Math.max(initialCapacity, 1);
+        positions = new int[capacity];
+        lengths = new int[capacity];
+    }
+
+    /**
+     * Appends a factor, which represents a single character
+     * @param c The character
+     */
+    void addChar(char c) {
+        add(c, 0);
+    }
+
+    /**
+     * Appends a factor, which represents a repeated character sequence
+     * @param patternStartPos The start index of the original pattern
+     * @param length The length of the pattern
+     */
+    void addPattern(int patternStartPos, int length) {
+        add(patternStartPos, length);
+    }
+
+    private void add(int position, int length) {
+        if (size == positions.length) {
+            final int capacity = positions.length + (positions.length >> 1) + 1;
+            positions = Arrays.copyOf(positions, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        positions[size] = position;
+        lengths[size] = length;
+        size++;
+    }
+
+    /**
+     * Gets the amount of factors
+     * @return The amount of factors
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the i-th factor represents a single character or a repeating pattern
+     * @param i The index of the factor
+     * @return true, if the factor represents a single character, false otherwise
+     */
+    public boolean isSingleChar(int i) {
+        return length(i) == 0;
+    }
+
+    /**
+     * Returns the character which the i-th factor represents
+     * @param i The index of the factor
+     * @return The character, or '\0' if the factor represents a pattern
+     */
+    public char getChar(int i) {
+        return isSingleChar(i) ? (char) positions[i] : '\0';
+    }
+
+    /**
+     * Gets the start position of the original pattern which the i-th factor represents
+     * @param i The index of the factor
+     * @return The start position of the original pattern, or -1 if the factor represents a single character
+     */
+    public int patternStartPos(int i) {
+        return isSingleChar(i) ? -1 : positions[i];
+    }
+
+    /**
+     * Returns the length of the pattern pointed to by the i-th factor, or zero if it is a single character
+     * @param i The index of the factor
+     * @return The length of the factor
+     */
+    public int length(int i) {
+        Objects.checkIndex(i, size);
+        return lengths[i];
+    }
+
+    /**
+     * Creates the {@link LZFactor} objects of this factorization, as returned by {@link LZ#factorize(String)}
+     * @return The list of factors
+     */
+    public List<LZFactor> toFactors() {
+        final var list = new ArrayList<LZFactor>(size);
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            if (lengths[i] == 0) {
+                list.add(new LZFactor((char) positions[i], index));
+                index++;
+            } else {
+                list.add(new LZFactor(positions[i], lengths[i], index));
+                index += lengths[i];
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Reconstructs the String represented by this factorization
+     * @return The String represented by the factors
+     */
+    public String reconstruct() {
+        var sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (lengths[i] == 0) {
+                sb.append((char) positions[i]);
+            } else {
+                // The pattern may overlap with the factor itself, so the chars have to be copied one by one
+                for (int k = 0; k < lengths[i]; k++) {
+                    sb.append(sb.charAt(positions[i] + k));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The string representation of a factorization is the concatenation of the representations of its factors.
+     * See {@link LZFactor#toString()}
+     * @return The string representation of the factorization
+     */
+    @Override
+    public String toString() {
+        var sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (lengths[i] == 0) {
+                sb.append((char) positions[i]);
+            } else {
+                sb.append('(').append(positions[i]).append(',').append(lengths[i]).append(')');
+            }
+        }
+        return sb.toString();
+    }
+}
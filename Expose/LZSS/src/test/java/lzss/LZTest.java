@@ -0,0 +1,64 @@
+package lzss;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class LZTest {
+
+    /**
+     * Asserts that the linear factorization of a string has the same factors as {@link LZ#factorize(String)} and that
+     * both reconstruct the string
+     */
+    private static void assertFactorization(String s) {
+        final var expected = LZ.factorize(s);
+        final var actual = LZ.factorizeLinear(s);
+
+        assertEquals(expected.stream().map(LZFactor::toString).collect(Collectors.joining()), actual.toString());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(s, actual.reconstruct());
+        assertEquals(s, LZ.reconstruct(expected));
+        assertEquals(s, LZ.reconstruct(actual.toFactors()));
+    }
+
+    @Test
+    public void testRandomStrings() {
+        final var random = new Random(22);
+        for (int i = 0; i < 200; i++) {
+            final var sb = new StringBuilder();
+            final int length = 1 + random.nextInt(i < 100 ? 20 : 2000);
+            while (sb.length() < length) {
+                if (sb.length() > 0 && random.nextBoolean()) {
+                    // Copy an earlier part, so that there are long and overlapping factors
+                    final int start = random.nextInt(sb.length());
+                    sb.append(sb, start, Math.min(sb.length(), start + random.nextInt(40)));
+                } else {
+                    sb.append((char) ('a' + random.nextInt(1 + i % 5)));
+                }
+            }
+            assertFactorization(sb.toString());
+        }
+    }
+
+    @Test
+    public void testRuns() {
+        for (int length : new int[]{1, 2, 3, 10, 1000, 100000}) {
+            final var s = "a".repeat(length);
+            assertFactorization(s);
+            // A run is a single character followed by a factor which overlaps itself
+            assertEquals(Math.min(length, 2), LZ.factorizeLinear(s).size());
+        }
+        assertFactorization("b" + "a".repeat(500) + "b" + "a".repeat(499));
+    }
+
+    @Test
+    public void testEmpty() {
+        final var factors = LZ.factorizeLinear("");
+        assertEquals(0, factors.size());
+        assertEquals("", factors.reconstruct());
+        assertEquals("", factors.toString());
+    }
+}
@@ -0,0 +1,106 @@
+package compression.areacomp.v4;
+
+import compression.areacomp.AreaFunction;
+import compression.areacomp.AreaQueue;
+import compression.areacomp.areas.ChildArea;
+import compression.areacomp.areas.HeightAdvantageArea;
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.areas.WidthFirstArea;
+import compression.benchmark.Corpus;
+import compression.unified.UnifiedRuleset;
+import compression.utils.AugmentedString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the separate phases of {@link Ruleset#compress(AreaFunction)}: Construction of the suffix array,
+ * building the priority queue, the substitution loop and the conversion to a {@link UnifiedRuleset}.
+ * This lives in the same package as {@link Ruleset}, since the phases are not part of the public API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AreaCompV4PhaseBenchmark {
+
+    @Param({
+            "calgary/bib.txt", "calgary/book1.txt", "calgary/book2.txt", "calgary/geo.txt", "calgary/news.txt",
+            "calgary/obj1.txt", "calgary/obj2.txt", "calgary/paper1.txt", "calgary/paper2.txt", "calgary/pic.txt",
+            "calgary/progc.txt", "calgary/progl.txt", "calgary/progp.txt", "calgary/trans.txt",
+            "misc/aaa.txt", "misc/fox.txt", "misc/foxinsocks.txt", "misc/foxinsocksfull.txt", "misc/loremipsum5000w.txt",
+            "misc/loremipsum500w.txt", "misc/loremipsumshort.txt", "misc/pattern.txt", "misc/pattern2.txt",
+            "misc/random.txt", "misc/sample.txt", "misc/small.txt"
+    })
+    public String file;
+
+    @Param({"ChildArea", "HeightAdvantageArea", "HeightFirstArea", "WidthFirstArea"})
+    public String area;
+
+    private String input;
+
+    private AreaFunction fun;
+
+    /**
+     * The augmented string of the input, shared by the phases following the suffix array construction
+     */
+    private AugmentedString augS;
+
+    /**
+     * A fully compressed ruleset used for measuring {@link #toUnified()}
+     */
+    private Ruleset compressed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = Corpus.read(file);
+        fun = switch (area) {
+            case "ChildArea" -> new ChildArea();
+            case "HeightAdvantageArea" -> new HeightAdvantageArea();
+            case "HeightFirstArea" -> new HeightFirstArea();
+            case "WidthFirstArea" -> new WidthFirstArea();
+            default -> throw new IllegalArgumentException("Unknown area function: " + area);
+        };
+        augS = new AugmentedString(input);
+        compressed = new Ruleset(input);
+        compressed.compress(fun);
+    }
+
+    @Benchmark
+    public AugmentedString suffixArray() {
+        return new AugmentedString(input);
+    }
+
+    @Benchmark
+    public AreaQueue queue() {
+        return new Ruleset(input).buildQueue(augS, fun);
+    }
+
+    @Benchmark
+    public Ruleset substitution(SubstitutionState state) {
+        state.ruleset.processQueue(augS, state.queue);
+        return state.ruleset;
+    }
+
+    @Benchmark
+    public UnifiedRuleset toUnified() {
+        return compressed.toUnified();
+    }
+
+    /**
+     * The substitution loop consumes its queue and modifies its ruleset, so both are recreated before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class SubstitutionState {
+
+        Ruleset ruleset;
+
+        AreaQueue queue;
+
+        @Setup(Level.Invocation)
+        public void setUp(AreaCompV4PhaseBenchmark benchmark) {
+            ruleset = new Ruleset(benchmark.input);
+            queue = ruleset.buildQueue(benchmark.augS, benchmark.fun);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package compression.benchmark;
+
+import compression.utils.AugmentedString;
+import compression.utils.SuffixArrayBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of {@link AugmentedString AugmentedStrings}, which consists of the suffix array, the lcp
+ * array and the child table. With the gc profiler, which is enabled in the build, gc.alloc.rate.norm shows the
+ * allocated bytes per construction.
+ * Running with several threads builds one string per thread concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AugmentedStringBenchmark {
+
+    @Param({"calgary/book1.txt", "calgary/pic.txt", "misc/loremipsum5000w.txt"})
+    public String file;
+
+    private byte[] input;
+
+    private SuffixArrayBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = Corpus.readBytes(file);
+        builder = SuffixArrayBuilder.byName("sequential");
+    }
+
+    @Benchmark
+    public AugmentedString build(ByteCounter counter) {
+        counter.add(input.length);
+        return new AugmentedString(input, builder);
+    }
+}
@@ -0,0 +1,36 @@
+package compression.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the amount of input processed by a benchmark. In throughput mode with seconds as time unit, JMH reports this
+ * counter in MB/s next to the regular ops/s score.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ByteCounter {
+
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    /**
+     * The amount of processed megabytes in the current iteration
+     */
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+    }
+
+    /**
+     * Records that the given amount of input characters was processed
+     * @param length The amount of characters. Since inputs are read as ISO-8859-1, this equals the amount of bytes
+     */
+    public void add(int length) {
+        megabytes += length / BYTES_PER_MB;
+    }
+}
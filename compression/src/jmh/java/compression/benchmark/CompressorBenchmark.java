@@ -0,0 +1,83 @@
+package compression.benchmark;
+
+import compression.unified.UnifiedRuleset;
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedCompressor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end throughput of every {@link UnifiedCompressor} on the bundled corpora.
+ * The allocation rate is reported by the gc profiler configured in build.gradle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CompressorBenchmark {
+
+    @Param({
+            "calgary/bib.txt", "calgary/book1.txt", "calgary/book2.txt", "calgary/geo.txt", "calgary/news.txt",
+            "calgary/obj1.txt", "calgary/obj2.txt", "calgary/paper1.txt", "calgary/paper2.txt", "calgary/pic.txt",
+            "calgary/progc.txt", "calgary/progl.txt", "calgary/progp.txt", "calgary/trans.txt",
+            "misc/aaa.txt", "misc/fox.txt", "misc/foxinsocks.txt", "misc/foxinsocksfull.txt", "misc/loremipsum5000w.txt",
+            "misc/loremipsum500w.txt", "misc/loremipsumshort.txt", "misc/pattern.txt", "misc/pattern2.txt",
+            "misc/random.txt", "misc/sample.txt", "misc/small.txt"
+    })
+    public String file;
+
+    @Param({
+            "AreaCompV4/ChildArea", "AreaCompV4/HeightAdvantageArea", "AreaCompV4/HeightFirstArea",
+            "AreaCompV4/WidthFirstArea", "ArrayRePair", "BlockRePair", "LZSLP", "RePair", "Sequitur",
+            "StreamingAreaComp/HeightFirstArea", "StreamingSequitur"
+    })
+    public String algorithm;
+
+    private String input;
+
+    private byte[] bytes;
+
+    private UnifiedCompressor compressor;
+
+    /**
+     * A grammar produced by {@link #compressor}, used to measure {@link #toUnified()} in isolation
+     */
+    private ToUnifiedRuleset grammar;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = Corpus.read(file);
+        bytes = Corpus.readBytes(file);
+        compressor = Compressors.create(algorithm);
+        grammar = compressor.compress(input);
+    }
+
+    /**
+     * Compresses the input and converts the result into a {@link UnifiedRuleset}
+     */
+    @Benchmark
+    public UnifiedRuleset compress(ByteCounter counter) {
+        final UnifiedRuleset unified = compressor.compress(input).toUnified();
+        counter.add(input.length());
+        return unified;
+    }
+
+    /**
+     * Compresses the input given as bytes and converts the result into a {@link UnifiedRuleset}
+     */
+    @Benchmark
+    public UnifiedRuleset compressBytes(ByteCounter counter) {
+        final UnifiedRuleset unified = compressor.compress(bytes).toUnified();
+        counter.add(bytes.length);
+        return unified;
+    }
+
+    /**
+     * Only converts an already computed grammar into a {@link UnifiedRuleset}
+     */
+    @Benchmark
+    public UnifiedRuleset toUnified() {
+        return grammar.toUnified();
+    }
+}
@@ -0,0 +1,45 @@
+package compression.benchmark;
+
+import compression.areacomp.areas.ChildArea;
+import compression.areacomp.areas.HeightAdvantageArea;
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.areas.WidthFirstArea;
+import compression.areacomp.v4.AreaCompV4;
+import compression.areacomp.v4.StreamingAreaComp;
+import compression.lz.LZSLP;
+import compression.repair.ArrayRePair;
+import compression.repair.BlockRePair;
+import compression.repair.RePair;
+import compression.sequitur.Sequitur;
+import compression.sequitur.StreamingSequitur;
+import compression.unified.interfaces.UnifiedCompressor;
+
+/**
+ * Creates the compressors under benchmark from their names
+ */
+public final class Compressors {
+
+    private Compressors() {}
+
+    /**
+     * Creates a new compressor instance
+     * @param name The name of the compressor as returned by {@link UnifiedCompressor#name()}
+     * @return The compressor
+     */
+    public static UnifiedCompressor create(String name) {
+        return switch (name) {
+            case "AreaCompV4/ChildArea" -> new AreaCompV4(new ChildArea());
+            case "AreaCompV4/HeightAdvantageArea" -> new AreaCompV4(new HeightAdvantageArea());
+            case "AreaCompV4/HeightFirstArea" -> new AreaCompV4(new HeightFirstArea());
+            case "AreaCompV4/WidthFirstArea" -> new AreaCompV4(new WidthFirstArea());
+            case "StreamingAreaComp/HeightFirstArea" -> new StreamingAreaComp(new HeightFirstArea());
+            case "ArrayRePair" -> new ArrayRePair();
+            case "BlockRePair" -> new BlockRePair();
+            case "LZSLP" -> new LZSLP();
+            case "RePair" -> new RePair();
+            case "Sequitur" -> new Sequitur();
+            case "StreamingSequitur" -> new StreamingSequitur();
+            default -> throw new IllegalArgumentException("Unknown compressor: " + name);
+        };
+    }
+}
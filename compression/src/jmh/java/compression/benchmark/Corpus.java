@@ -0,0 +1,35 @@
+package compression.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Gives the benchmarks access to the files in the "input" directory.
+ * The benchmarks have to be run from the project directory, so that this directory can be found.
+ */
+public final class Corpus {
+
+    private Corpus() {}
+
+    /**
+     * Reads a file from the input directory, from which {@link compression.unified.interfaces.UnifiedCompressor#sqlplot(String)} compresses files
+     * @param fileName The path of the file relative to the input directory
+     * @return The contents of the file
+     * @throws IOException If the file could not be read
+     */
+    public static String read(String fileName) throws IOException {
+        return Files.readString(Paths.get("input", fileName), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads the bytes of a file from the input directory
+     * @param fileName The path of the file relative to the input directory
+     * @return The contents of the file
+     * @throws IOException If the file could not be read
+     */
+    public static byte[] readBytes(String fileName) throws IOException {
+        return Files.readAllBytes(Paths.get("input", fileName));
+    }
+}
@@ -0,0 +1,56 @@
+package compression.benchmark;
+
+import compression.unified.UnifiedRuleset;
+import compression.unified.io.GrammarExpander;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reconstructing the text of a grammar as a String with writing it to a stream with {@link GrammarExpander}.
+ * The throughput is reported in megabytes of the original text per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExpansionBenchmark {
+
+    @Param({"calgary/book1.txt", "calgary/news.txt", "calgary/obj2.txt", "calgary/pic.txt", "misc/loremipsum5000w.txt"})
+    public String file;
+
+    @Param({"AreaCompV4/HeightFirstArea", "RePair", "Sequitur"})
+    public String algorithm;
+
+    private int textLength;
+
+    private UnifiedRuleset grammar;
+
+    private GrammarExpander expander;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final byte[] input = Corpus.readBytes(file);
+        textLength = input.length;
+        grammar = Compressors.create(algorithm).compress(input).toUnified();
+        expander = GrammarExpander.of(grammar);
+    }
+
+    @Benchmark
+    public String buildString(ByteCounter counter) {
+        counter.add(textLength);
+        return grammar.buildString();
+    }
+
+    @Benchmark
+    public void expand(ByteCounter counter) throws IOException {
+        counter.add(textLength);
+        expander.expand(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public GrammarExpander prepare() {
+        return GrammarExpander.of(grammar);
+    }
+}
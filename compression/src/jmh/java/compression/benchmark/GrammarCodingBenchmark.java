@@ -0,0 +1,70 @@
+package compression.benchmark;
+
+import compression.unified.UnifiedRuleset;
+import compression.unified.io.EntropyDecoder;
+import compression.unified.io.EntropyEncoder;
+import compression.unified.io.GrammarDecoder;
+import compression.unified.io.GrammarEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of grammars with the binary format and the entropy coded format.
+ * The throughput is reported in megabytes of the original text per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GrammarCodingBenchmark {
+
+    @Param({"calgary/book1.txt", "calgary/news.txt", "calgary/obj2.txt", "calgary/pic.txt", "misc/loremipsum5000w.txt"})
+    public String file;
+
+    @Param({"AreaCompV4/HeightFirstArea", "RePair", "Sequitur"})
+    public String algorithm;
+
+    private int textLength;
+
+    private UnifiedRuleset grammar;
+
+    private byte[] binary;
+
+    private byte[] entropyCoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final byte[] input = Corpus.readBytes(file);
+        textLength = input.length;
+        grammar = Compressors.create(algorithm).compress(input).toUnified();
+        binary = GrammarEncoder.encode(grammar);
+        entropyCoded = EntropyEncoder.encode(grammar);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary(ByteCounter counter) {
+        counter.add(textLength);
+        return GrammarEncoder.encode(grammar);
+    }
+
+    @Benchmark
+    public void decodeBinary(ByteCounter counter, Blackhole blackhole) throws IOException {
+        counter.add(textLength);
+        GrammarDecoder.decode(new ByteArrayInputStream(binary), (id, symbols, length) -> blackhole.consume(symbols[length - 1]));
+    }
+
+    @Benchmark
+    public byte[] encodeEntropy(ByteCounter counter) {
+        counter.add(textLength);
+        return EntropyEncoder.encode(grammar);
+    }
+
+    @Benchmark
+    public void decodeEntropy(ByteCounter counter, Blackhole blackhole) throws IOException {
+        counter.add(textLength);
+        EntropyDecoder.decode(new ByteArrayInputStream(entropyCoded), (id, symbols, length) -> blackhole.consume(symbols[length - 1]));
+    }
+}
@@ -0,0 +1,44 @@
+package compression.benchmark;
+
+import compression.utils.SuffixArrayBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the {@link SuffixArrayBuilder} backends on the bundled corpora
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SuffixArrayBenchmark {
+
+    @Param({
+            "calgary/book1.txt", "calgary/book2.txt", "calgary/pic.txt", "misc/loremipsum5000w.txt", "misc/random.txt"
+    })
+    public String file;
+
+    @Param({"sequential", "parallel"})
+    public String builderName;
+
+    private String input;
+
+    private SuffixArrayBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = Corpus.read(file) + Character.MAX_VALUE;
+        builder = SuffixArrayBuilder.byName(builderName);
+    }
+
+    /**
+     * Constructs the suffix array and the lcp array of the input
+     */
+    @Benchmark
+    public SuffixArrayBuilder.SuffixData build(ByteCounter counter) {
+        final var suffixData = builder.build(input);
+        counter.add(input.length());
+        return suffixData;
+    }
+}
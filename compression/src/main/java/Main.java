@@ -4,8 +4,14 @@ import compression.areacomp.areas.HeightAdvantageArea;
 import compression.areacomp.areas.HeightFirstArea;
 import compression.areacomp.areas.WidthFirstArea;
 import compression.areacomp.v4.AreaCompV4;
+import compression.areacomp.v4.StreamingAreaComp;
+import compression.lz.LZSLP;
+import compression.repair.ArrayRePair;
+import compression.repair.BlockRePair;
 import compression.repair.RePair;
 import compression.sequitur.Sequitur;
+import compression.sequitur.StreamingSequitur;
+import compression.unified.BatchCompressor;
 import compression.unified.interfaces.UnifiedCompressor;
 import compression.utils.Benchmark;
 
@@ -14,10 +20,13 @@ import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 public class Main {
 
@@ -100,15 +109,20 @@ public class Main {
                 "widthfirstarea", WidthFirstArea.class);
 
         if(args.length < 3) {
-            System.out.println("Usage: [input file] [print grammar] [algorithm] <area function if AreaComp> \n" +
+            System.out.println("Usage: [input file or directory] [print grammar] [algorithm] <area function if AreaComp> \n" +
+                    "The files of a directory are compressed concurrently\n" +
                     "Print grammar: true or false\n" +
-                    "Algorithm: one of Sequitur, RePair, AreaComp\n" +
+                    "Algorithm: one of Sequitur, RePair, ArrayRePair, BlockRePair, LZSLP, AreaComp, StreamingAreaComp, StreamingSequitur\n" +
+                    "BlockRePair compresses blocks of -D" + BlockRePair.BLOCK_SIZE_PROPERTY + " bytes in parallel, " +
+                    "-D" + BlockRePair.FINAL_ROUND_PROPERTY + "=true compresses their start rules again\n" +
+                    "StreamingAreaComp compresses chunks of -D" + StreamingAreaComp.CHUNK_SIZE_PROPERTY + " bytes one after another, " +
+                    "and forgets rules unused for -D" + StreamingAreaComp.RETENTION_PROPERTY + " chunks\n" +
+                    "StreamingSequitur keeps the last -D" + StreamingSequitur.WINDOW_PROPERTY + " symbols of the start rule\n" +
                     "Area function: one of " + String.join(", ", areaFunctionClasses.keySet()));
             return;
         }
 
         var filePath = Paths.get(args[0]).toAbsolutePath();
-        var fileName = filePath.getFileName().toString();
 
         if(!Files.exists(filePath)) {
             System.out.println("File '" + filePath + "' does not exist");
@@ -124,8 +138,12 @@ public class Main {
 
         var alg = switch (args[2].toLowerCase()) {
             case "repair", "re-pair" -> new RePair();
+            case "arrayrepair", "array-repair" -> new ArrayRePair();
+            case "blockrepair", "block-repair" -> new BlockRePair();
+            case "lzslp", "lz-slp" -> new LZSLP();
             case "sequitur" -> new Sequitur();
-            case "areacomp" -> {
+            case "streamingsequitur" -> new StreamingSequitur();
+            case "areacomp", "streamingareacomp" -> {
                 if(args.length < 4) {
                     System.out.println("Missing area function while using AreaComp. One of: " + String.join(", ", areaFunctionClasses.keySet()));
                     yield null;
@@ -137,25 +155,77 @@ public class Main {
                     yield null;
                 }
 
-                yield new AreaCompV4(area.getConstructor().newInstance());
+                final var instance = area.getConstructor().newInstance();
+                yield "areacomp".equalsIgnoreCase(args[2]) ? new AreaCompV4(instance) : new StreamingAreaComp(instance);
             }
             default -> null;
         };
 
         if(alg == null) {
-            if (!List.of("repair", "re-pair", "sequitur", "areacomp").contains(args[2].toLowerCase())) {
+            if (!List.of("repair", "re-pair", "arrayrepair", "array-repair", "blockrepair", "block-repair", "lzslp", "lz-slp", "sequitur", "streamingsequitur", "areacomp", "streamingareacomp").contains(args[2].toLowerCase())) {
                 System.out.println("Invalid algorithm: " + args[2]);
             }
             return;
         }
 
-        var input = Files.readString(filePath);
-        var outputPath = Paths.get(
-                filePath.getParent().toString(),
-                fileName.substring(0, fileName.lastIndexOf(".")) + ".out" + fileName.substring(fileName.lastIndexOf("."))
-        );
+        if(Files.isDirectory(filePath)) {
+            compressDirectory(filePath, alg, printGrammar);
+            return;
+        }
+
+        var outputPath = outputPath(filePath);
 
-        alg.benchmarkSimple(input, new PrintStream(Files.newOutputStream(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)), printGrammar);
+        alg.benchmarkSimple(filePath, new PrintStream(Files.newOutputStream(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)), printGrammar);
         System.out.println("Results written to " + outputPath.toString());
     }
+
+    /**
+     * Compresses all files in a directory concurrently with a {@link BatchCompressor} and prints the size of each grammar.
+     * The amount of threads can be set with the system property {@value BatchCompressor#PARALLELISM_PROPERTY}.
+     * @param directory The directory whose files to compress. Output files of previous runs are skipped
+     * @param alg The algorithm to compress the files with
+     * @param printGrammar Whether the grammar of each file should be written to its output file
+     * @throws IOException If the directory cannot be listed or an output file cannot be written
+     */
+    private static void compressDirectory(Path directory, UnifiedCompressor alg, boolean printGrammar) throws IOException {
+        final List<Path> files;
+        try (var stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().contains(".out"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        final var start = System.nanoTime();
+        try (var batch = new BatchCompressor(alg)) {
+            System.out.println("Compressing " + files.size() + " files with " + alg.name() + " on " + batch.parallelism() + " threads");
+
+            final var futures = batch.submitFiles(files);
+            for (int i = 0; i < files.size(); i++) {
+                final var file = files.get(i);
+                try {
+                    final var unified = futures.get(i).join();
+                    System.out.printf("%s: Grammar size %d, rule count %d%n", file.getFileName(), unified.rulesetSize(), unified.ruleCount());
+                    if(printGrammar) {
+                        Files.writeString(outputPath(file), unified.getAsString());
+                    }
+                } catch (CompletionException e) {
+                    System.out.println(file.getFileName() + ": Compression failed: " + e.getCause());
+                }
+            }
+        }
+        System.out.println("Total time: " + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+
+    /**
+     * Gets the path of the file to write the results for an input file to, which is the input file with ".out" inserted
+     * before its extension
+     * @param file The input file
+     * @return The output file
+     */
+    private static Path outputPath(Path file) {
+        final var fileName = file.getFileName().toString();
+        final int extension = fileName.lastIndexOf(".") == -1 ? fileName.length() : fileName.lastIndexOf(".");
+        return file.resolveSibling(fileName.substring(0, extension) + ".out" + fileName.substring(extension));
+    }
 }
@@ -16,6 +16,22 @@ public interface AreaFunction {
      */
     AreaData area(AugmentedString str, int low, int high);
 
+    /**
+     * Calculates the same area value as {@link #area(AugmentedString, int, int)} and adds the result to the given sink,
+     * if the area is positive. Implementations should override this, so that no {@link AreaData} object is allocated.
+     *
+     * @param str The {@link AugmentedString} which contains the relevant data
+     * @param low The lower bound for the interval in the lcp array (inclusive)
+     * @param high The upper bound for the interval in the lcp array (exclusive)
+     * @param sink The sink to add the result to, e.g. an {@link AreaQueue}
+     */
+    default void addArea(AugmentedString str, int low, int high, AreaSink sink) {
+        final var data = area(str, low, high);
+        if (data.area > 0) {
+            sink.add(data.low, data.high, data.area, data.len);
+        }
+    }
+
     /**
      * A class containing the resulting data from a computation of {@link AreaFunction#area(AugmentedString, int, int)}
      */
@@ -0,0 +1,348 @@
+package compression.areacomp;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A max priority queue for the results of an {@link AreaFunction}, which stores its entries in parallel int arrays
+ * instead of one {@link AreaFunction.AreaData} object per entry.
+ * <p>
+ * Every added entry is assigned a row. The row is returned by {@link #poll()} and can be used to access the entry's
+ * values through {@link #low(int)}, {@link #high(int)}, {@link #area(int)} and {@link #len(int)}.
+ * The heap itself is an array of rows.
+ * <p>
+ * Entries with the same area are polled in the order in which they were added, i.e. by their row. As the order is total,
+ * the order in which entries are polled only depends on the rows and not on how the heap was built, so a queue whose
+ * rows are filled in parallel through {@link #segment(int, int)} and then {@link #heapify(AreaSink[], ForkJoinPool) heapified}
+ * is polled in exactly the same order as a queue whose entries were added one by one.
+ */
+public class AreaQueue implements AreaSink {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The lower bounds for the intervals in the lcp array (inclusive)
+     */
+    private int[] lows;
+
+    /**
+     * The upper bounds for the intervals in the lcp array (exclusive)
+     */
+    private int[] highs;
+
+    /**
+     * The area values of the intervals
+     */
+    private int[] areas;
+
+    /**
+     * The lengths of the patterns to replace
+     */
+    private int[] lens;
+
+    /**
+     * The binary max heap containing the rows of the entries that have not been polled yet, ordered by their area and then by their row
+     */
+    private int[] heap;
+
+    /**
+     * The amount of entries in {@link #heap}
+     */
+    private int size;
+
+    /**
+     * The amount of rows that have been written to so far
+     */
+    private int rows;
+
+    /**
+     * Creates a new empty queue
+     */
+    public AreaQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty queue which can hold the given amount of entries before its arrays have to grow
+     * @param initialCapacity The initial capacity
+     */
+    public AreaQueue(int initialCapacity) {
+        final int capacity = Math.max(initialCapacity, 1);
+        lows = new int[capacity];
+        highs = new int[capacity];
+        areas = new int[capacity];
+        lens = new int[capacity];
+        heap = new int[capacity];
+    }
+
+    /**
+     * Adds an entry to the queue
+     * @param low The lower bound for the interval in the lcp array (inclusive)
+     * @param high The upper bound for the interval in the lcp array (exclusive)
+     * @param area The area value of the interval, which determines its priority
+     * @param len The length of the pattern to replace
+     */
+    @Override
+    public void add(int low, int high, int area, int len) {
+        if (rows == lows.length) {
+            grow();
+        }
+
+        final int row = rows++;
+        lows[row] = low;
+        highs[row] = high;
+        areas[row] = area;
+        lens[row] = len;
+
+        siftUp(size++, row);
+    }
+
+    /**
+     * Creates a segment, which writes the entries added to it into the rows from to to (exclusive) of this queue, without
+     * adding them to the heap. Segments of disjoint rows can be filled from different threads at the same time,
+     * and the rows of this queue can be read while the segment is filled. After all segments have been filled,
+     * {@link #heapify(AreaSink[], ForkJoinPool)} turns their entries into the entries of this queue.
+     * @param from The first row of the segment
+     * @param to The row after the last row of the segment
+     * @return The segment
+     * @throws IndexOutOfBoundsException If the rows are not within the capacity of this queue
+     */
+    public AreaSink segment(int from, int to) {
+        Objects.checkFromToIndex(from, to, lows.length);
+        return new Segment(this, from, to);
+    }
+
+    /**
+     * Replaces the entries of this queue with the entries of segments of this queue, in the order of the segments, and
+     * builds the heap bottom-up in linear time. The subtrees of the heap are built in parallel, if a pool is given
+     * @param segments The segments created by {@link #segment(int, int)}, in the order of their rows
+     * @param pool The pool in which the heap is built, or null to build it on the calling thread
+     * @throws IllegalArgumentException If a segment does not belong to this queue
+     */
+    public void heapify(AreaSink[] segments, ForkJoinPool pool) {
+        // Move the rows of the segments together, which keeps their order
+        int count = 0;
+        for (var sink : segments) {
+            if (!(sink instanceof Segment segment) || segment.queue != this || segment.from < count) {
+                throw new IllegalArgumentException("Not a segment of this queue in row order: " + sink);
+            }
+            final int length = segment.next - segment.from;
+            if (segment.from != count) {
+                System.arraycopy(lows, segment.from, lows, count, length);
+                System.arraycopy(highs, segment.from, highs, count, length);
+                System.arraycopy(areas, segment.from, areas, count, length);
+                System.arraycopy(lens, segment.from, lens, count, length);
+            }
+            count += length;
+        }
+
+        rows = count;
+        size = count;
+        for (int i = 0; i < size; i++) {
+            heap[i] = i;
+        }
+
+        if (pool == null) {
+            heapify(0, 0);
+        } else {
+            // Fork until there are a few subtrees per thread
+            final int forkDepth = 34 - Integer.numberOfLeadingZeros(pool.getParallelism());
+            pool.invoke(ForkJoinTask.adapt(() -> heapify(0, forkDepth)));
+        }
+    }
+
+    /**
+     * Removes the entry with the greatest area from the queue
+     * @return The row of the removed entry, or -1 if the queue is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+
+        final int top = heap[0];
+        size--;
+        if (size > 0) {
+            siftDown(0, heap[size]);
+        }
+        return top;
+    }
+
+    /**
+     * Gets the row of the entry with the greatest area without removing it
+     * @return The row of the entry, or -1 if the queue is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            return -1;
+        }
+        return heap[0];
+    }
+
+    public int low(int row) {
+        return lows[row];
+    }
+
+    public int high(int row) {
+        return highs[row];
+    }
+
+    public int area(int row) {
+        return areas[row];
+    }
+
+    public int len(int row) {
+        return lens[row];
+    }
+
+    /**
+     * Returns the amount of entries in this queue
+     * @return The amount of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether this queue has no entries in it
+     * @return true, if the queue is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries and rows from this queue, but keeps the allocated arrays
+     */
+    public void clear() {
+        size = 0;
+        rows = 0;
+    }
+
+    private void grow() {
+        final int capacity = lows.length + (lows.length >> 1) + 1;
+        lows = Arrays.copyOf(lows, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        areas = Arrays.copyOf(areas, capacity);
+        lens = Arrays.copyOf(lens, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+    }
+
+    /**
+     * Builds the heap in the subtree of an index, whose subtrees of the children are built first
+     * @param index The index of the root of the subtree in {@link #heap}
+     * @param forkDepth The amount of levels below the index on which the subtrees are built in parallel
+     */
+    private void heapify(int index, int forkDepth) {
+        if (index >= size >>> 1) {
+            return;
+        }
+
+        final int left = 2 * index + 1;
+        if (forkDepth > 0) {
+            ForkJoinTask.invokeAll(
+                    ForkJoinTask.adapt(() -> heapify(left, forkDepth - 1)),
+                    ForkJoinTask.adapt(() -> heapify(left + 1, forkDepth - 1)));
+        } else {
+            heapify(left, 0);
+            heapify(left + 1, 0);
+        }
+        siftDown(index, heap[index]);
+    }
+
+    /**
+     * Checks whether an entry is polled before another one
+     * @param row The row of the entry
+     * @param other The row of the other entry
+     * @return true, if the entry has a greater area, or the same area and a lower row
+     */
+    private boolean precedes(int row, int other) {
+        return areas[row] > areas[other] || areas[row] == areas[other] && row < other;
+    }
+
+    private void siftUp(int index, int row) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            final int parentRow = heap[parent];
+            if (!precedes(row, parentRow)) {
+                break;
+            }
+            heap[index] = parentRow;
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private void siftDown(int index, int row) {
+        final int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int childRow = heap[child];
+            final int right = child + 1;
+            if (right < size && precedes(heap[right], childRow)) {
+                child = right;
+                childRow = heap[right];
+            }
+            if (!precedes(childRow, row)) {
+                break;
+            }
+            heap[index] = childRow;
+            index = child;
+        }
+        heap[index] = row;
+    }
+
+    @Override
+    public String toString() {
+        final var sj = new StringJoiner(", ", "AreaQueue[", "]");
+        for (int i = 0; i < size; i++) {
+            final int row = heap[i];
+            sj.add(String.format("Area[[%d, %d], area: %d, len: %d]", lows[row], highs[row], areas[row], lens[row]));
+        }
+        return sj.toString();
+    }
+
+    /**
+     * The rows of a queue, which are filled by {@link #add(int, int, int, int)} without adding them to the heap
+     */
+    private static final class Segment implements AreaSink {
+
+        private final AreaQueue queue;
+
+        private final int from;
+
+        private final int to;
+
+        /**
+         * The row of the queue which is written to next
+         */
+        private int next;
+
+        private Segment(AreaQueue queue, int from, int to) {
+            this.queue = queue;
+            this.from = from;
+            this.to = to;
+            this.next = from;
+        }
+
+        @Override
+        public void add(int low, int high, int area, int len) {
+            if (next == to) {
+                throw new IllegalStateException("The segment is full");
+            }
+            queue.lows[next] = low;
+            queue.highs[next] = high;
+            queue.areas[next] = area;
+            queue.lens[next] = len;
+            next++;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Segment[%d, %d)", from, to);
+        }
+    }
+}
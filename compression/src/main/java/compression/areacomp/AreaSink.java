@@ -0,0 +1,19 @@
+package compression.areacomp;
+
+import compression.utils.AugmentedString;
+
+/**
+ * Receives the results of an {@link AreaFunction} from {@link AreaFunction#addArea(AugmentedString, int, int, AreaSink)}
+ */
+@FunctionalInterface
+public interface AreaSink {
+
+    /**
+     * Adds the result of an area function
+     * @param low The lower bound for the interval in the lcp array (inclusive)
+     * @param high The upper bound for the interval in the lcp array (exclusive)
+     * @param area The area value of the interval
+     * @param len The length of the pattern to replace
+     */
+    void add(int low, int high, int area, int len);
+}
@@ -1,6 +1,7 @@
 package compression.areacomp.areas;
 
 import compression.areacomp.AreaFunction;
+import compression.areacomp.AreaSink;
 import compression.utils.AugmentedString;
 
 @SuppressWarnings("Duplicates")
@@ -14,4 +15,11 @@ public class ChildArea implements AreaFunction {
 
         return new AreaData(low, high, lcpLen * (high - low + 2), lcpLen);
     }
+
+    @Override
+    public void addArea(AugmentedString str, int low, int high, AreaSink sink) {
+        var lcpLen = str.lValue(low - 1, high);
+        if (lcpLen <= 1) return;
+        sink.add(low, high, lcpLen * (high - low + 2), lcpLen);
+    }
 }
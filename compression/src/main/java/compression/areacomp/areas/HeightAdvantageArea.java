@@ -1,6 +1,7 @@
 package compression.areacomp.areas;
 
 import compression.areacomp.AreaFunction;
+import compression.areacomp.AreaSink;
 import compression.utils.AugmentedString;
 
 public class HeightAdvantageArea implements AreaFunction {
@@ -13,4 +14,11 @@ public class HeightAdvantageArea implements AreaFunction {
 
         return new AreaFunction.AreaData(low, high,  10 * lcpLen + Math.min(9, (int) Math.log(high - low + 1)), lcpLen);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void addArea(AugmentedString str, int low, int high, AreaSink sink) {
+        var lcpLen = str.lValue(low - 1, high);
+        if (lcpLen <= 1) return;
+        sink.add(low, high, 10 * lcpLen + Math.min(9, (int) Math.log(high - low + 1)), lcpLen);
+    }
+}
@@ -1,6 +1,7 @@
 package compression.areacomp.areas;
 
 import compression.areacomp.AreaFunction;
+import compression.areacomp.AreaSink;
 import compression.utils.AugmentedString;
 
 @SuppressWarnings("Duplicates")
@@ -13,4 +14,11 @@ public class HeightFirstArea implements AreaFunction {
         if (lcpLen <= 1) return new AreaData(low, high, 0, 0);
         return new AreaData(low, high, lcpLen, lcpLen);
     }
+
+    @Override
+    public void addArea(AugmentedString str, int low, int high, AreaSink sink) {
+        var lcpLen = str.lValue(low - 1, high);
+        if (lcpLen <= 1) return;
+        sink.add(low, high, lcpLen, lcpLen);
+    }
 }
@@ -1,6 +1,7 @@
 package compression.areacomp.areas;
 
 import compression.areacomp.AreaFunction;
+import compression.areacomp.AreaSink;
 import compression.utils.AugmentedString;
 
 public class WidthFirstArea implements AreaFunction {
@@ -10,4 +11,11 @@ public class WidthFirstArea implements AreaFunction {
         if (lcpLen <= 1) return new AreaData(low, high, 0, 0);
         return new AreaData(low, high, high - low + 10, lcpLen);
     }
+
+    @Override
+    public void addArea(AugmentedString str, int low, int high, AreaSink sink) {
+        var lcpLen = str.lValue(low - 1, high);
+        if (lcpLen <= 1) return;
+        sink.add(low, high, high - low + 10, lcpLen);
+    }
 }
@@ -190,7 +190,10 @@ class Ruleset implements ToUnifiedRuleset {
     }
 
 
-    private static final List<Integer> IN_BOUNDARY_LIST = new ArrayList<>();
+    /**
+     * The buffer for {@link #inBoundary(int[], int)}, which belongs to this ruleset, so that rulesets can be built concurrently
+     */
+    private final List<Integer> inBoundaryList = new ArrayList<>();
 
     /**
      * Filters out the occurrences of the pattern with length len and at the given positions, which start in one rule range and end in another.
@@ -201,14 +204,14 @@ class Ruleset implements ToUnifiedRuleset {
      * @see #crossesBoundary(int, int)
      */
     private int[] inBoundary(int[] positions, int len) {
-        IN_BOUNDARY_LIST.clear();
+        inBoundaryList.clear();
         for (int position : positions) {
             if (!crossesBoundary(position, position + len)) {
-                IN_BOUNDARY_LIST.add(position);
+                inBoundaryList.add(position);
             }
         }
 
-        return IN_BOUNDARY_LIST.stream().mapToInt(i -> i).toArray();
+        return inBoundaryList.stream().mapToInt(i -> i).toArray();
     }
 
     /**
@@ -3,29 +3,82 @@ package compression.areacomp.v4;
 import compression.areacomp.AreaFunction;
 import compression.unified.interfaces.ToUnifiedRuleset;
 import compression.unified.interfaces.UnifiedCompressor;
+import compression.utils.ByteSequence;
+import compression.utils.SuffixArrayBuilder;
 
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 public class AreaCompV4 implements UnifiedCompressor {
 
+    /**
+     * The name of the system property which sets the default amount of threads used to evaluate the area function.
+     * If it is not set, the area function is evaluated on the calling thread only
+     */
+    public static final String PARALLELISM_PROPERTY = "compression.areacomp.parallelism";
+
     /**
      * The {@link AreaFunction} which this algorithm should use to prioritize intervals in the LCP array
      */
     private final AreaFunction area;
 
+    /**
+     * The builder used to construct the suffix array and the lcp array of the input
+     */
+    private final SuffixArrayBuilder suffixArrayBuilder;
+
+    /**
+     * The pool in which the area function is evaluated for all lcp intervals, or null if it is evaluated on the calling thread.
+     * It is shared by all inputs compressed by this instance. Its threads end after they have been idle for a while
+     */
+    private final ForkJoinPool pool;
+
     /**
      * Creates a new instance with a given {@link AreaFunction}
      * @param area The given {@link AreaFunction}
      */
     public AreaCompV4(AreaFunction area) {
+        this(area, SuffixArrayBuilder.defaultBuilder());
+    }
+
+    /**
+     * Creates a new instance with a given {@link AreaFunction} and {@link SuffixArrayBuilder}
+     * @param area The given {@link AreaFunction}
+     * @param suffixArrayBuilder The builder used to construct the suffix array and the lcp array of the input
+     */
+    public AreaCompV4(AreaFunction area, SuffixArrayBuilder suffixArrayBuilder) {
+        this(area, suffixArrayBuilder, Integer.getInteger(PARALLELISM_PROPERTY, 1));
+    }
+
+    /**
+     * Creates a new instance with a given {@link AreaFunction}, {@link SuffixArrayBuilder} and parallelism.
+     * The grammar does not depend on the parallelism.
+     * @param area The given {@link AreaFunction}. It must be safe to call it from multiple threads if parallelism is greater than 1
+     * @param suffixArrayBuilder The builder used to construct the suffix array and the lcp array of the input
+     * @param parallelism The amount of threads used to evaluate the area function for all lcp intervals
+     */
+    public AreaCompV4(AreaFunction area, SuffixArrayBuilder suffixArrayBuilder, int parallelism) {
         Objects.requireNonNull(area);
+        Objects.requireNonNull(suffixArrayBuilder);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive, but is " + parallelism);
+        }
         this.area = area;
+        this.suffixArrayBuilder = suffixArrayBuilder;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
     }
 
     @Override
     public ToUnifiedRuleset compress(String s) {
         Ruleset ruleset = new Ruleset(s);
-        ruleset.compress(area);
+        ruleset.compress(area, suffixArrayBuilder, pool);
+        return ruleset;
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(ByteSequence bytes) {
+        Ruleset ruleset = new Ruleset(bytes);
+        ruleset.compress(area, suffixArrayBuilder, pool);
         return ruleset;
     }
 
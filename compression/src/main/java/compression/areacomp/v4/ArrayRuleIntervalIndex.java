@@ -0,0 +1,358 @@
+package compression.areacomp.v4;
+
+import compression.utils.PredecessorBitSet;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * An index of the intervals of the text which are substituted by rules, which behaves like {@link RuleIntervalIndex}
+ * except in {@link #mark(int, int, int)}: when a new interval is inserted above a nested interval at the same start
+ * index, its first interval at that start index is determined before the insertion, which passes it on to the nested
+ * interval. {@link RuleIntervalIndex} only sets it afterwards, which leaves the nested interval without a first interval,
+ * if its old parent starts at another index.
+ * <p>
+ * Instead of one object per interval, the intervals are stored in parallel int arrays and referenced by their index in
+ * these arrays, which is called the handle of the interval. The arrays grow as intervals are added, so marking an
+ * occurrence does not allocate any objects, and following the parent pointers only reads ints which lie close to each other.
+ * The deepest interval at each start index is stored in an int array with one entry per character of the text,
+ * and the start indices which have intervals are kept in a {@link PredecessorBitSet}.
+ */
+public class ArrayRuleIntervalIndex {
+
+    /**
+     * The handle, which represents the absence of an interval
+     */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int len;
+
+    /**
+     * The start indices at which there are intervals
+     */
+    private final PredecessorBitSet startIndices;
+
+    /**
+     * The deepest nested interval starting at each index, or {@link #NONE}
+     */
+    private final int[] deepestAtStartIndex;
+
+    /**
+     * The id of the rule each interval is factorized by
+     */
+    private int[] ruleIds;
+
+    /**
+     * Inclusive start index of each interval
+     */
+    private int[] starts;
+
+    /**
+     * Inclusive end index of each interval
+     */
+    private int[] ends;
+
+    /**
+     * The interval in which each interval is nested in, or {@link #NONE}
+     */
+    private int[] parents;
+
+    /**
+     * The least nested interval that starts at the same index as each interval
+     */
+    private int[] firstsAtStartIndex;
+
+    /**
+     * The next most deeply nested interval that starts at the same index as each interval, or {@link #NONE}
+     */
+    private int[] nextsAtStartIndex;
+
+    /**
+     * The amount of intervals
+     */
+    private int size;
+
+    /**
+     * Creates a new index structure
+     * @param topLevelRuleId The id of the top-level rule
+     * @param len The length of the input text
+     */
+    ArrayRuleIntervalIndex(int topLevelRuleId, int len) {
+        this.len = len;
+        this.startIndices = new PredecessorBitSet(len);
+        this.deepestAtStartIndex = new int[len];
+        Arrays.fill(deepestAtStartIndex, NONE);
+
+        this.ruleIds = new int[INITIAL_CAPACITY];
+        this.starts = new int[INITIAL_CAPACITY];
+        this.ends = new int[INITIAL_CAPACITY];
+        this.parents = new int[INITIAL_CAPACITY];
+        this.firstsAtStartIndex = new int[INITIAL_CAPACITY];
+        this.nextsAtStartIndex = new int[INITIAL_CAPACITY];
+
+        final int interval = newInterval(topLevelRuleId, 0, len - 1);
+        firstsAtStartIndex[interval] = interval;
+        putDeepest(0, interval);
+    }
+
+    /**
+     * Creates a new interval without parent
+     * @return The handle of the interval
+     */
+    private int newInterval(int ruleId, int start, int end) {
+        if (size == ruleIds.length) {
+            final int capacity = size + (size >> 1);
+            ruleIds = Arrays.copyOf(ruleIds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstsAtStartIndex = Arrays.copyOf(firstsAtStartIndex, capacity);
+            nextsAtStartIndex = Arrays.copyOf(nextsAtStartIndex, capacity);
+        }
+        final int interval = size++;
+        ruleIds[interval] = ruleId;
+        starts[interval] = start;
+        ends[interval] = end;
+        parents[interval] = NONE;
+        firstsAtStartIndex[interval] = NONE;
+        nextsAtStartIndex[interval] = NONE;
+        return interval;
+    }
+
+    private void putDeepest(int index, int interval) {
+        deepestAtStartIndex[index] = interval;
+        startIndices.add(index);
+    }
+
+    /**
+     * Marks the area with the given rule id
+     * @param ruleId The rule id
+     * @param start inclusive
+     * @param end inclusive
+     */
+    public void mark(int ruleId, int start, int end) {
+        checkInterval(start, end);
+        int current = intervalAtStartIndex(start);
+        final int interval = newInterval(ruleId, start, end);
+
+        // If there was no interval at that index before
+        if (current == NONE) {
+            final int parent = intervalContaining(start, end);
+            insertParent(interval, parent);
+            firstsAtStartIndex[interval] = interval;
+            putDeepest(start, interval);
+            // If this new interval is the new deepest nested interval
+        } else if (contains(current, interval)) {
+            insertParent(interval, current);
+            firstsAtStartIndex[interval] = firstsAtStartIndex[current];
+            // Since current is now the new deepest interval, it replaces the previous deepest interval
+            putDeepest(start, interval);
+        } else {
+            // Whether the new Interval will be the least deeply nested at this start index
+            final boolean isNewFirst = contains(interval, firstsAtStartIndex[current]);
+            while (true) {
+                if (isNewFirst) firstsAtStartIndex[current] = interval;
+                // If there are no more less-deeply nested intervals at this start index, break
+                final int parent = parents[current];
+                if (parent == NONE || starts[parent] != start || contains(parent, interval)) {
+                    break;
+                }
+
+                current = parent;
+            }
+
+            // The first interval has to be known before the insertion, which passes it on to current.
+            // RuleIntervalIndex only sets it afterwards, which leaves current without a first interval if the parent starts elsewhere
+            final int parent = parents[current];
+            firstsAtStartIndex[interval] = parent != NONE && starts[parent] == start ? firstsAtStartIndex[parent] : interval;
+            insertParent(current, interval);
+        }
+
+        for (int index = startIndices.higher(start); index != -1 && index <= end; index = startIndices.higher(index)) {
+            final int first = firstsAtStartIndex[deepestAtStartIndex[index]];
+            if (contains(interval, first) && parents[first] == parents[interval]) {
+                insertParent(first, interval);
+            }
+        }
+    }
+
+    /**
+     * Inserts an interval between an interval and its parent
+     * @param interval The interval, which becomes the child of the new parent
+     * @param newParent The new parent, whose parent becomes the old parent of the interval
+     */
+    private void insertParent(int interval, int newParent) {
+        final int parent = parents[interval];
+        if (parent != NONE) {
+            parents[newParent] = parent;
+            if (starts[parent] == starts[newParent]) {
+                nextsAtStartIndex[parent] = newParent;
+                firstsAtStartIndex[newParent] = firstsAtStartIndex[parent];
+            }
+        }
+        parents[interval] = newParent;
+        if (starts[newParent] == starts[interval]) {
+            nextsAtStartIndex[newParent] = interval;
+            firstsAtStartIndex[interval] = firstsAtStartIndex[newParent];
+        }
+    }
+
+    /**
+     * Returns true, if the other interval is contained in the bounds of the first one
+     * @param interval The handle of the containing interval
+     * @param other The handle of the contained interval
+     * @return true, if the other interval is contained in the bounds of this one, false if other is {@link #NONE} or the other interval is not contained in the first one
+     */
+    private boolean contains(int interval, int other) {
+        return other != NONE && starts[interval] <= starts[other] && ends[other] <= ends[interval];
+    }
+
+    /**
+     * Get the deepest nested interval that contains the given interval
+     * @param from The inclusive start index of the interval to check for
+     * @param to The inclusive end index of the interval to check for
+     * @return Return the handle of the deepest nested interval that contains the interval [from, to] if there is such an interval. {@link #NONE} otherwise
+     */
+    public int intervalContaining(int from, int to) {
+        checkInterval(from, to);
+        final int floor = startIndices.floor(from);
+        int current = floor == -1 ? NONE : deepestAtStartIndex[floor];
+        while (current != NONE) {
+            // If an interval that contains index has been found, return
+            if (starts[current] <= from && to <= ends[current]) {
+                return current;
+            }
+
+            final int first = firstsAtStartIndex[current];
+            if (starts[first] <= from && to <= ends[first]) {
+                current = parents[current];
+            } else {
+                current = first;
+                if (parents[current] != NONE) {
+                    current = parents[current];
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the deepest nested interval that contains the given index
+     * @param index The index to search for
+     * @return The handle of the deepest nested interval which contains the index
+     */
+    public int intervalContaining(int index) {
+        return intervalContaining(index, index);
+    }
+
+    /**
+     * Gets the most deeply nested interval that starts at this index
+     * @param index The index to search for
+     * @return The handle of the interval if such exists, {@link #NONE} otherwise
+     */
+    public int intervalAtStartIndex(int index) {
+        checkIndex(index);
+        return deepestAtStartIndex[index];
+    }
+
+    /**
+     * Gets the id of the rule an interval is factorized by
+     * @param interval The handle of the interval
+     * @return The rule id
+     */
+    public int ruleId(int interval) {
+        return ruleIds[interval];
+    }
+
+    /**
+     * Gets the start of an interval
+     * @param interval The handle of the interval
+     * @return The inclusive start index
+     */
+    public int start(int interval) {
+        return starts[interval];
+    }
+
+    /**
+     * Gets the end of an interval
+     * @param interval The handle of the interval
+     * @return The inclusive end index
+     */
+    public int end(int interval) {
+        return ends[interval];
+    }
+
+    /**
+     * Gets the interval an interval is nested in
+     * @param interval The handle of the interval
+     * @return The handle of the parent interval, or {@link #NONE} if there is no parent
+     */
+    public int parent(int interval) {
+        return parents[interval];
+    }
+
+    /**
+     * Gets the least deeply nested interval that starts at the same index as an interval
+     * @param interval The handle of the interval
+     * @return The handle of the least deeply nested interval
+     */
+    public int firstAtStartIndex(int interval) {
+        return firstsAtStartIndex[interval];
+    }
+
+    /**
+     * Gets the next more deeply nested interval that starts at the same index as an interval.
+     * Starting at {@link #firstAtStartIndex(int)}, all intervals at a start index can be visited in order of their
+     * nesting by following this method, until it returns {@link #NONE} or an interval with a different start index
+     * @param interval The handle of the interval
+     * @return The handle of the next interval, or {@link #NONE}
+     */
+    public int nextAtStartIndex(int interval) {
+        return nextsAtStartIndex[interval];
+    }
+
+    /**
+     * Gets the amount of intervals in this index, including the interval of the top-level rule
+     * @return The amount of intervals
+     */
+    public int intervalCount() {
+        return size;
+    }
+
+    public int length() {
+        return len;
+    }
+
+    @Override
+    public String toString() {
+        final var result = new StringJoiner(", ");
+        for (int index = startIndices.ceiling(0); index != -1; index = startIndices.higher(index)) {
+            final var sj = new StringJoiner(", ", "%d: [".formatted(index), "]");
+            for (int interval = firstsAtStartIndex[deepestAtStartIndex[index]]; interval != NONE && starts[interval] == index; interval = nextsAtStartIndex[interval]) {
+                sj.add("%d: %d".formatted(ruleIds[interval], ends[interval]));
+            }
+            result.add(sj.toString());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Check whether [from, to] make a legal interval that is in range of this data structure. Throws an Exception, if this
+     * range is illegal
+     * @param from The inclusive start index of the interval
+     * @param to The inclusive to index of the interval
+     */
+    private void checkInterval(int from, int to) {
+        if(from < 0) throw new IndexOutOfBoundsException("from = " + from);
+        if(to >= len) throw new IndexOutOfBoundsException("to = " + to);
+        if(to < from) throw new IllegalArgumentException("to(%d) < from(%d)".formatted(to, from));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index '" + index + "' out of range for length " + length());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package compression.areacomp.v4;
+
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.GrammarListener;
+import compression.unified.interfaces.UnifiedSymbol;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenCustomHashMap;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The rules of the last chunks compressed by a {@link StreamingAreaComp}. Every rule of a chunk's grammar is assigned
+ * a global id, which is looked up by the rule's right side, so that a rule which a recent chunk has used already
+ * keeps its id and is not passed to the listener again.
+ * <p>
+ * A rule is removed, once it has not been used by any of the last {@link #retention} chunks. The unused rules are
+ * removed after every {@link #retention} chunks, so the dictionary holds at most the rules of the last 2 * retention
+ * chunks, and its memory is bounded by the size of their grammars instead of growing with the length of the input.
+ * A removed rule, which a later chunk creates again, is passed to the listener again with a new id.
+ * The chunks are still compressed independently of the dictionary, which only shares rules which a chunk creates
+ * on its own.
+ */
+final class RuleDictionary {
+
+    /**
+     * The value of a right side, which is not in {@link #entries}
+     */
+    private static final long ABSENT = -1;
+
+    /**
+     * Maps the right side of every rule, in the symbol encoding of {@link GrammarListener}, to its id in the upper
+     * and the number of the last chunk which has used it in the lower 32 bits
+     */
+    private final Object2LongOpenCustomHashMap<int[]> entries = new Object2LongOpenCustomHashMap<>(IntArrays.HASH_STRATEGY);
+
+    private final GrammarListener listener;
+
+    /**
+     * The amount of chunks, which have to pass without using a rule, before it is removed
+     */
+    private final int retention;
+
+    /**
+     * The number of the current chunk, starting at 0
+     */
+    private int currentChunk;
+
+    /**
+     * The id of the next new rule. The id 0 is the start rule
+     */
+    private int nextId = 1;
+
+    /**
+     * Creates a new empty dictionary
+     * @param listener The listener which receives the grammar
+     * @param retention The amount of chunks, which have to pass without using a rule, before it is removed. At least 1
+     */
+    RuleDictionary(GrammarListener listener, int retention) {
+        this.listener = listener;
+        this.retention = retention;
+        entries.defaultReturnValue(ABSENT);
+    }
+
+    /**
+     * Gets the amount of rules in the dictionary
+     * @return The amount of rules
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Passes the new rules of a chunk's grammar and the chunk's top level symbols to the listener
+     * @param chunk The grammar of the chunk
+     * @throws IOException If the listener fails
+     */
+    void add(UnifiedRuleset chunk) throws IOException {
+        // The global id of every rule of the chunk which has been translated already
+        final var globalIds = new Int2IntOpenHashMap();
+        globalIds.defaultReturnValue(-1);
+
+        final int[] topLevel = translate(chunk, chunk.rules().get(chunk.getTopLevelRuleId()), globalIds);
+        listener.topLevel(topLevel, topLevel.length);
+
+        currentChunk++;
+        if (currentChunk % retention == 0) {
+            // Remove the rules which none of the last chunks has used
+            final int oldest = currentChunk - retention;
+            entries.object2LongEntrySet().removeIf(entry -> (int) entry.getLongValue() < oldest);
+        }
+    }
+
+    /**
+     * Translates the symbols of a rule of a chunk to global symbols. Nested rules are translated first,
+     * so that the listener receives every rule before the rules which refer to it
+     */
+    private int[] translate(UnifiedRuleset chunk, List<UnifiedSymbol> symbols, Int2IntOpenHashMap globalIds) throws IOException {
+        final int[] result = new int[symbols.size()];
+        for (int i = 0; i < result.length; i++) {
+            final var symbol = symbols.get(i);
+            if (symbol instanceof UnifiedNonTerminal nonTerminal) {
+                result[i] = globalId(chunk, nonTerminal.id(), globalIds);
+            } else {
+                result[i] = ~((UnifiedTerminal) symbol).value();
+            }
+        }
+        return result;
+    }
+
+    private int globalId(UnifiedRuleset chunk, int rule, Int2IntOpenHashMap globalIds) throws IOException {
+        int id = globalIds.get(rule);
+        if (id != -1) {
+            return id;
+        }
+
+        final int[] symbols = translate(chunk, chunk.rules().get(rule), globalIds);
+        final long entry = entries.getLong(symbols);
+        if (entry == ABSENT) {
+            id = nextId++;
+            listener.rule(id, symbols, symbols.length);
+        } else {
+            id = (int) (entry >>> 32);
+        }
+        entries.put(symbols, (long) id << 32 | currentChunk);
+        globalIds.put(rule, id);
+        return id;
+    }
+}
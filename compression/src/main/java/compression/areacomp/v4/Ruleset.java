@@ -1,7 +1,8 @@
 package compression.areacomp.v4;
 
 import compression.areacomp.AreaFunction;
-import compression.areacomp.v4.RuleIntervalIndex.RuleInterval;
+import compression.areacomp.AreaQueue;
+import compression.areacomp.AreaSink;
 import compression.unified.UnifiedNonTerminal;
 import compression.unified.UnifiedRuleset;
 import compression.unified.UnifiedTerminal;
@@ -9,25 +10,51 @@ import compression.unified.interfaces.ToUnifiedRuleset;
 import compression.unified.interfaces.UnifiedSymbol;
 import compression.utils.AugmentedString;
 import compression.utils.Benchmark;
+import compression.utils.ByteSequence;
+import compression.utils.SuffixArrayBuilder;
 import it.unimi.dsi.fastutil.chars.Char2ObjectMap;
 import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 @SuppressWarnings("Duplicates")
 class Ruleset implements ToUnifiedRuleset {
 
     public static final String ALGORITHM_NAME = AreaCompV4.class.getSimpleName();
 
+    private static final Benchmark.Timer CONSTRUCTION_TIMER = Benchmark.timer(ALGORITHM_NAME, "construction");
+    private static final Benchmark.Timer TOTAL_TIMER = Benchmark.timer(ALGORITHM_NAME, "total time");
+    private static final Benchmark.Timer SUFFIX_ARRAY_TIMER = Benchmark.timer(ALGORITHM_NAME, "suffix array");
+    private static final Benchmark.Timer QUEUE_TIMER = Benchmark.timer(ALGORITHM_NAME, "queue");
+    private static final Benchmark.Timer POSITIONS_TIMER = Benchmark.timer(ALGORITHM_NAME, "positions");
+    private static final Benchmark.Timer IN_BOUNDARY_TIMER = Benchmark.timer(ALGORITHM_NAME, "in boundary");
+    private static final Benchmark.Timer MULTIPLE_OCCURRENCES_TIMER = Benchmark.timer(ALGORITHM_NAME, "multiple occurrences");
+    private static final Benchmark.Timer FACTORIZE_TIMER = Benchmark.timer(ALGORITHM_NAME, "factorize");
+    private static final Benchmark.Timer MARK_RANGE_TIMER = Benchmark.timer(ALGORITHM_NAME, "markRange");
+    private static final Benchmark.Timer CROSSES_BOUNDARY_TIMER = Benchmark.timer(ALGORITHM_NAME, "crossesBoundary");
+
+    /**
+     * The string for which this ruleset is built. This is a {@link ByteSequence} if the ruleset was created from bytes
+     */
+    private final CharSequence underlying;
+
+    /**
+     * The amount of chunks per thread into which the lcp intervals are split when the areas are evaluated in parallel
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
     /**
-     * The string for which this ruleset is built
+     * The minimum amount of lcp intervals in a chunk when the areas are evaluated in parallel
      */
-    private final String underlying;
+    private static final int MIN_CHUNK_SIZE = 1 << 12;
 
-    private final RuleIntervalIndex intervalIndex;
+    private final ArrayRuleIntervalIndex intervalIndex;
 
     /**
      * Amount of rules in the set. This is used for getting new rule IDs in {@link #nextRuleID()}
@@ -40,10 +67,23 @@ class Ruleset implements ToUnifiedRuleset {
      * @param s The string for which the ruleset should be created
      */
     public Ruleset(String s) {
-        Benchmark.startTimer(ALGORITHM_NAME, "construction");
-        intervalIndex = new RuleIntervalIndex(0, s.length());
+        this((CharSequence) s);
+    }
+
+    /**
+     * Creates a new ruleset to compress bytes with. The bytes are kept as they are and not converted to a string.
+     *
+     * @param bytes The bytes for which the ruleset should be created
+     */
+    public Ruleset(ByteSequence bytes) {
+        this((CharSequence) bytes);
+    }
+
+    private Ruleset(CharSequence s) {
+        final long start = CONSTRUCTION_TIMER.start();
+        intervalIndex = new ArrayRuleIntervalIndex(0, s.length());
         underlying = s;
-        Benchmark.stopTimer(ALGORITHM_NAME, "construction");
+        CONSTRUCTION_TIMER.stop(start);
         numRules = 1;
     }
 
@@ -54,41 +94,125 @@ class Ruleset implements ToUnifiedRuleset {
      * @param fun The area function used to prioritise intervals in the lcp array
      */
     public void compress(AreaFunction fun) {
-        Benchmark.startTimer(ALGORITHM_NAME, "total time");
-
-        Benchmark.startTimer(ALGORITHM_NAME, "suffix array");
-        final var augS = new AugmentedString(underlying);
-        Benchmark.stopTimer(ALGORITHM_NAME, "suffix array");
-
-        Benchmark.startTimer(ALGORITHM_NAME, "queue");
-        // Create a Priority Queue which holds possible intervals in the LCP array
-        // The priority value is calculated through the given area function.
-        // This function should return a high value for promising intervals in the LCP array.
-        var queue = new PriorityQueue<AreaFunction.AreaData>(
-                Comparator.comparingInt(
-                        areaData -> -areaData.area
-                )
-        );
-
-        for (var interval : augS.getLCPIntervals(2)) {
-            final var data = fun.area(augS, interval.start() + 1, interval.end());
-            if(data.area > 0)
-                queue.add(data);
+        compress(fun, SuffixArrayBuilder.defaultBuilder());
+    }
+
+    /**
+     * Compresses the ruleset using an area function.
+     * The area function determines how the intervals in the priority queue are prioritised.
+     *
+     * @param fun The area function used to prioritise intervals in the lcp array
+     * @param builder The builder used to construct the suffix array and the lcp array of {@link #underlying}
+     */
+    public void compress(AreaFunction fun, SuffixArrayBuilder builder) {
+        compress(fun, builder, null);
+    }
+
+    /**
+     * Compresses the ruleset using an area function.
+     * The area function determines how the intervals in the priority queue are prioritised.
+     *
+     * @param fun The area function used to prioritise intervals in the lcp array. It is called from multiple threads if a pool is given
+     * @param builder The builder used to construct the suffix array and the lcp array of {@link #underlying}
+     * @param pool The pool in which the area function is evaluated, or null to evaluate it on the calling thread
+     */
+    public void compress(AreaFunction fun, SuffixArrayBuilder builder, ForkJoinPool pool) {
+        final long totalStart = TOTAL_TIMER.start();
+
+        long start = SUFFIX_ARRAY_TIMER.start();
+        final var augS = underlying instanceof ByteSequence bytes
+                ? new AugmentedString(bytes, builder)
+                : new AugmentedString(underlying, builder);
+        SUFFIX_ARRAY_TIMER.stop(start);
+
+        start = QUEUE_TIMER.start();
+        final var queue = pool != null ? buildQueue(augS, fun, pool) : buildQueue(augS, fun);
+        QUEUE_TIMER.stop(start);
+
+        processQueue(augS, queue);
+        TOTAL_TIMER.stop(totalStart);
+    }
+
+    /**
+     * Creates the priority queue which holds the possible intervals in the LCP array.
+     * The priority value is calculated through the given area function.
+     * This function should return a high value for promising intervals in the LCP array.
+     *
+     * @param augS The augmented string of {@link #underlying}
+     * @param fun The area function used to prioritise intervals in the lcp array
+     * @return The queue containing all intervals with a positive area
+     */
+    AreaQueue buildQueue(AugmentedString augS, AreaFunction fun) {
+        // Count the intervals first, so that the queue never has to grow
+        final int[] intervalCount = new int[1];
+        augS.forEachLCPInterval(2, (low, high, lValue) -> intervalCount[0]++);
+
+        // Score the intervals while they are enumerated, so they never have to be stored
+        final var queue = new AreaQueue(intervalCount[0]);
+        augS.forEachLCPInterval(2, (low, high, lValue) -> fun.addArea(augS, low + 1, high, queue));
+        return queue;
+    }
+
+    /**
+     * Creates the same priority queue as {@link #buildQueue(AugmentedString, AreaFunction)}, but evaluates the area
+     * function on multiple threads.
+     * The bounds of the intervals are written into the rows of the queue in the order in which they are enumerated. The rows
+     * are then split into consecutive chunks, each of which is evaluated by a task in the pool into a
+     * {@link AreaQueue#segment(int, int) segment} of its own rows. As the area function adds at most one entry per interval,
+     * an entry never overwrites the bounds of an interval which has not been evaluated yet, so no further memory is needed.
+     * Finally, the heap is built from the segments in parallel. The rows keep the order of enumeration, which is the order
+     * in which entries with equal areas are polled, so the resulting grammar is the same as with the sequential version.
+     *
+     * @param augS The augmented string of {@link #underlying}
+     * @param fun The area function used to prioritise intervals in the lcp array. It must be safe to call it from multiple threads
+     * @param pool The pool in which the area function is evaluated
+     * @return The queue containing all intervals with a positive area
+     */
+    AreaQueue buildQueue(AugmentedString augS, AreaFunction fun, ForkJoinPool pool) {
+        final int[] intervalCount = new int[1];
+        augS.forEachLCPInterval(2, (low, high, lValue) -> intervalCount[0]++);
+
+        final var queue = new AreaQueue(intervalCount[0]);
+        final var bounds = queue.segment(0, intervalCount[0]);
+        augS.forEachLCPInterval(2, (low, high, lValue) -> bounds.add(low, high, 0, 0));
+
+        final int chunkCount = Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, intervalCount[0] / MIN_CHUNK_SIZE));
+        final int chunkSize = (intervalCount[0] + chunkCount - 1) / chunkCount;
+        final var chunks = new AreaSink[chunkCount];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            chunks[chunk] = queue.segment(Math.min(intervalCount[0], chunk * chunkSize), Math.min(intervalCount[0], (chunk + 1) * chunkSize));
         }
 
-        Benchmark.stopTimer(ALGORITHM_NAME, "queue");
+        pool.submit(() -> IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            final int end = Math.min(intervalCount[0], (chunk + 1) * chunkSize);
+            for (int row = chunk * chunkSize; row < end; row++) {
+                fun.addArea(augS, queue.low(row) + 1, queue.high(row), chunks[chunk]);
+            }
+        })).join();
+
+        queue.heapify(chunks, pool);
+        return queue;
+    }
+
+    /**
+     * Polls the intervals from the queue in order of their priority and substitutes all valid occurrences of the
+     * corresponding patterns with new rules.
+     *
+     * @param augS The augmented string of {@link #underlying}
+     * @param queue The queue created by {@link #buildQueue(AugmentedString, AreaFunction)}. It is empty after this method returns
+     */
+    void processQueue(AugmentedString augS, AreaQueue queue) {
         while (!queue.isEmpty()) {
-            Benchmark.startTimer(ALGORITHM_NAME, "positions");
+            final long positionsStart = POSITIONS_TIMER.start();
             // Poll the best interval
-            var areaData = queue.remove();
+            final int entry = queue.poll();
 
             // The positions at which the pattern can be found
-            int[] positions = Arrays.stream(augS.getSuffixArray(), areaData.low - 1, areaData.high + 1)
-                    .toArray();
+            int[] positions = Arrays.copyOfRange(augS.getSuffixArray(), queue.low(entry) - 1, queue.high(entry) + 1);
 
             // Get the length of the longest common prefix in this range of the lcp array
             // This will be the length of the pattern that is to be replaced.
-            int len = areaData.len;
+            int len = queue.len(entry);
 
             // This means there is no repeated subsequence of 2 or more characters. In this case, abort
             if (len <= 1) {
@@ -97,28 +221,27 @@ class Ruleset implements ToUnifiedRuleset {
 
             Arrays.sort(positions);
 
-            Benchmark.startTimer(ALGORITHM_NAME, "in boundary");
+            long start = IN_BOUNDARY_TIMER.start();
             int positionCount = cleanPositions(positions, len);
+            IN_BOUNDARY_TIMER.stop(start);
             if (positionCount <= 1) {
-                Benchmark.stopTimer(ALGORITHM_NAME, "positions");
-                Benchmark.stopTimer(ALGORITHM_NAME, "in boundary");
+                POSITIONS_TIMER.stop(positionsStart);
                 continue;
             }
 
-            Benchmark.startTimer(ALGORITHM_NAME, "multiple occurrences");
+            start = MULTIPLE_OCCURRENCES_TIMER.start();
             var multipleOccurrences = differingOccurences(positions);
-            Benchmark.stopTimer(ALGORITHM_NAME, "multiple occurrences");
+            MULTIPLE_OCCURRENCES_TIMER.stop(start);
 
-            Benchmark.stopTimer(ALGORITHM_NAME, "positions");
+            POSITIONS_TIMER.stop(positionsStart);
 
             if(!multipleOccurrences) {
                 continue;
             }
-            Benchmark.startTimer(ALGORITHM_NAME, "factorize");
+            start = FACTORIZE_TIMER.start();
             substitute(len, positions);
-            Benchmark.stopTimer(ALGORITHM_NAME, "factorize");
+            FACTORIZE_TIMER.stop(start);
         }
-        Benchmark.stopTimer(ALGORITHM_NAME, "total time");
     }
 
 
@@ -141,9 +264,9 @@ class Ruleset implements ToUnifiedRuleset {
         for (int position : positions) {
             if(position == -1) continue;
 
-            Benchmark.startTimer(ALGORITHM_NAME, "markRange");
+            final long start = MARK_RANGE_TIMER.start();
             intervalIndex.mark(nextId, position, position + len - 1);
-            Benchmark.stopTimer(ALGORITHM_NAME, "markRange");
+            MARK_RANGE_TIMER.stop(start);
         }
     }
 
@@ -203,9 +326,9 @@ class Ruleset implements ToUnifiedRuleset {
         for (var pos : positions) {
             if(pos == -1) continue;
 
-            final var ruleInterval = intervalIndex.intervalContaining(pos);
-            final var ruleId = ruleInterval.ruleId();
-            final var startIndex = ruleInterval.start();
+            final int ruleInterval = intervalIndex.intervalContaining(pos);
+            final int ruleId = intervalIndex.ruleId(ruleInterval);
+            final int startIndex = intervalIndex.start(ruleInterval);
 
             if(firstRuleId == -1){
                 firstRuleId = ruleId;
@@ -249,33 +372,35 @@ class Ruleset implements ToUnifiedRuleset {
      * @return true, if the interval starts in the same rule range as it started. false otherwise
      */
     public boolean substitutionAllowed(int from, int to) {
-        Benchmark.startTimer(ALGORITHM_NAME, "crossesBoundary");
-        RuleInterval fromInterval = intervalIndex.intervalContaining(from);
+        final long start = CROSSES_BOUNDARY_TIMER.start();
+        int fromInterval = intervalIndex.intervalContaining(from);
 
         // If the start index is the start of this interval, it might imply that this is a non-terminal in a less-deeply nested rule.
         // In that case, we iterate upwards by using the parent pointers in order to find the first interval, which contains the end index also.
         // Mind, that only intervals that start at the same index, and the parent of the last such interval can be considered here.
         // This is because while the start index is equal to the current interval's start position, that means that the start index
         // describes the position of a non-terminal in its parent interval.
-        while (from == fromInterval.start() && to > fromInterval.end() && fromInterval.hasParent()){
-            fromInterval = fromInterval.parent();
+        while (from == intervalIndex.start(fromInterval) && to > intervalIndex.end(fromInterval) && intervalIndex.parent(fromInterval) != ArrayRuleIntervalIndex.NONE){
+            fromInterval = intervalIndex.parent(fromInterval);
         }
 
 
         // If there is no such interval, that would also contain "to", the substitution can't be allowed
-        if(to > fromInterval.end()) {
+        if(to > intervalIndex.end(fromInterval)) {
+            CROSSES_BOUNDARY_TIMER.stop(start);
             return false;
         }
 
-        RuleInterval toInterval = intervalIndex.intervalContaining(to);
+        int toInterval = intervalIndex.intervalContaining(to);
 
-        while (!(toInterval.contains(fromInterval)) && to == toInterval.end() && toInterval.hasParent()) {
-            toInterval = toInterval.parent();
+        while (!(intervalIndex.start(toInterval) <= intervalIndex.start(fromInterval) && intervalIndex.end(fromInterval) <= intervalIndex.end(toInterval))
+                && to == intervalIndex.end(toInterval) && intervalIndex.parent(toInterval) != ArrayRuleIntervalIndex.NONE) {
+            toInterval = intervalIndex.parent(toInterval);
         }
 
 
-        boolean b = fromInterval.equals(toInterval);
-        Benchmark.stopTimer(ALGORITHM_NAME, "crossesBoundary");
+        boolean b = fromInterval == toInterval;
+        CROSSES_BOUNDARY_TIMER.stop(start);
         return b;
     }
 
@@ -288,7 +413,7 @@ class Ruleset implements ToUnifiedRuleset {
 
         // The Stack which contains all nested rule intervals at the current index.
         // The most deeply nested interval is at the top of the stack. The second deepest interval is the second element etc.
-        Deque<RuleInterval> nestingStack = new ArrayDeque<>();
+        IntArrayList nestingStack = new IntArrayList();
 
         // The Stack which contains the tentative symbol list of the rule which corresponds to the interval at the same
         // position in nestingStack.
@@ -303,8 +428,8 @@ class Ruleset implements ToUnifiedRuleset {
         for (int i = 0; i < underlying.length(); i++) {
             // If the index moved past the current rule interval, remove all intervals which ended and add the resulting rules
             // to the ruleset
-            while (!nestingStack.isEmpty() && i > nestingStack.peek().end()){
-                final int id = nestingStack.pop().ruleId();
+            while (!nestingStack.isEmpty() && i > intervalIndex.end(nestingStack.topInt())){
+                final int id = intervalIndex.ruleId(nestingStack.popInt());
                 final List<UnifiedSymbol> symbols = symbolStack.pop();
                 ruleset.putRule(id, symbols);
 
@@ -314,12 +439,12 @@ class Ruleset implements ToUnifiedRuleset {
             }
 
             // If new rules are starting at this index, add them to the stack to designate them as more deeply nested rule
-            RuleInterval intervalAt = intervalIndex.intervalAtStartIndex(i);
+            final int intervalAt = intervalIndex.intervalAtStartIndex(i);
 
-            if(intervalAt != null) {
-                intervalAt = intervalAt.firstAtStartIndex();
-                for (Iterator<RuleInterval> it = intervalAt.deeperIterator(); it.hasNext(); ) {
-                    RuleInterval interval = it.next();
+            if(intervalAt != ArrayRuleIntervalIndex.NONE) {
+                for (int interval = intervalIndex.firstAtStartIndex(intervalAt);
+                     interval != ArrayRuleIntervalIndex.NONE && intervalIndex.start(interval) == i;
+                     interval = intervalIndex.nextAtStartIndex(interval)) {
                     nestingStack.push(interval);
                     symbolStack.push(new ArrayList<>());
                 }
@@ -328,11 +453,11 @@ class Ruleset implements ToUnifiedRuleset {
 
             // Add the current char to the most deeply nested rule's stack
             char c = underlying.charAt(i);
-            symbolStack.peek().add(terminals.computeIfAbsent(c, _c -> new UnifiedTerminal(c)));
+            symbolStack.peek().add(terminals.computeIfAbsent(c, _c -> UnifiedTerminal.of(c)));
         }
 
         while (!nestingStack.isEmpty()){
-            final int id = nestingStack.pop().ruleId();
+            final int id = intervalIndex.ruleId(nestingStack.popInt());
             final List<UnifiedSymbol> symbols = symbolStack.pop();
             ruleset.putRule(id, symbols);
 
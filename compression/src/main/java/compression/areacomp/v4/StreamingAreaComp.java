@@ -0,0 +1,309 @@
+package compression.areacomp.v4;
+
+import compression.areacomp.AreaFunction;
+import compression.unified.GrammarCollector;
+import compression.unified.interfaces.GrammarListener;
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedCompressor;
+import compression.utils.ByteSequence;
+import compression.utils.SuffixArrayBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * AreaComp on input which arrives continuously. The input is split into chunks of a fixed size, each of which is
+ * compressed on its own like by {@link AreaCompV4}, so only one chunk is held in memory, and the grammar of a chunk is
+ * available as soon as the chunk is complete instead of at the end of the input.
+ * <p>
+ * The rules of the last chunks are kept in a {@link RuleDictionary}. A rule which one of the last chunks has used already
+ * is referred to by its existing id instead of being created again, so patterns which occur in several chunks share their
+ * rules. A rule is removed from the dictionary once it has not been used for a given amount of chunks, so the memory of the
+ * dictionary is bounded by the grammars of twice as many chunks. Occurrences of a pattern are still only found within a
+ * chunk, so the grammar is larger than the one of {@link AreaCompV4} for the whole input.
+ * <p>
+ * Use {@link #open(GrammarListener)} to compress a stream of bytes, whose grammar is passed to a listener chunk by chunk.
+ * The rules are passed in the order of their ids, which start at 1.
+ */
+public class StreamingAreaComp implements UnifiedCompressor {
+
+    /**
+     * The system property, which sets the chunk size in bytes of instances created without an explicit chunk size.
+     * By default, chunks have {@link #DEFAULT_CHUNK_SIZE} bytes
+     */
+    public static final String CHUNK_SIZE_PROPERTY = "compression.areacomp.chunkSize";
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The system property, which sets the amount of chunks, after which a rule that none of them has used is removed
+     * from the dictionary. By default, this is {@link #DEFAULT_RETENTION}
+     */
+    public static final String RETENTION_PROPERTY = "compression.areacomp.retention";
+
+    public static final int DEFAULT_RETENTION = 4;
+
+    /**
+     * The size of the buffer used to read from a {@link ReadableByteChannel}
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The {@link AreaFunction} which this algorithm should use to prioritize intervals in the LCP array
+     */
+    private final AreaFunction area;
+
+    /**
+     * The amount of characters per chunk
+     */
+    private final int chunkSize;
+
+    /**
+     * The amount of chunks, after which a rule that none of them has used is removed from the dictionary
+     */
+    private final int retention;
+
+    /**
+     * The builder used to construct the suffix array and the lcp array of every chunk
+     */
+    private final SuffixArrayBuilder suffixArrayBuilder;
+
+    /**
+     * Creates a new instance with the chunk size given by {@link #CHUNK_SIZE_PROPERTY}
+     * @param area The given {@link AreaFunction}
+     */
+    public StreamingAreaComp(AreaFunction area) {
+        this(area, Integer.getInteger(CHUNK_SIZE_PROPERTY, DEFAULT_CHUNK_SIZE));
+    }
+
+    /**
+     * Creates a new instance with a given chunk size
+     * @param area The given {@link AreaFunction}
+     * @param chunkSize The amount of characters per chunk
+     * @throws IllegalArgumentException If the chunk size is less than 1
+     */
+    public StreamingAreaComp(AreaFunction area, int chunkSize) {
+        this(area, chunkSize, SuffixArrayBuilder.defaultBuilder());
+    }
+
+    /**
+     * Creates a new instance with a given chunk size and {@link SuffixArrayBuilder}, and the retention given by
+     * {@link #RETENTION_PROPERTY}
+     * @param area The given {@link AreaFunction}
+     * @param chunkSize The amount of characters per chunk
+     * @param suffixArrayBuilder The builder used to construct the suffix array and the lcp array of every chunk
+     * @throws IllegalArgumentException If the chunk size is less than 1
+     */
+    public StreamingAreaComp(AreaFunction area, int chunkSize, SuffixArrayBuilder suffixArrayBuilder) {
+        this(area, chunkSize, Integer.getInteger(RETENTION_PROPERTY, DEFAULT_RETENTION), suffixArrayBuilder);
+    }
+
+    /**
+     * Creates a new instance with a given chunk size, retention and {@link SuffixArrayBuilder}
+     * @param area The given {@link AreaFunction}
+     * @param chunkSize The amount of characters per chunk
+     * @param retention The amount of chunks, after which a rule that none of them has used is removed from the dictionary.
+     *                  The dictionary holds at most the rules of twice as many chunks
+     * @param suffixArrayBuilder The builder used to construct the suffix array and the lcp array of every chunk
+     * @throws IllegalArgumentException If the chunk size or the retention is less than 1
+     */
+    public StreamingAreaComp(AreaFunction area, int chunkSize, int retention, SuffixArrayBuilder suffixArrayBuilder) {
+        Objects.requireNonNull(area);
+        Objects.requireNonNull(suffixArrayBuilder);
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1, but was " + chunkSize);
+        }
+        if (retention < 1) {
+            throw new IllegalArgumentException("retention must be at least 1, but was " + retention);
+        }
+        this.area = area;
+        this.chunkSize = chunkSize;
+        this.retention = retention;
+        this.suffixArrayBuilder = suffixArrayBuilder;
+    }
+
+    /**
+     * Opens a stream, whose bytes are compressed chunk by chunk. Every byte is a terminal with the same unsigned value.
+     * @param listener The listener which receives the grammar
+     * @return The stream
+     */
+    public ChunkOutputStream open(GrammarListener listener) {
+        return new ChunkOutputStream(new RuleDictionary(Objects.requireNonNull(listener), retention));
+    }
+
+    /**
+     * Compresses all bytes of a stream. The stream is not closed
+     * @param in The stream
+     * @param listener The listener which receives the grammar
+     * @throws IOException If reading the stream or the listener fails
+     */
+    public void compress(InputStream in, GrammarListener listener) throws IOException {
+        try (var out = open(listener)) {
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * Compresses all bytes of a channel. The channel is not closed
+     * @param channel The channel, which should be in blocking mode
+     * @param listener The listener which receives the grammar
+     * @throws IOException If reading the channel or the listener fails
+     */
+    public void compress(ReadableByteChannel channel, GrammarListener listener) throws IOException {
+        final var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (var out = open(listener)) {
+            while (channel.read(buffer) != -1) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Compresses a chunk and passes its grammar to the dictionary
+     * @param ruleset The ruleset of the chunk
+     * @param dictionary The dictionary of the stream
+     * @throws IOException If the listener fails
+     */
+    private void compress(Ruleset ruleset, RuleDictionary dictionary) throws IOException {
+        ruleset.compress(area, suffixArrayBuilder);
+        dictionary.add(ruleset.toUnified());
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(String s) {
+        final var collector = new GrammarCollector();
+        final var dictionary = new RuleDictionary(collector, retention);
+        try {
+            for (int start = 0; start < s.length(); start += chunkSize) {
+                compress(new Ruleset(s.substring(start, Math.min(s.length(), start + chunkSize))), dictionary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return collector.toUnified();
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(ByteSequence bytes) {
+        final var collector = new GrammarCollector();
+        try (var out = open(collector)) {
+            for (int i = 0; i < bytes.byteLength(); i++) {
+                out.write(bytes.byteAt(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return collector.toUnified();
+    }
+
+    /**
+     * Compresses the content of a file, which is read as a stream instead of being memory-mapped, so files larger than
+     * {@link ByteSequence#MAX_LENGTH} bytes can be compressed as well
+     * @param file The file to compress
+     * @return The grammar
+     * @throws IOException If the file could not be read
+     */
+    @Override
+    public ToUnifiedRuleset compress(Path file) throws IOException {
+        final var collector = new GrammarCollector();
+        try (var channel = Files.newByteChannel(file)) {
+            compress(channel, collector);
+        }
+        return collector.toUnified();
+    }
+
+    @Override
+    public String name() {
+        return StreamingAreaComp.class.getSimpleName() + "/" + area.getClass().getSimpleName();
+    }
+
+    /**
+     * A stream, whose bytes are collected into chunks. A chunk is compressed as soon as it is full, and its grammar
+     * is passed to the listener before the write which filled the chunk returns.
+     * {@link #flush()} compresses the bytes written since the last chunk as a shorter chunk, which bounds the time
+     * until written bytes are part of the grammar, but shorter chunks compress worse.
+     * Closing the stream compresses the remaining bytes.
+     */
+    public final class ChunkOutputStream extends OutputStream {
+
+        private final RuleDictionary dictionary;
+
+        /**
+         * The bytes of the current chunk
+         */
+        private final byte[] buffer = new byte[chunkSize];
+
+        /**
+         * The amount of bytes in {@link #buffer}
+         */
+        private int size;
+
+        private boolean closed;
+
+        private ChunkOutputStream(RuleDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            buffer[size++] = (byte) b;
+            if (size == buffer.length) {
+                compressChunk();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            ensureOpen();
+            while (len > 0) {
+                final int count = Math.min(len, buffer.length - size);
+                System.arraycopy(b, off, buffer, size, count);
+                size += count;
+                off += count;
+                len -= count;
+                if (size == buffer.length) {
+                    compressChunk();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            if (size > 0) {
+                compressChunk();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                flush();
+                closed = true;
+            }
+        }
+
+        private void compressChunk() throws IOException {
+            final var ruleset = new Ruleset(new ByteSequence(Arrays.copyOf(buffer, size)));
+            size = 0;
+            compress(ruleset, dictionary);
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package compression.lz;
+
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedSymbol;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A straight-line program, which is built from an LZ77 factorization as in Rytter's "Application of Lempel-Ziv
+ * factorization to the approximation of grammar-based compression".
+ * Every rule has exactly two symbols, and the heights of the two symbols differ by at most one, so the derivation tree
+ * of every non-terminal is balanced like an AVL tree and has a height of at most 1.44 log n.
+ * <p>
+ * The text is appended factor by factor. A factor, which copies an earlier substring, takes the non-terminals which
+ * cover the substring in the derivation tree of the text so far, and concatenates them. Two non-terminals are concatenated
+ * by descending along the border of the higher one and creating new rules there, like the join of two AVL trees.
+ * Both operations create O(log n) rules, so the grammar has O(z log n) rules for z factors.
+ * A copy which overlaps with itself is periodic, so it is built from the powers of its period by repeated squaring.
+ * Rules with the same right side are only created once.
+ * <p>
+ * Symbols are ints: terminals are their char value, and the non-terminal of the i-th rule is {@link #FIRST_NON_TERMINAL} + i.
+ */
+final class AVLGrammar implements ToUnifiedRuleset {
+
+    /**
+     * The symbol of the non-terminal of the first rule. All smaller symbols are terminals
+     */
+    static final int FIRST_NON_TERMINAL = 1 << 16;
+
+    /**
+     * The symbol of the empty text
+     */
+    static final int EMPTY = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] lefts = new int[INITIAL_CAPACITY];
+
+    private int[] rights = new int[INITIAL_CAPACITY];
+
+    /**
+     * The length of the expansion of every rule
+     */
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    /**
+     * The height of the derivation tree of every rule. Terminals have the height 0
+     */
+    private byte[] heights = new byte[INITIAL_CAPACITY];
+
+    private int ruleCount;
+
+    /**
+     * Maps the right side of every rule, as the left symbol in the upper and the right symbol in the lower half, to its rule
+     */
+    private final Long2IntOpenHashMap ruleIds = new Long2IntOpenHashMap();
+
+    /**
+     * Symbols whose expansions are the text appended so far, in order. Every symbol is at least two lower than the one
+     * before it, so there are only O(log n) symbols. The text is only concatenated into a single root symbol when it is complete,
+     * as the rules on the right border of the root would be replaced by every factor
+     */
+    private int[] spine = new int[INITIAL_CAPACITY];
+
+    private int spineSize;
+
+    /**
+     * The length of the text appended so far
+     */
+    private int textLength;
+
+    AVLGrammar() {
+        ruleIds.defaultReturnValue(-1);
+    }
+
+    /**
+     * Appends a character to the text
+     * @param c The character
+     */
+    void append(char c) {
+        push(c);
+    }
+
+    /**
+     * Appends a copy of a substring of the text to the text. The substring may overlap with the copy itself,
+     * in which case the copy repeats the text from its start index up to the end of the text so far
+     * @param source The start index of the substring
+     * @param length The length of the substring
+     */
+    void appendCopy(int source, int length) {
+        final int available = textLength - source;
+        if (length <= available) {
+            push(substringOfText(source, source + length));
+            return;
+        }
+
+        final int period = substringOfText(source, source + available);
+        push(concat(power(period, length / available), substring(period, 0, length % available)));
+    }
+
+    /**
+     * Appends the expansion of a symbol to the text. Symbols at the end of {@link #spine}, which are not at least two
+     * higher than the symbol, are concatenated with it
+     * @param symbol The symbol
+     */
+    private void push(int symbol) {
+        textLength += length(symbol);
+        while (spineSize > 0 && height(spine[spineSize - 1]) <= height(symbol) + 1) {
+            symbol = concat(spine[--spineSize], symbol);
+        }
+        if (spineSize == spine.length) {
+            spine = Arrays.copyOf(spine, spine.length + (spine.length >> 1));
+        }
+        spine[spineSize++] = symbol;
+    }
+
+    /**
+     * Creates a symbol which derives a substring of the text appended so far
+     * @param from The start index of the substring (inclusive)
+     * @param to The end index of the substring (exclusive)
+     * @return The symbol deriving the substring
+     */
+    private int substringOfText(int from, int to) {
+        int result = EMPTY;
+        int offset = 0;
+        for (int i = 0; i < spineSize && offset < to; i++) {
+            final int length = length(spine[i]);
+            if (offset + length > from) {
+                result = concat(result, substring(spine[i], Math.max(0, from - offset), Math.min(length, to - offset)));
+            }
+            offset += length;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a symbol which derives the expansion of a symbol repeated a number of times, by repeated squaring
+     * @param symbol The symbol
+     * @param exponent The amount of repetitions
+     * @return The symbol deriving the repetitions
+     */
+    private int power(int symbol, int exponent) {
+        int result = EMPTY;
+        int square = symbol;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                // All powers of the same symbol commute, so the order of the concatenation does not matter
+                result = concat(result, square);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                square = concat(square, square);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the symbol which derives the whole text. This concatenates the symbols of the {@link #spine}
+     * @return The symbol, or {@link #EMPTY} if the text is empty
+     */
+    int root() {
+        int root = EMPTY;
+        for (int i = spineSize - 1; i >= 0; i--) {
+            root = concat(spine[i], root);
+        }
+        if (root != EMPTY) {
+            spine[0] = root;
+            spineSize = 1;
+        }
+        return root;
+    }
+
+    int ruleCount() {
+        return ruleCount;
+    }
+
+    int left(int symbol) {
+        return lefts[symbol - FIRST_NON_TERMINAL];
+    }
+
+    int right(int symbol) {
+        return rights[symbol - FIRST_NON_TERMINAL];
+    }
+
+    int height(int symbol) {
+        if (symbol == EMPTY) return -1;
+        return symbol < FIRST_NON_TERMINAL ? 0 : heights[symbol - FIRST_NON_TERMINAL];
+    }
+
+    int length(int symbol) {
+        if (symbol == EMPTY) return 0;
+        return symbol < FIRST_NON_TERMINAL ? 1 : lengths[symbol - FIRST_NON_TERMINAL];
+    }
+
+    /**
+     * Gets the non-terminal of the rule with the given right side, and creates the rule if it does not exist yet
+     * @param left The left symbol
+     * @param right The right symbol
+     * @return The non-terminal
+     */
+    private int rule(int left, int right) {
+        final long key = ((long) left << 32) | (right & 0xFFFFFFFFL);
+        final int id = ruleIds.get(key);
+        if (id != -1) {
+            return FIRST_NON_TERMINAL + id;
+        }
+
+        if (ruleCount == lefts.length) {
+            final int capacity = lefts.length + (lefts.length >> 1);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+        }
+        lefts[ruleCount] = left;
+        rights[ruleCount] = right;
+        lengths[ruleCount] = length(left) + length(right);
+        heights[ruleCount] = (byte) (Math.max(height(left), height(right)) + 1);
+        ruleIds.put(key, ruleCount);
+        return FIRST_NON_TERMINAL + ruleCount++;
+    }
+
+    /**
+     * Creates a symbol which derives the concatenation of the expansions of two symbols
+     * @param a The first symbol
+     * @param b The second symbol
+     * @return The symbol deriving the concatenation, which is balanced if both symbols are
+     */
+    int concat(int a, int b) {
+        if (a == EMPTY) return b;
+        if (b == EMPTY) return a;
+
+        if (height(a) > height(b) + 1) {
+            return concatRight(a, b);
+        } else if (height(b) > height(a) + 1) {
+            return concatLeft(a, b);
+        } else {
+            return rule(a, b);
+        }
+    }
+
+    /**
+     * Concatenates two symbols by inserting the lower one into the right border of the derivation tree of the higher one
+     * @param a The first symbol, which is at least two higher than b
+     * @param b The second symbol
+     * @return The symbol deriving the concatenation
+     */
+    private int concatRight(int a, int b) {
+        final int left = left(a);
+        final int child = right(a);
+
+        if (height(child) <= height(b) + 1) {
+            // child and b can be concatenated directly
+            if (Math.max(height(child), height(b)) <= height(left)) {
+                return rule(left, rule(child, b));
+            }
+            // (child, b) would be two higher than left, so child is split up (double rotation)
+            return rule(rule(left, left(child)), rule(right(child), b));
+        }
+
+        final int concatenated = concatRight(child, b);
+        if (height(concatenated) <= height(left) + 1) {
+            return rule(left, concatenated);
+        }
+        // The concatenation has grown two higher than left (single rotation)
+        return rule(rule(left, left(concatenated)), right(concatenated));
+    }
+
+    /**
+     * Concatenates two symbols by inserting the lower one into the left border of the derivation tree of the higher one
+     * @param a The first symbol
+     * @param b The second symbol, which is at least two higher than a
+     * @return The symbol deriving the concatenation
+     */
+    private int concatLeft(int a, int b) {
+        final int child = left(b);
+        final int right = right(b);
+
+        if (height(child) <= height(a) + 1) {
+            if (Math.max(height(a), height(child)) <= height(right)) {
+                return rule(rule(a, child), right);
+            }
+            return rule(rule(a, left(child)), rule(right(child), right));
+        }
+
+        final int concatenated = concatLeft(a, child);
+        if (height(concatenated) <= height(right) + 1) {
+            return rule(concatenated, right);
+        }
+        return rule(left(concatenated), rule(right(concatenated), right));
+    }
+
+    /**
+     * Creates a symbol which derives a substring of the expansion of a symbol, by concatenating the
+     * non-terminals of the derivation tree which cover the substring
+     * @param symbol The symbol
+     * @param from The start index of the substring in the expansion (inclusive)
+     * @param to The end index of the substring in the expansion (exclusive)
+     * @return The symbol deriving the substring
+     */
+    int substring(int symbol, int from, int to) {
+        if (from == to) return EMPTY;
+        if (from == 0 && to == length(symbol)) return symbol;
+
+        final int left = left(symbol);
+        final int leftLength = length(left);
+        if (to <= leftLength) {
+            return substring(left, from, to);
+        } else if (from >= leftLength) {
+            return substring(right(symbol), from - leftLength, to - leftLength);
+        } else {
+            return concat(substring(left, from, leftLength), substring(right(symbol), 0, to - leftLength));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Rules which the derivation of the text does not use anymore, because they were replaced while rebalancing, are left out.
+     * The start rule consists of the two symbols of the root.
+     */
+    @Override
+    public UnifiedRuleset toUnified() {
+        final var ruleset = new UnifiedRuleset();
+        ruleset.setTopLevelRuleId(0);
+
+        final int root = root();
+        if (root < FIRST_NON_TERMINAL) {
+            ruleset.putRule(0, root == EMPTY ? new ArrayList<>() : new ArrayList<>(List.of(UnifiedTerminal.of((char) root))));
+            return ruleset;
+        }
+
+        // Every rule only contains rules created before it, so a single pass backwards finds the used rules.
+        // The used rules are numbered from 1 in the order of their creation
+        final int[] ids = new int[ruleCount];
+        ids[root - FIRST_NON_TERMINAL] = 1;
+        for (int rule = ruleCount - 1; rule >= 0; rule--) {
+            if (ids[rule] != 0) {
+                if (lefts[rule] >= FIRST_NON_TERMINAL) ids[lefts[rule] - FIRST_NON_TERMINAL] = 1;
+                if (rights[rule] >= FIRST_NON_TERMINAL) ids[rights[rule] - FIRST_NON_TERMINAL] = 1;
+            }
+        }
+        int usedRules = 0;
+        for (int rule = 0; rule < ruleCount; rule++) {
+            if (ids[rule] != 0) ids[rule] = ++usedRules;
+        }
+
+        final int rootRule = root - FIRST_NON_TERMINAL;
+        ruleset.putRule(0, new ArrayList<>(List.of(unify(lefts[rootRule], ids), unify(rights[rootRule], ids))));
+        for (int rule = 0; rule < ruleCount; rule++) {
+            if (ids[rule] != 0 && rule != rootRule) {
+                ruleset.putRule(ids[rule], List.of(unify(lefts[rule], ids), unify(rights[rule], ids)));
+            }
+        }
+        return ruleset;
+    }
+
+    private static UnifiedSymbol unify(int symbol, int[] ids) {
+        return symbol >= FIRST_NON_TERMINAL
+                ? new UnifiedNonTerminal(ids[symbol - FIRST_NON_TERMINAL])
+                : UnifiedTerminal.of((char) symbol);
+    }
+}
@@ -0,0 +1,97 @@
+package compression.lz;
+
+import compression.utils.SuffixArrayBuilder;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * Computes the LZ77 factorization of a text, in which every factor is either a single character, which does not occur
+ * before it, or the longest prefix of the rest of the text, which also starts at an earlier index.
+ * The earlier occurrence may overlap with the factor itself.
+ * <p>
+ * The factors are found with Karkkainen, Kempa and Puglisi's algorithm KKP3 from "Linear Time Lempel-Ziv Factorization:
+ * Simple, Fast, Small". The longest earlier occurrence starts at the psv or the nsv of the factor, which are the
+ * lexicographically next smaller and next greater suffixes which start before it. Their matches are found by comparing
+ * characters, and neither comparison passes the end of the factor by more than one character, so this takes linear time.
+ */
+final class LZFactorizer {
+
+    private LZFactorizer() {}
+
+    /**
+     * Factorizes a text
+     * @param text The text followed by a sentinel, which is greater than every character of the text
+     * @param suffixArray The suffix array of the text including the sentinel, as built by a {@link SuffixArrayBuilder}.
+     *                    It may contain additional entries after the suffixes. It is overwritten
+     * @return The factors, each as two ints: the start index of the source and the length of the factor, or
+     * the character itself and zero for a factor which is a single character
+     */
+    static IntArrayList factorize(CharSequence text, int[] suffixArray) {
+        final int n = text.length() - 1;
+        final int[] psv = new int[n + 1];
+        final int[] nsv = new int[n + 1];
+        computePsvNsv(suffixArray, n + 1, psv, nsv);
+
+        final var factors = new IntArrayList();
+        int k = 0;
+        while (k < n) {
+            final int psvLength = matchLength(text, n, k, psv[k]);
+            final int nsvLength = matchLength(text, n, k, nsv[k]);
+            if (psvLength == 0 && nsvLength == 0) {
+                factors.add(text.charAt(k));
+                factors.add(0);
+                k++;
+            } else {
+                factors.add(psvLength > nsvLength ? psv[k] : nsv[k]);
+                factors.add(Math.max(psvLength, nsvLength));
+                k += Math.max(psvLength, nsvLength);
+            }
+        }
+        return factors;
+    }
+
+    /**
+     * Calculates the psv and nsv values in the order of the text, so that psv[k] and nsv[k] are the start indices of the
+     * lexicographically next smaller and next greater suffixes of the suffix at index k, which start before k,
+     * or -1 if there is no such suffix.
+     * The suffix array is scanned once while a stack of increasing start indices is kept. A suffix is popped from the
+     * stack as soon as a suffix, which starts before it, is scanned, which is its nsv. Its psv is the suffix below it on the stack.
+     * The stack never holds more entries than suffixes have been scanned, so it is stored in the scanned part of the suffix array
+     * @param suffixArray The suffix array. It is overwritten
+     * @param length The amount of suffixes
+     * @param psv The array to store the psv values in
+     * @param nsv The array to store the nsv values in
+     */
+    private static void computePsvNsv(int[] suffixArray, int length, int[] psv, int[] nsv) {
+        // The index of the top of the stack in the suffix array. The bottom of the stack is an implicit -1
+        int top = -1;
+        for (int i = 0; i <= length; i++) {
+            // The empty suffix starts before no other suffix, so it empties the stack
+            final int current = i < length ? suffixArray[i] : -1;
+            while (top >= 0 && suffixArray[top] > current) {
+                final int k = suffixArray[top];
+                nsv[k] = current;
+                psv[k] = top > 0 ? suffixArray[top - 1] : -1;
+                top--;
+            }
+            if (i < length) suffixArray[++top] = current;
+        }
+    }
+
+    /**
+     * Calculates the length of the longest common prefix of two suffixes of the text without the sentinel by comparing their characters
+     * @param text The text
+     * @param n The length of the text without the sentinel
+     * @param k The start index of the factor
+     * @param source The start index of a suffix before k, or -1 if there is none
+     * @return The length of the match
+     */
+    private static int matchLength(CharSequence text, int n, int k, int source) {
+        if (source == -1) return 0;
+
+        int length = 0;
+        while (k + length < n && text.charAt(source + length) == text.charAt(k + length)) {
+            length++;
+        }
+        return length;
+    }
+}
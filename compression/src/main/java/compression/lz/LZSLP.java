@@ -0,0 +1,70 @@
+package compression.lz;
+
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedCompressor;
+import compression.utils.ByteSequence;
+import compression.utils.SuffixArrayBuilder;
+
+/**
+ * Grammar compression by LZ77 factorization. The text is factorized by {@link LZFactorizer} on the suffix array of
+ * the text, and the factors are converted into a balanced straight-line program by {@link AVLGrammar}.
+ * <p>
+ * This takes linear time plus O(log n) per factor, so it is much faster than AreaComp and RePair, and the grammar has
+ * O(z log n) rules for z factors. The grammars are usually larger than the ones of RePair, though.
+ */
+public class LZSLP implements UnifiedCompressor {
+
+    private final SuffixArrayBuilder suffixArrayBuilder;
+
+    /**
+     * Creates a new instance, which uses the {@link SuffixArrayBuilder#defaultBuilder() default suffix array builder}
+     */
+    public LZSLP() {
+        this(SuffixArrayBuilder.defaultBuilder());
+    }
+
+    /**
+     * Creates a new instance
+     * @param suffixArrayBuilder The builder used to construct the suffix array
+     */
+    public LZSLP(SuffixArrayBuilder suffixArrayBuilder) {
+        this.suffixArrayBuilder = suffixArrayBuilder;
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(String s) {
+        // The same sentinel as in AugmentedString
+        final var text = new StringBuilder(s).append(Character.MAX_VALUE).toString();
+        return compress(text, suffixArrayBuilder.build(text).suffixArray());
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(ByteSequence bytes) {
+        return compress(bytes.withSentinel(), suffixArrayBuilder.build(bytes).suffixArray());
+    }
+
+    /**
+     * Factorizes the text and builds the grammar of the factors
+     * @param text The text followed by a sentinel
+     * @param suffixArray The suffix array of the text
+     * @return The grammar
+     */
+    private static AVLGrammar compress(CharSequence text, int[] suffixArray) {
+        final var factors = LZFactorizer.factorize(text, suffixArray);
+        final var grammar = new AVLGrammar();
+        for (int i = 0; i < factors.size(); i += 2) {
+            final int length = factors.getInt(i + 1);
+            if (length == 0) {
+                grammar.append((char) factors.getInt(i));
+            } else {
+                grammar.appendCopy(factors.getInt(i), length);
+            }
+        }
+        return grammar;
+    }
+
+    @Override
+    public String name() {
+        return "LZSLP";
+    }
+}
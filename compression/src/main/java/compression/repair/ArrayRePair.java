@@ -0,0 +1,30 @@
+package compression.repair;
+
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedCompressor;
+import compression.utils.ByteSequence;
+
+/**
+ * RePair on the array based data structure of Larsson and Moffat, see {@link ArrayRePairDataStructure}.
+ * Unlike {@link RePair}, it does not create an object per position of the input
+ */
+public class ArrayRePair implements UnifiedCompressor {
+    @Override
+    public ToUnifiedRuleset compress(String s) {
+        var repair = new ArrayRePairDataStructure(s);
+        repair.compress();
+        return repair;
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(ByteSequence bytes) {
+        var repair = new ArrayRePairDataStructure(bytes);
+        repair.compress();
+        return repair;
+    }
+
+    @Override
+    public String name() {
+        return "ArrayRePair";
+    }
+}
@@ -0,0 +1,568 @@
+package compression.repair;
+
+import compression.unified.UnifiedRuleset;
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.utils.ByteSequence;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * RePair on flat int arrays, following the data structure of Larsson and Moffat.
+ * <p>
+ * The sequence is an int array of the symbols of a {@link PairGrammar}. Every position, at which an occurrence of a pair starts, is linked into the
+ * doubly linked occurrence list of the pair through {@link #prevOccurrences} and {@link #nextOccurrences}. Replaced
+ * positions are {@link #EMPTY}, and a run of empty positions stores the next live position in its first and the previous
+ * live position in its last entry of the same arrays, so the neighbours of a position are found in constant time.
+ * Once the sequence is filled less than {@link #COMPACTION_THRESHOLD}, the live symbols are moved to its front.
+ * <p>
+ * The pairs are entries in parallel int arrays, whose handles are found by an open addressing hash table.
+ * Pairs with a frequency of up to sqrt(n) are kept in one list per frequency, all more frequent pairs share one list,
+ * which is searched for the most frequent pair. As the frequencies of those pairs sum up to at most n, there are less
+ * than sqrt(n) of them, so the whole compression runs in linear time.
+ * <p>
+ * Overlapping occurrences of a pair of two equal symbols, as in "aaa", are only counted once.
+ */
+class ArrayRePairDataStructure implements ToUnifiedRuleset {
+
+    /**
+     * The handle or position, which represents the absence of a pair or position
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The symbol of a position, whose symbol has been merged into its left neighbour
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * The previous occurrence of a position, at which no linked occurrence of a pair starts
+     */
+    private static final int NOT_LINKED = -2;
+
+    /**
+     * The share of live positions in the sequence, below which the sequence is compacted
+     */
+    static final double COMPACTION_THRESHOLD = 0.5;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int[] sequence;
+
+    /**
+     * The previous occurrence of the same pair for positions in an occurrence list, {@link #NOT_LINKED} for other
+     * live positions, and the previous live position in the last position of a run of empty positions
+     */
+    private final int[] prevOccurrences;
+
+    /**
+     * The next occurrence of the same pair for positions in an occurrence list, and the next live position in the
+     * first position of a run of empty positions
+     */
+    private final int[] nextOccurrences;
+
+    /**
+     * The length of the used part of the sequence, which shrinks with every compaction
+     */
+    private int length;
+
+    /**
+     * The amount of positions, which are not {@link #EMPTY}
+     */
+    private int live;
+
+    /**
+     * Maps the key of every pair, see {@link #key(int, int)}, to the handle of its entry
+     */
+    private final Long2IntOpenHashMap pairs;
+
+    /**
+     * The left symbol of every entry, or {@link #EMPTY} if the entry is unused
+     */
+    private int[] lefts;
+    private int[] rights;
+    private int[] frequencies;
+    private int[] firstOccurrences;
+
+    /**
+     * The index in {@link #queues} of the list each entry is in, or {@link #NONE}
+     */
+    private int[] queueIndices;
+    private int[] queuePrevs;
+
+    /**
+     * The next entry in the list of each entry. For unused entries, this is the next entry of the free list
+     */
+    private int[] queueNexts;
+
+    /**
+     * The amount of entries which have been used so far
+     */
+    private int entryCount;
+
+    /**
+     * The first entry of the list of entries which have been released
+     */
+    private int free = NONE;
+
+    /**
+     * The first entry of the list of each frequency. The list at index 0 contains all pairs whose frequency is larger
+     * than sqrt(n)
+     */
+    private final int[] queues;
+
+    /**
+     * The highest index in {@link #queues}, whose list may not be empty
+     */
+    private int top;
+
+    /**
+     * The left and right symbol of every rule, one after the other
+     */
+    private final IntArrayList rules = new IntArrayList();
+
+    private ArrayRePairDataStructure(int length) {
+        this.length = length;
+        this.live = length;
+        sequence = new int[length];
+        prevOccurrences = new int[length];
+        nextOccurrences = new int[length];
+        Arrays.fill(prevOccurrences, NOT_LINKED);
+        Arrays.fill(nextOccurrences, NONE);
+
+        queues = new int[Math.max(2, (int) Math.ceil(Math.sqrt(length))) + 1];
+        Arrays.fill(queues, NONE);
+
+        pairs = new Long2IntOpenHashMap();
+        pairs.defaultReturnValue(NONE);
+
+        lefts = new int[INITIAL_CAPACITY];
+        rights = new int[INITIAL_CAPACITY];
+        frequencies = new int[INITIAL_CAPACITY];
+        firstOccurrences = new int[INITIAL_CAPACITY];
+        queueIndices = new int[INITIAL_CAPACITY];
+        queuePrevs = new int[INITIAL_CAPACITY];
+        queueNexts = new int[INITIAL_CAPACITY];
+    }
+
+    public ArrayRePairDataStructure(String s) {
+        this(s, 0, s.length());
+    }
+
+    public ArrayRePairDataStructure(ByteSequence bytes) {
+        this(bytes, 0, bytes.byteLength());
+    }
+
+    /**
+     * Creates the data structure for a part of a text
+     * @param s The text
+     * @param start The index of the first char of the part
+     * @param end The index after the last char of the part
+     */
+    public ArrayRePairDataStructure(CharSequence s, int start, int end) {
+        this(end - start);
+        for (int i = 0; i < length; i++) {
+            sequence[i] = s.charAt(start + i);
+        }
+    }
+
+    /**
+     * Creates the data structure for a part of some bytes
+     * @param bytes The bytes
+     * @param start The index of the first byte of the part
+     * @param end The index after the last byte of the part
+     */
+    public ArrayRePairDataStructure(ByteSequence bytes, int start, int end) {
+        this(end - start);
+        for (int i = 0; i < length; i++) {
+            sequence[i] = bytes.byteAt(start + i);
+        }
+    }
+
+    /**
+     * Creates the data structure for the start rule of a grammar, whose rules are kept.
+     * The non-terminals of the grammar are compressed like terminals, and new rules are appended to its rules
+     * @param grammar The grammar
+     */
+    public ArrayRePairDataStructure(PairGrammar grammar) {
+        this(grammar.startRule().length);
+        System.arraycopy(grammar.startRule(), 0, sequence, 0, length);
+        rules.addElements(0, grammar.rules());
+    }
+
+    /**
+     * Replaces the most frequent pair with a new rule until no pair occurs twice
+     */
+    public void compress() {
+        for (int i = 0; i < length - 1; i++) {
+            addOccurrence(i);
+        }
+
+        int pair;
+        while ((pair = poll()) != NONE) {
+            replace(pair);
+            if (live < length * COMPACTION_THRESHOLD) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Replaces all occurrences of a pair, which is not in the queue anymore, with the non-terminal of a new rule
+     * @param pair The handle of the pair
+     */
+    private void replace(int pair) {
+        final int left = lefts[pair];
+        final int right = rights[pair];
+        final int nonTerminal = PairGrammar.FIRST_NON_TERMINAL + rules.size() / 2;
+        rules.add(left);
+        rules.add(right);
+
+        int position = firstOccurrences[pair];
+        while (position != NONE) {
+            final int nextPosition = nextOccurrences[position];
+            final int second = next(position);
+            final int prev = prev(position);
+            final int afterSecond = next(second);
+
+            // The pairs overlapping the occurrence disappear
+            final boolean prevLinked = prev != NONE && removeOccurrence(prev);
+            final boolean secondLinked = afterSecond != NONE && removeOccurrence(second);
+
+            sequence[position] = nonTerminal;
+            prevOccurrences[position] = NOT_LINKED;
+            nextOccurrences[position] = NONE;
+            removeSymbol(position, second);
+
+            // Pairs with the non-terminal appear instead. If a run of equal symbols lost a counted pair at its end,
+            // the remaining pairs of the run are counted again, as the run may now hold one more non-overlapping pair.
+            // Otherwise, only a pair next to the disappeared pairs may have been skipped because it overlapped one of them
+            if (prev != NONE) {
+                addOccurrence(prev);
+                final int beforePrev = prev(prev);
+                if (beforePrev != NONE) {
+                    if (prevLinked && left != right && sequence[prev] == left && sequence[beforePrev] == left) {
+                        recountRun(beforePrev);
+                    } else {
+                        addOccurrence(beforePrev);
+                    }
+                }
+            }
+            if (afterSecond != NONE) {
+                addOccurrence(position);
+                if (secondLinked && left != right && sequence[afterSecond] == right) {
+                    recountRun(afterSecond);
+                } else {
+                    addOccurrence(afterSecond);
+                }
+            }
+
+            position = nextPosition;
+        }
+
+        releaseEntry(pair);
+    }
+
+    /**
+     * Counts the pairs in a run of equal symbols again, so that the first pair of the run and then every other pair
+     * is linked. This takes time linear in the length of the run
+     * @param position A position in the run
+     */
+    private void recountRun(int position) {
+        final int symbol = sequence[position];
+        int start = position;
+        for (int prev = prev(start); prev != NONE && sequence[prev] == symbol; prev = prev(prev)) {
+            start = prev;
+        }
+        for (int i = start; i != NONE && sequence[i] == symbol; i = next(i)) {
+            removeOccurrence(i);
+        }
+        for (int i = start; i != NONE && sequence[i] == symbol; i = next(i)) {
+            addOccurrence(i);
+        }
+    }
+
+    /**
+     * Gets the next live position
+     * @param position A live position
+     * @return The next live position, or {@link #NONE} if the position is the last one
+     */
+    private int next(int position) {
+        int next = position + 1;
+        if (next < length && sequence[next] == EMPTY) {
+            next = nextOccurrences[next];
+        }
+        return next < length ? next : NONE;
+    }
+
+    /**
+     * Gets the previous live position
+     * @param position A live position
+     * @return The previous live position, or {@link #NONE} if the position is the first one
+     */
+    private int prev(int position) {
+        final int prev = position - 1;
+        if (prev >= 0 && sequence[prev] == EMPTY) {
+            return prevOccurrences[prev];
+        }
+        return prev;
+    }
+
+    /**
+     * Empties a position and updates the run of empty positions it belongs to
+     * @param position The live position before the position to empty
+     * @param next The position to empty, which must be the next live position
+     */
+    private void removeSymbol(int position, int next) {
+        sequence[next] = EMPTY;
+        final int start = position + 1;
+        final int end = next + 1 < length && sequence[next + 1] == EMPTY ? nextOccurrences[next + 1] - 1 : next;
+        nextOccurrences[start] = end + 1;
+        prevOccurrences[end] = position;
+        live--;
+    }
+
+    private boolean isLinked(int position) {
+        return prevOccurrences[position] != NOT_LINKED;
+    }
+
+    /**
+     * Links the occurrence of the pair starting at a position into the occurrence list of the pair and increases
+     * its frequency. Nothing happens if the position is linked already, if it is the last position or if the
+     * occurrence overlaps a linked occurrence of the same pair
+     * @param position The live position
+     */
+    private void addOccurrence(int position) {
+        final int next = next(position);
+        if (next == NONE || isLinked(position)) return;
+
+        final int left = sequence[position];
+        final int right = sequence[next];
+        if (left == right) {
+            final int prev = prev(position);
+            if (prev != NONE && sequence[prev] == left && isLinked(prev)) return;
+            final int afterNext = next(next);
+            if (afterNext != NONE && sequence[afterNext] == left && isLinked(next)) return;
+        }
+
+        final long key = key(left, right);
+        int pair = pairs.get(key);
+        if (pair == NONE) {
+            pair = newEntry(left, right);
+            pairs.put(key, pair);
+        }
+
+        final int first = firstOccurrences[pair];
+        prevOccurrences[position] = NONE;
+        nextOccurrences[position] = first;
+        if (first != NONE) {
+            prevOccurrences[first] = position;
+        }
+        firstOccurrences[pair] = position;
+        updateFrequency(pair, 1);
+    }
+
+    /**
+     * Unlinks the occurrence of the pair starting at a position from the occurrence list of the pair and decreases
+     * its frequency. Nothing happens if the position is not linked
+     * @param position The live position
+     * @return Whether the position was linked
+     */
+    private boolean removeOccurrence(int position) {
+        if (!isLinked(position)) return false;
+
+        final int pair = pairs.get(key(sequence[position], sequence[next(position)]));
+        final int prev = prevOccurrences[position];
+        final int next = nextOccurrences[position];
+        if (prev == NONE) {
+            firstOccurrences[pair] = next;
+        } else {
+            nextOccurrences[prev] = next;
+        }
+        if (next != NONE) {
+            prevOccurrences[next] = prev;
+        }
+        prevOccurrences[position] = NOT_LINKED;
+        nextOccurrences[position] = NONE;
+
+        if (frequencies[pair] == 1) {
+            releaseEntry(pair);
+        } else {
+            updateFrequency(pair, -1);
+        }
+        return true;
+    }
+
+    /**
+     * Packs two symbols into the key of their pair
+     * @param left The left symbol
+     * @param right The right symbol
+     * @return The left symbol in the upper and the right symbol in the lower 32 bits
+     */
+    private static long key(int left, int right) {
+        return ((long) left << 32) | (right & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Creates an entry with a frequency of 0, which is in no list
+     * @return The handle of the entry
+     */
+    private int newEntry(int left, int right) {
+        final int entry;
+        if (free != NONE) {
+            entry = free;
+            free = queueNexts[entry];
+        } else {
+            if (entryCount == lefts.length) {
+                final int capacity = entryCount + (entryCount >> 1);
+                lefts = Arrays.copyOf(lefts, capacity);
+                rights = Arrays.copyOf(rights, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+                firstOccurrences = Arrays.copyOf(firstOccurrences, capacity);
+                queueIndices = Arrays.copyOf(queueIndices, capacity);
+                queuePrevs = Arrays.copyOf(queuePrevs, capacity);
+                queueNexts = Arrays.copyOf(queueNexts, capacity);
+            }
+            entry = entryCount++;
+        }
+        lefts[entry] = left;
+        rights[entry] = right;
+        frequencies[entry] = 0;
+        firstOccurrences[entry] = NONE;
+        queueIndices[entry] = NONE;
+        queuePrevs[entry] = NONE;
+        queueNexts[entry] = NONE;
+        return entry;
+    }
+
+    /**
+     * Removes an entry from the hash table and its list and puts it onto the free list
+     * @param entry The handle of the entry
+     */
+    private void releaseEntry(int entry) {
+        dequeue(entry);
+        pairs.remove(key(lefts[entry], rights[entry]));
+        lefts[entry] = EMPTY;
+        queueNexts[entry] = free;
+        free = entry;
+    }
+
+    /**
+     * Changes the frequency of a pair and moves it to the list of its new frequency. Pairs which occur only once are in no list
+     * @param entry The handle of the pair
+     * @param amount The amount *by* which the frequency should change
+     */
+    private void updateFrequency(int entry, int amount) {
+        dequeue(entry);
+        frequencies[entry] += amount;
+        if (frequencies[entry] > 1) {
+            final int index = frequencies[entry] < queues.length ? frequencies[entry] : 0;
+            final int oldHead = queues[index];
+            queueNexts[entry] = oldHead;
+            if (oldHead != NONE) {
+                queuePrevs[oldHead] = entry;
+            }
+            queues[index] = entry;
+            queueIndices[entry] = index;
+            top = Math.max(top, index);
+        }
+    }
+
+    /**
+     * Removes an entry from the list it is in, if any
+     * @param entry The handle of the entry
+     */
+    private void dequeue(int entry) {
+        final int index = queueIndices[entry];
+        if (index == NONE) return;
+
+        final int prev = queuePrevs[entry];
+        final int next = queueNexts[entry];
+        if (prev == NONE) {
+            queues[index] = next;
+        } else {
+            queueNexts[prev] = next;
+        }
+        if (next != NONE) {
+            queuePrevs[next] = prev;
+        }
+        queueIndices[entry] = NONE;
+        queuePrevs[entry] = NONE;
+        queueNexts[entry] = NONE;
+    }
+
+    /**
+     * Removes one of the most frequent pairs from the queue. It stays in the hash table until it is released
+     * @return The handle of the pair, or {@link #NONE} if no pair occurs twice
+     */
+    private int poll() {
+        int entry = queues[0];
+        if (entry != NONE) {
+            for (int other = queueNexts[entry]; other != NONE; other = queueNexts[other]) {
+                if (frequencies[other] > frequencies[entry]) {
+                    entry = other;
+                }
+            }
+        } else {
+            while (top > 1 && queues[top] == NONE) {
+                top--;
+            }
+            if (top <= 1) return NONE;
+            entry = queues[top];
+        }
+        dequeue(entry);
+        return entry;
+    }
+
+    /**
+     * Moves the live positions to the front of the sequence and updates the occurrence lists to their new positions
+     */
+    private void compact() {
+        final int[] positions = new int[length];
+        int newLength = 0;
+        for (int i = 0; i < length; i++) {
+            if (sequence[i] != EMPTY) {
+                positions[i] = newLength++;
+            }
+        }
+
+        // Positions only move to the front, so every entry is read before it is overwritten
+        for (int i = 0; i < length; i++) {
+            if (sequence[i] == EMPTY) continue;
+            final int position = positions[i];
+            final int prev = prevOccurrences[i];
+            final int next = nextOccurrences[i];
+            sequence[position] = sequence[i];
+            prevOccurrences[position] = prev >= 0 ? positions[prev] : prev;
+            nextOccurrences[position] = next >= 0 ? positions[next] : next;
+        }
+
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (lefts[entry] != EMPTY && firstOccurrences[entry] != NONE) {
+                firstOccurrences[entry] = positions[firstOccurrences[entry]];
+            }
+        }
+        length = newLength;
+    }
+
+    /**
+     * Gets the grammar, which has been created so far
+     * @return The grammar
+     */
+    public PairGrammar toGrammar() {
+        final int[] startRule = new int[live];
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            if (sequence[i] != EMPTY) {
+                startRule[position++] = sequence[i];
+            }
+        }
+        return new PairGrammar(startRule, rules.toIntArray());
+    }
+
+    @Override
+    public UnifiedRuleset toUnified() {
+        return toGrammar().toUnified();
+    }
+}
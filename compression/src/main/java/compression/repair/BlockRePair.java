@@ -0,0 +1,108 @@
+package compression.repair;
+
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedCompressor;
+import compression.utils.ByteSequence;
+
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * RePair with bounded memory per worker. The input is split into blocks of a fixed size, which are compressed
+ * independently and in parallel by {@link ArrayRePair}. The grammars of the blocks are merged into one grammar,
+ * in which rules with the same right side are only created once, see {@link PairGrammar#merge(List)}.
+ * <p>
+ * Optionally, a final round of RePair replaces the pairs which repeat across blocks in the concatenated start rules.
+ * The final round is a single {@link ArrayRePairDataStructure} over all start rules, which needs at least three ints
+ * per symbol of the start rules and one pair entry per distinct pair in them, so its memory grows with the input
+ * instead of being bounded by the block size. It is therefore off by default.
+ * <p>
+ * The grammar is usually larger than the one of RePair over the whole input, as pairs are only counted within a block.
+ */
+public class BlockRePair implements UnifiedCompressor {
+
+    /**
+     * The system property, which sets the block size of block compressors created without an explicit block size.
+     * By default, blocks have {@link #DEFAULT_BLOCK_SIZE} symbols
+     */
+    public static final String BLOCK_SIZE_PROPERTY = "compression.repair.blockSize";
+
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    /**
+     * The system property, which enables the final round for block compressors created without explicit arguments
+     */
+    public static final String FINAL_ROUND_PROPERTY = "compression.repair.finalRound";
+
+    private final int blockSize;
+
+    private final boolean finalRound;
+
+    /**
+     * Creates a new block compressor with the block size given by {@link #BLOCK_SIZE_PROPERTY} and a final round only
+     * if {@link #FINAL_ROUND_PROPERTY} is true
+     */
+    public BlockRePair() {
+        this(Integer.getInteger(BLOCK_SIZE_PROPERTY, DEFAULT_BLOCK_SIZE), Boolean.getBoolean(FINAL_ROUND_PROPERTY));
+    }
+
+    /**
+     * Creates a new block compressor
+     * @param blockSize The amount of symbols per block
+     * @param finalRound Whether RePair should be run again over the merged start rules of all blocks.
+     *                   Its memory grows with the length of the merged start rules
+     * @throws IllegalArgumentException If the block size is less than 1
+     */
+    public BlockRePair(int blockSize, boolean finalRound) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be at least 1, but was " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.finalRound = finalRound;
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(String s) {
+        return compress(s.length(), start -> new ArrayRePairDataStructure(s, start, Math.min(s.length(), start + blockSize)));
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(ByteSequence bytes) {
+        final int length = bytes.byteLength();
+        return compress(length, start -> new ArrayRePairDataStructure(bytes, start, Math.min(length, start + blockSize)));
+    }
+
+    /**
+     * Compresses all blocks and merges their grammars
+     * @param length The length of the input
+     * @param block Creates the data structure for the block starting at the given index
+     * @return The merged grammar
+     */
+    private PairGrammar compress(int length, IntFunction<ArrayRePairDataStructure> block) {
+        final int blockCount = Math.max(1, (int) ((length + (long) blockSize - 1) / blockSize));
+        final List<PairGrammar> grammars = IntStream.range(0, blockCount)
+                .parallel()
+                .mapToObj(i -> {
+                    final var repair = block.apply(i * blockSize);
+                    repair.compress();
+                    return repair.toGrammar();
+                })
+                .toList();
+
+        final var merged = PairGrammar.merge(grammars);
+        if (!finalRound || blockCount == 1) {
+            return merged;
+        }
+
+        final var repair = new ArrayRePairDataStructure(merged);
+        repair.compress();
+        // The final round may create rules which some block has created already
+        return PairGrammar.merge(List.of(repair.toGrammar()));
+    }
+
+    @Override
+    public String name() {
+        return "BlockRePair";
+    }
+}
@@ -0,0 +1,127 @@
+package compression.repair;
+
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedSymbol;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A grammar as produced by RePair, which consists of a start rule and rules with exactly two symbols, stored as ints.
+ * Terminals are their char value, and the non-terminal of the i-th rule is {@link #FIRST_NON_TERMINAL} + i.
+ * A rule only contains terminals and the non-terminals of rules before it.
+ */
+final class PairGrammar implements ToUnifiedRuleset {
+
+    /**
+     * The symbol of the non-terminal of the first rule. All smaller symbols are terminals
+     */
+    static final int FIRST_NON_TERMINAL = 1 << 16;
+
+    private final int[] startRule;
+
+    /**
+     * The left and right symbol of every rule, one after the other
+     */
+    private final int[] rules;
+
+    PairGrammar(int[] startRule, int[] rules) {
+        this.startRule = startRule;
+        this.rules = rules;
+    }
+
+    int[] startRule() {
+        return startRule;
+    }
+
+    int[] rules() {
+        return rules;
+    }
+
+    int ruleCount() {
+        return rules.length / 2;
+    }
+
+    /**
+     * Gets the size of this grammar, which is the length of the start rule plus two symbols per rule
+     * @return The size
+     */
+    int size() {
+        return startRule.length + rules.length;
+    }
+
+    /**
+     * Concatenates the start rules of several grammars into one grammar. Rules with the same right side are created only once
+     * (hash-consing), so rules which several grammars have in common, and rules which a grammar contains several times,
+     * are merged into one
+     * @param grammars The grammars in the order of their start rules
+     * @return The merged grammar
+     */
+    static PairGrammar merge(List<PairGrammar> grammars) {
+        final var rules = new IntArrayList();
+        final var ruleIds = new Long2IntOpenHashMap();
+        ruleIds.defaultReturnValue(-1);
+
+        int length = 0;
+        for (PairGrammar grammar : grammars) {
+            length += grammar.startRule.length;
+        }
+        final int[] startRule = new int[length];
+
+        int position = 0;
+        for (PairGrammar grammar : grammars) {
+            // The merged non-terminal of every rule of this grammar
+            final int[] nonTerminals = new int[grammar.ruleCount()];
+            for (int rule = 0; rule < nonTerminals.length; rule++) {
+                final int left = translate(grammar.rules[2 * rule], nonTerminals);
+                final int right = translate(grammar.rules[2 * rule + 1], nonTerminals);
+                final long key = ((long) left << 32) | (right & 0xFFFFFFFFL);
+                int id = ruleIds.get(key);
+                if (id == -1) {
+                    id = rules.size() / 2;
+                    rules.add(left);
+                    rules.add(right);
+                    ruleIds.put(key, id);
+                }
+                nonTerminals[rule] = FIRST_NON_TERMINAL + id;
+            }
+
+            for (int symbol : grammar.startRule) {
+                startRule[position++] = translate(symbol, nonTerminals);
+            }
+        }
+        return new PairGrammar(startRule, rules.toIntArray());
+    }
+
+    private static int translate(int symbol, int[] nonTerminals) {
+        return symbol >= FIRST_NON_TERMINAL ? nonTerminals[symbol - FIRST_NON_TERMINAL] : symbol;
+    }
+
+    private static UnifiedSymbol unify(int symbol) {
+        return symbol >= FIRST_NON_TERMINAL
+                ? new UnifiedNonTerminal(symbol - FIRST_NON_TERMINAL + 1)
+                : UnifiedTerminal.of((char) symbol);
+    }
+
+    @Override
+    public UnifiedRuleset toUnified() {
+        final var ruleset = new UnifiedRuleset();
+        ruleset.setTopLevelRuleId(0);
+
+        final List<UnifiedSymbol> topLevel = new ArrayList<>(startRule.length);
+        for (int symbol : startRule) {
+            topLevel.add(unify(symbol));
+        }
+        ruleset.putRule(0, topLevel);
+
+        for (int rule = 0; rule < ruleCount(); rule++) {
+            ruleset.putRule(rule + 1, List.of(unify(rules[2 * rule]), unify(rules[2 * rule + 1])));
+        }
+        return ruleset;
+    }
+}
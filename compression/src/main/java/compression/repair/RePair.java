@@ -2,6 +2,7 @@ package compression.repair;
 
 import compression.unified.interfaces.ToUnifiedRuleset;
 import compression.unified.interfaces.UnifiedCompressor;
+import compression.utils.ByteSequence;
 
 public class RePair implements UnifiedCompressor {
     @Override
@@ -11,6 +12,13 @@ public class RePair implements UnifiedCompressor {
         return repair;
     }
 
+    @Override
+    public ToUnifiedRuleset compress(ByteSequence bytes) {
+        var repair = new RePairDataStructure(bytes);
+        repair.compress();
+        return repair;
+    }
+
     @Override
     public String name() {
         return "RePair";
@@ -6,8 +6,7 @@ import compression.unified.UnifiedTerminal;
 import compression.unified.interfaces.ToUnifiedRuleset;
 import compression.unified.interfaces.UnifiedSymbol;
 import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.objects.Object2IntMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -16,12 +15,41 @@ import java.util.stream.Collectors;
 
 class RePairDataStructure implements ToUnifiedRuleset {
 
+    /**
+     * The share of non-empty containers in the {@link #sequence}, below which it is compacted
+     */
+    static final double COMPACTION_THRESHOLD = 0.5;
+
+    /**
+     * The share of non-empty containers in the {@link #sequence}, below which it is compacted by this instance
+     */
+    private final double compactionThreshold;
+
     private int currentId;
+
+    /**
+     * The amount of non-empty containers in the {@link #sequence}
+     */
     private int len;
     private SymbolContainer[] sequence;
     private final RePairQueue queue;
 
-    public RePairDataStructure(String s) {
+    /**
+     * Creates the data structure for the given text. Bytes can be passed as a {@link compression.utils.ByteSequence}
+     * @param s The text to compress
+     */
+    public RePairDataStructure(CharSequence s) {
+        this(s, COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Creates the data structure for the given text with a given compaction threshold. The grammar does not depend on it
+     * @param s The text to compress
+     * @param compactionThreshold The share of non-empty containers, below which the sequence is compacted.
+     *                            The sequence is never compacted if this is 0
+     */
+    RePairDataStructure(CharSequence s, double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
         len = s.length();
         currentId = 1;
         final var index = new AtomicInteger(0);
@@ -38,8 +66,6 @@ class RePairDataStructure implements ToUnifiedRuleset {
     }
 
     private void populateQueue() {
-        // A map that stores the previous occurrence index of each pair
-        var prevOccured = new HashMap<SymbolPair, Integer>();
         // The amount of pairs that consist of 2 of the same characters
         // This is set to 0, when a pair of different characters is read
         // Otherwise, it is incremented by 1
@@ -54,11 +80,11 @@ class RePairDataStructure implements ToUnifiedRuleset {
             // symbols can be easily found
             left.connectNext(right);
 
-            SymbolPair pair = new SymbolPair(left.getSymbol(), right.getSymbol());
+            final int pair = queue.add(left.getSymbol(), right.getSymbol());
 
-            if (!queue.contains(pair)) {
+            if (queue.firstOccurrence(pair) == -1) {
                 // This is the first time we've seen this pair, so this is its first occurrence
-                pair.setFirstOccurrence(i);
+                queue.setFirstOccurrence(pair, i);
             }
 
             if(left.equals(right)) {
@@ -67,15 +93,15 @@ class RePairDataStructure implements ToUnifiedRuleset {
                 sameChar = 0;
             }
 
-            if (prevOccured.containsKey(pair)) {
-                int prevOccurence = prevOccured.get(pair);
+            // The last occurrence recorded so far is the previous occurrence of this one
+            final int prevOccurence = queue.lastOccurrence(pair);
+            if (prevOccurence != -1) {
                 SymbolContainer prev = sequence[prevOccurence];
                 //if(Math.abs(i - prevOccurence) > 1) {
                     prev.setNextOccurence(i);
                     left.setPrevOccurence(prevOccurence);
                 //}
             }
-            queue.add(pair);
 
             /*
             switch (sameChar) {
@@ -108,13 +134,8 @@ class RePairDataStructure implements ToUnifiedRuleset {
                 }
             }*/
 
-            prevOccured.put(pair, i);
-
+            queue.setLastOccurrence(pair, i);
         }
-
-        // Set the last occurrence for each pair
-        prevOccured.forEach(SymbolPair::setLastOccurrence);
-        var i = 1;
     }
 
     public List<SymbolContainer> getSequence() {
@@ -128,73 +149,75 @@ class RePairDataStructure implements ToUnifiedRuleset {
         var done = false;
         while (!done) {
             done = !replaceMostFrequent();
-            //compact();
+            if (len < sequence.length * compactionThreshold) {
+                compact();
+            }
         }
     }
 
     /**
-     * Compacts the {@link #sequence} Array by removing all empty spaces
+     * Compacts the {@link #sequence} Array by removing the empty spaces.
+     * The indices of the containers, their occurrence links and the first and last occurrences of the pairs in the
+     * {@link #queue} are moved to the new indices. An empty container is kept, if an occurrence link or an occurrence in
+     * the queue refers to it, since following such a link continues with the links of the empty container and the
+     * containers after it. As the order of the kept containers does not change, the grammar is the same as without compaction
      */
     private void compact() {
-        //TODO Implement this function. This is not a high-priority, since it only improves memory consumption and not runtime
-        var newIndex = 0;
-
-        var indexMap = new TreeMap<Integer, Integer>();
-        var list = new ArrayList<SymbolContainer>();
-
-        // Add the old non-empty elements to the list and record the new indices of the elements
+        final boolean[] kept = new boolean[sequence.length];
         for (int i = 0; i < sequence.length; i++) {
-            SymbolContainer symbolContainer = sequence[i];
-            if(symbolContainer.isEmpty()) {
-                continue;
+            final SymbolContainer container = sequence[i];
+            if (!container.isEmpty()) {
+                kept[i] = true;
+            }
+            if (container.getPrevOccurence() != -1) {
+                kept[container.getPrevOccurence()] = true;
+            }
+            if (container.getNextOccurence() != -1) {
+                kept[container.getNextOccurence()] = true;
             }
+        }
+        queue.markOccurrences(kept);
 
-            list.add(symbolContainer);
-            indexMap.put(i, newIndex);
-            newIndex++;
+        final int[] newIndices = new int[sequence.length];
+        int newLength = 0;
+        for (int i = 0; i < sequence.length; i++) {
+            newIndices[i] = kept[i] ? newLength++ : -1;
         }
 
-        // Update the previous and next occurrences
-        for (SymbolContainer container : list) {
-            int prev = container.getPrevOccurence();
-            int next = container.getNextOccurence();
+        // Containers only move to the front, so every container is read before its space is overwritten
+        for (int i = 0; i < sequence.length; i++) {
+            if (!kept[i]) {
+                continue;
+            }
 
+            final SymbolContainer container = sequence[i];
+            final int prev = container.getPrevOccurence();
+            final int next = container.getNextOccurence();
             if (prev != -1) {
-                container.setPrevOccurence(indexMap.get(prev));
+                container.setPrevOccurence(newIndices[prev]);
             }
-
-            if(next != -1) {
-                container.setNextOccurence(indexMap.get(next));
+            if (next != -1) {
+                container.setNextOccurence(newIndices[next]);
             }
-        }
-
-        var processed = new HashSet<SymbolPair>();
-
-        for (int i = 0; i < list.size() - 1; i++) {
-            var left = list.get(i).getSymbol();
-            var right = list.get(i + 1).getSymbol();
-            var pair = queue.getInstance(left, right);
 
-            if(!processed.contains(pair)) {
-                pair.setFirstOccurrence(indexMap.get(pair.getFirstOccurrence()));
-                pair.setLastOccurrence(indexMap.get(pair.getLastOccurrence()));
-                processed.add(pair);
-            }
+            container.setIndex(newIndices[i]);
+            sequence[newIndices[i]] = container;
         }
 
-
-        System.out.println();
-        System.out.println("TheList: " + list);
-        System.out.println("NextOcc: " + list.stream().map(SymbolContainer::getNextOccurence).collect(Collectors.toList()));
-        System.out.println("PrevOcc: " + list.stream().map(SymbolContainer::getPrevOccurence).collect(Collectors.toList()));
-
-        sequence = list.toArray(new SymbolContainer[0]);
+        queue.remapOccurrences(newIndices);
+        sequence = Arrays.copyOf(sequence, newLength);
     }
 
     // Stores the last occurrence index of the pair that consists of the replaced symbol and the symbol following it.
     // Since the first symbol of the pair is always the NonTerminal we are replacing the occurrences in the sequence with,
-    // we can just take the second symbol of the pair as a key for the map
-    private final Object2IntMap<Symbol> PREVIOUS_OCCURRENCE_MAP = new Object2IntOpenHashMap<>();
+    // we can just take the id of the second symbol of the pair as a key for the map
+    private final Int2IntOpenHashMap PREVIOUS_OCCURRENCE_MAP = createPreviousOccurrenceMap();
+
+    private static Int2IntOpenHashMap createPreviousOccurrenceMap() {
+        final var map = new Int2IntOpenHashMap();
+        map.defaultReturnValue(-1);
+        return map;
+    }
 
     public boolean replaceMostFrequent() {
         // FIXME Fix handling of overlapping occurrences of pairs
@@ -233,6 +256,7 @@ class RePairDataStructure implements ToUnifiedRuleset {
             left.setSymbol(pair);
             left.connectNext(right.next());
             right.setSymbol(null);
+            len--;
 
             // Check if the non-terminal has a next symbol (since the previous right.next() could be null)
             if(left.hasNext()) {
@@ -245,12 +269,11 @@ class RePairDataStructure implements ToUnifiedRuleset {
 
                 // If a previous occurrence is recorded, set the next occurrence value of the previous occurrence of this pair
                 // to this current occurrence
-                if(PREVIOUS_OCCURRENCE_MAP.containsKey(followingSymbol)) {
-                    final int previousOccurrence = PREVIOUS_OCCURRENCE_MAP.getInt(followingSymbol);
+                final int previousOccurrence = PREVIOUS_OCCURRENCE_MAP.put(followingSymbol.symbolId(), currentIndex);
+                if(previousOccurrence != -1) {
                     left.setPrevOccurence(previousOccurrence);
                     sequence[previousOccurrence].setNextOccurence(currentIndex);
                 }
-                PREVIOUS_OCCURRENCE_MAP.put(left.next().getSymbol(), currentIndex);
             } else {
                 left.setPrevOccurence(-1);
             }
@@ -267,14 +290,12 @@ class RePairDataStructure implements ToUnifiedRuleset {
             }
 
             if (left.hasPrev()) {
-                var before = new SymbolPair(left.prev().getSymbol(), left.getSymbol());
-                queue.add(before);
+                final int before = queue.add(left.prev().getSymbol(), left.getSymbol());
                 updateOccurrences(before, left.prev().getIndex());
             }
 
             if (left.hasNext()) {
-                var after = new SymbolPair(left.getSymbol(), left.next().getSymbol());
-                queue.add(after);
+                final int after = queue.add(left.getSymbol(), left.next().getSymbol());
                 updateOccurrences(after, left.getIndex());
             }
 
@@ -296,32 +317,32 @@ class RePairDataStructure implements ToUnifiedRuleset {
     private void decreaseNeighborPairFrequency(SymbolContainer left) {
         // If they have the respective neighbor, decrease their frequency in the queue
         if (left.hasPrev()) {
-            var before = new SymbolPair(left.prev().getSymbol(), left.getSymbol());
             //updateOccurrences(before, left.prev().getIndex());
-            queue.updateFrequency(before, -1);
+            queue.updateFrequency(left.prev().getSymbol(), left.getSymbol(), -1);
         }
 
 
         if (left.hasNext() && left.next().hasNext()) {
             var right = left.next();
-            var after = new SymbolPair(right.getSymbol(), right.next().getSymbol());
             //updateOccurrences(after, right.getIndex());
-            queue.updateFrequency(after, -1);
+            queue.updateFrequency(right.getSymbol(), right.next().getSymbol(), -1);
         }
     }
 
-    private void updateOccurrences(SymbolPair pair, int index) {
-        if(queue.contains(pair)) {
-            SymbolPair instance = queue.getInstance(pair);
-            var oldFirstOccurrence = instance.getFirstOccurrence();
-            var oldLastOccurrence = instance.getLastOccurrence();
-            if (index < oldFirstOccurrence || oldFirstOccurrence == -1) {
-                instance.setFirstOccurrence(index);
-            }
+    /**
+     * Extends the range between the first and the last occurrence of a pair to include an index
+     * @param pair The handle of the pair in the {@link #queue}
+     * @param index The index of an occurrence of the pair
+     */
+    private void updateOccurrences(int pair, int index) {
+        var oldFirstOccurrence = queue.firstOccurrence(pair);
+        var oldLastOccurrence = queue.lastOccurrence(pair);
+        if (index < oldFirstOccurrence || oldFirstOccurrence == -1) {
+            queue.setFirstOccurrence(pair, index);
+        }
 
-            if (index > oldLastOccurrence || oldLastOccurrence == -1) {
-                instance.setLastOccurrence(index);
-            }
+        if (index > oldLastOccurrence || oldLastOccurrence == -1) {
+            queue.setLastOccurrence(pair, index);
         }
     }
 
@@ -387,6 +408,14 @@ class RePairDataStructure implements ToUnifiedRuleset {
         return queue;
     }
 
+    /**
+     * Gets the length of the sequence including its empty spaces, which shrinks whenever it is compacted
+     * @return The length
+     */
+    int sequenceLength() {
+        return sequence.length;
+    }
+
     @Override
     public UnifiedRuleset toUnified() {
 
@@ -397,7 +426,7 @@ class RePairDataStructure implements ToUnifiedRuleset {
             if(symbol instanceof SymbolPair pair) {
                 return new UnifiedNonTerminal(pair.getId());
             } else {
-                return new UnifiedTerminal((char) ((Terminal) symbol).getValue());
+                return UnifiedTerminal.of((char) ((Terminal) symbol).getValue());
             }
         };
 
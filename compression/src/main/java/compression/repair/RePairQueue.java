@@ -1,25 +1,96 @@
 package compression.repair;
 
-import java.util.*;
-
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * The priority queue of the pairs in the sequence, ordered by their frequency.
+ * <p>
+ * A pair is identified by the {@link Symbol#symbolId() ids} of its two symbols packed into a long, which is mapped to
+ * the handle of the pair's entry by an open addressing hash table. The frequency, the first and last occurrence and
+ * the links of the bucket lists of each entry are stored in parallel int arrays, so looking up a pair and updating
+ * its frequency does not allocate any objects. A {@link SymbolPair} is only created for a pair when it is polled.
+ */
 class RePairQueue {
 
+    /**
+     * The handle, which represents the absence of a pair
+     */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
     private int size;
-    private HashMap<SymbolPair, PairElement> pairs;
-    private final List<PairElement> queues;
+
+    /**
+     * Maps the key of every pair, see {@link #key(Symbol, Symbol)}, to the handle of its entry
+     */
+    private final Long2IntOpenHashMap pairs;
+
+    /**
+     * The first entry of the list of each frequency. The list at index 0 contains all pairs whose frequency is larger
+     * than {@link #maxFrequency()}
+     */
+    private final int[] queues;
+
+    private Symbol[] lefts;
+    private Symbol[] rights;
+    private int[] frequencies;
+    private int[] firstOccurrences;
+    private int[] lastOccurrences;
+
+    /**
+     * The previous entry in the list of each entry, or {@link #NONE} if the entry is the first one or in no list
+     */
+    private int[] prevs;
+
+    /**
+     * The next entry in the list of each entry. For unused entries, this is the next entry of the free list
+     */
+    private int[] nexts;
+
+    /**
+     * The amount of entries which have been used so far
+     */
+    private int entryCount;
+
+    /**
+     * The first entry of the list of entries which have been released by {@link #poll()}
+     */
+    private int free = NONE;
 
     /**
      * Creates a new empty queue with a size according to the given length of the sequence this queue is for.
-     * The {@link #queues} list has the size ceil(sqrt(<code>sequenceLength</code>))
+     * The {@link #queues} array has the size ceil(sqrt(<code>sequenceLength</code>))
      * @param sequenceLength The length of the String for which the queue is created
      */
     public RePairQueue(int sequenceLength) {
         final int len = (int) Math.ceil(Math.sqrt(sequenceLength));
-        queues = new ArrayList<>(len);
-        for (int i = 0; i < len; i++) {
-            queues.add(null);
-        }
-        pairs = new HashMap<>();
+        queues = new int[len];
+        Arrays.fill(queues, NONE);
+
+        pairs = new Long2IntOpenHashMap();
+        pairs.defaultReturnValue(NONE);
+
+        lefts = new Symbol[INITIAL_CAPACITY];
+        rights = new Symbol[INITIAL_CAPACITY];
+        frequencies = new int[INITIAL_CAPACITY];
+        firstOccurrences = new int[INITIAL_CAPACITY];
+        lastOccurrences = new int[INITIAL_CAPACITY];
+        prevs = new int[INITIAL_CAPACITY];
+        nexts = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Packs the ids of two symbols into the key of their pair
+     * @param left The left symbol
+     * @param right The right symbol
+     * @return The id of the left symbol in the upper and the id of the right symbol in the lower 32 bits
+     */
+    private static long key(Symbol left, Symbol right) {
+        return ((long) left.symbolId() << 32) | (right.symbolId() & 0xFFFFFFFFL);
     }
 
     /**
@@ -35,82 +106,137 @@ class RePairQueue {
      * @return The frequency
      */
     private int maxFrequency() {
-        return queues.size() - 1;
+        return queues.length - 1;
     }
 
     /**
-     * Adds a {@link SymbolPair} to the queue at the right place. If it exists already, its frequency is just updated
-     * @param pair The pair to add to the queue
+     * Creates an entry with a frequency of 0, which is in no list
+     * @return The handle of the entry
      */
-    public void add(SymbolPair pair) {
-
-        // If the pair is already in the queue, just increase the frequency
-        if(contains(pair)) {
-            updateFrequency(pair, 1);
-            return;
+    private int newEntry(Symbol left, Symbol right) {
+        final int entry;
+        if (free != NONE) {
+            entry = free;
+            free = nexts[entry];
+        } else {
+            if (entryCount == lefts.length) {
+                final int capacity = entryCount + (entryCount >> 1);
+                lefts = Arrays.copyOf(lefts, capacity);
+                rights = Arrays.copyOf(rights, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+                firstOccurrences = Arrays.copyOf(firstOccurrences, capacity);
+                lastOccurrences = Arrays.copyOf(lastOccurrences, capacity);
+                prevs = Arrays.copyOf(prevs, capacity);
+                nexts = Arrays.copyOf(nexts, capacity);
+            }
+            entry = entryCount++;
         }
+        lefts[entry] = left;
+        rights[entry] = right;
+        frequencies[entry] = 0;
+        firstOccurrences[entry] = -1;
+        lastOccurrences[entry] = -1;
+        prevs[entry] = NONE;
+        nexts[entry] = NONE;
+        return entry;
+    }
+
+    /**
+     * Adds an occurrence of a pair to the queue. If the pair exists already, its frequency is just increased by one
+     * @param left The left symbol of the pair
+     * @param right The right symbol of the pair
+     * @return The handle of the pair
+     */
+    public int add(Symbol left, Symbol right) {
+        final long key = key(left, right);
+        int entry = pairs.get(key);
 
         // Otherwise, insert it
-        PairElement element = new PairElement(pair);
-        pairs.put(pair, element);
-        updateFrequency(pair, 0);
+        if (entry == NONE) {
+            entry = newEntry(left, right);
+            pairs.put(key, entry);
+        }
+        updateFrequency(entry, 1);
+        return entry;
+    }
+
+    /**
+     * Gets the handle of a pair
+     * @param left The left symbol of the pair
+     * @param right The right symbol of the pair
+     * @return The handle of the pair, or {@link #NONE} if the pair is not in the queue
+     */
+    public int find(Symbol left, Symbol right) {
+        return pairs.get(key(left, right));
+    }
+
+    public boolean contains(Symbol left, Symbol right) {
+        return find(left, right) != NONE;
     }
 
     /**
-     * If empty, inserts the element into the index in {@link #queues}, otherwise appends it to the linked list at the given index
+     * If empty, inserts the entry into the index in {@link #queues}, otherwise prepends it to the linked list at the given index
      * @param index The index to insert into
-     * @param element The element to insert
+     * @param entry The entry to insert
      */
-    private void insertInto(int index, PairElement element) {
-        if (queues.get(index) != null) {
-            var oldElem = queues.get(index);
-            element.connectNext(oldElem);
+    private void insertInto(int index, int entry) {
+        final int oldHead = queues[index];
+        nexts[entry] = oldHead;
+        if (oldHead != NONE) {
+            prevs[oldHead] = entry;
         }
-        queues.set(index, element);
+        queues[index] = entry;
     }
 
-    public boolean contains(SymbolPair pair) {
-        return pairs.containsKey(pair);
+    /**
+     * Increases or decreases the frequency of a given pair and updates its position in the queue
+     * @param left The left symbol of the pair
+     * @param right The right symbol of the pair
+     * @param amount The amount *by* which the frequency should change
+     */
+    public void updateFrequency(Symbol left, Symbol right, int amount) {
+        final int entry = find(left, right);
+        if (entry != NONE) {
+            updateFrequency(entry, amount);
+        }
     }
 
     /**
-     * Increases or decreses the frequency of a given pair and updates its position in the queue
-     * @param pair The {@link SymbolPair} to be updated
-     * @param amount The amount *by* witch the frequency should change
+     * Increases or decreases the frequency of a given pair and updates its position in the queue
+     * @param entry The handle of the pair
+     * @param amount The amount *by* which the frequency should change
      */
-    public void updateFrequency(SymbolPair pair, int amount) {
-        if(!contains(pair)) return;
-        var element = pairs.get(pair);
-
-        if(element.isHead()) {
-            var next = element.detachNext();
-            int index = indexForFrequency(element.content.frequency());
-            // if prevents the queue at given index to be overwritten, if 'element' was not inserted into the queue
-            // This happens for elements with initial frequency <= 1, as they are not put into the queue
-            if(element == queues.get(index)) {
-                queues.set(index, next);
+    private void updateFrequency(int entry, int amount) {
+        final int prev = prevs[entry];
+        final int next = nexts[entry];
+        if (prev == NONE) {
+            // Only pairs with a frequency > 1 are in a list
+            final int index = indexForFrequency(frequencies[entry]);
+            if (queues[index] == entry) {
+                queues[index] = next;
             }
-        } else if (element.isTail()) {
-            element.detachPrev();
         } else {
-            var next = element.detachNext();
-            var prev = element.detachPrev();
-            prev.connectNext(next);
+            nexts[prev] = next;
         }
+        if (next != NONE) {
+            prevs[next] = prev;
+        }
+        prevs[entry] = NONE;
+        nexts[entry] = NONE;
 
-        // Did the pair fulfil the the requirements for being inserted before?
-        var wasInserted = element.content.frequency() > 1;
+        // Did the pair fulfil the requirements for being inserted before?
+        final boolean wasInserted = frequencies[entry] > 1;
 
-        element.content.modifyFrequency(amount);
+        frequencies[entry] += amount;
 
         // Does it now?
-        var shouldBeInserted = element.content.frequency() > 1;
+        final boolean shouldBeInserted = frequencies[entry] > 1;
 
-        if(shouldBeInserted) {
-            insertInto(indexForFrequency(element.content.frequency()), element);
+        if (shouldBeInserted) {
+            insertInto(indexForFrequency(frequencies[entry]), entry);
             // If it was not previously inserted, and is now inserted, then the queue grows by 1
-            if(!wasInserted) size++;
-        } else if(wasInserted) {
+            if (!wasInserted) size++;
+        } else if (wasInserted) {
             // If it was inserted and should not be inserted again, then the queue shrinks by 1
             size--;
         }
@@ -127,24 +253,58 @@ class RePairQueue {
         return frequency > maxFrequency() ? 0 : frequency;
     }
 
+    public int frequency(int entry) {
+        return frequencies[entry];
+    }
+
+    public int firstOccurrence(int entry) {
+        return firstOccurrences[entry];
+    }
+
+    public void setFirstOccurrence(int entry, int firstOccurrence) {
+        firstOccurrences[entry] = firstOccurrence;
+    }
+
+    public int lastOccurrence(int entry) {
+        return lastOccurrences[entry];
+    }
+
+    public void setLastOccurrence(int entry, int lastOccurrence) {
+        lastOccurrences[entry] = lastOccurrence;
+    }
+
     /**
-     * Removes the first element from a given index and returns the content or null if it is empty.
-     * @param index The index to remove from
-     * @return The content of the removed element, or null if it was empty
+     * Marks the indices of the sequence, which are the first or last occurrence of a pair
+     * @param marks The marks of every index of the sequence, which are set to true for the occurrences
      */
-    private SymbolPair removeFirstFrom(int index) {
-        if(queues.get(index) == null) {
-            return null;
-        } else {
-            var element = queues.get(index);
-            var next = element.detachNext();
-            queues.set(index, next);
-            return element.content;
+    public void markOccurrences(boolean[] marks) {
+        for (int entry = 0; entry < entryCount; entry++) {
+            // Released entries have no symbols
+            if (lefts[entry] == null) continue;
+            if (firstOccurrences[entry] != -1) {
+                marks[firstOccurrences[entry]] = true;
+            }
+            if (lastOccurrences[entry] != -1) {
+                marks[lastOccurrences[entry]] = true;
+            }
         }
     }
 
-    private boolean indexEmpty(int index) {
-        return queues.get(index) == null;
+    /**
+     * Moves the first and last occurrences of all pairs to the indices of the compacted sequence
+     * @param newIndices The new index of every old index of the sequence, or -1 if the old index was removed
+     */
+    public void remapOccurrences(int[] newIndices) {
+        for (int entry = 0; entry < entryCount; entry++) {
+            // Released entries have no symbols
+            if (lefts[entry] == null) continue;
+            if (firstOccurrences[entry] != -1) {
+                firstOccurrences[entry] = newIndices[firstOccurrences[entry]];
+            }
+            if (lastOccurrences[entry] != -1) {
+                lastOccurrences[entry] = newIndices[lastOccurrences[entry]];
+            }
+        }
     }
 
     /**
@@ -155,25 +315,11 @@ class RePairQueue {
         return size == 0;
     }
 
-    public SymbolPair getInstance(Symbol left, Symbol right) {
-        SymbolPair pair = new SymbolPair(left, right);
-        if(pairs.containsKey(pair)) {
-            return pairs.get(pair).content;
-        }
-        return null;
-    }
-
-    public SymbolPair getInstance(SymbolPair pair) {
-        if(pairs.containsKey(pair)) {
-            return pairs.get(pair).content;
-        }
-        return null;
-    }
-
     /**
      * Gets one of the elements which have the largest amount of occurences. Note that this is approximative to an extent,
      * since all pairs which a frequency of greater than {@link #maxFrequency()} reside in the same list with no special ordering.
      * If there are no such pairs, then the returned symbol pair is definitely one of the pairs with the highest frequency.
+     * The pair is removed from the queue. Its frequency and occurrences are copied to the returned {@link SymbolPair}.
      * This method returns null if the queue is empty
      * @return The approximative most frequent pair, or null if the queue is empty
      */
@@ -181,111 +327,52 @@ class RePairQueue {
         if (isEmpty()) {
             return null;
         }
-        SymbolPair current = null;
 
-        if(!indexEmpty(0)) current = removeFirstFrom(0);
-
-        for (int i = queues.size() - 1; i >= 0 && current == null; i--) {
-            current = removeFirstFrom(i);
+        int index = 0;
+        if (queues[0] == NONE) {
+            index = queues.length - 1;
+            while (queues[index] == NONE) {
+                index--;
+            }
         }
-        size--;
-        pairs.remove(current);
 
-        return current;
-    }
-
-    public SymbolPair peek() {
-        if (isEmpty()) {
-            return null;
+        final int entry = queues[index];
+        final int next = nexts[entry];
+        queues[index] = next;
+        if (next != NONE) {
+            prevs[next] = NONE;
         }
-        SymbolPair current = null;
+        size--;
 
-        if(!indexEmpty(0)) current = queues.get(0).content;
+        final var pair = new SymbolPair(lefts[entry], rights[entry]);
+        pair.setFrequency(frequencies[entry]);
+        pair.setFirstOccurrence(firstOccurrences[entry]);
+        pair.setLastOccurrence(lastOccurrences[entry]);
 
-        for (int i = queues.size() - 1; i >= 0 && current == null; i--) {
-            current = Optional.of(queues.get(i)).map(elem -> elem.content).orElse(null);
-        }
+        pairs.remove(key(lefts[entry], rights[entry]));
+        lefts[entry] = null;
+        rights[entry] = null;
+        nexts[entry] = free;
+        free = entry;
 
-        return current;
+        return pair;
     }
 
     @Override
     public String toString() {
         var sj = new StringJoiner(",\n\t", "[\n\t", "\n]");
-        for (int i = 0; i < queues.size(); i++) {
+        for (int i = 0; i < queues.length; i++) {
             var row = new StringJoiner(", ", "[", "]");
-            PairElement elem = queues.get(i);
 
-            while(elem != null) {
-                row.add(elem.content.toString());
-                elem = elem.next;
+            for (int entry = queues[i]; entry != NONE; entry = nexts[entry]) {
+                row.add(new StringJoiner(", ", "[", "]")
+                        .add(lefts[entry].toStringInternal(true))
+                        .add(rights[entry].toStringInternal(true))
+                        .toString());
             }
 
             sj.add((i > 0 ? i : ">" + maxFrequency()) + ": " + row.toString());
         }
         return sj.toString();
     }
-
-    /**
-     * A linked-list element for the separate linked-lists in the queue
-     */
-    private static class PairElement {
-        PairElement prev;
-        PairElement next;
-        SymbolPair content;
-
-        public PairElement(SymbolPair content) {
-            this.content = content;
-        }
-
-        public boolean isHead() {
-            return prev == null;
-        }
-
-        public boolean isTail() {
-            return next == null;
-        }
-
-        public void connectNext(PairElement elem) {
-            next = elem;
-            if (elem == null) return;
-            elem.prev = this;
-        }
-
-        public void connectPrev(PairElement elem) {
-            prev = elem;
-            if (elem == null) return;
-            elem.next = this;
-        }
-
-        public PairElement detachNext() {
-            var temp = next;
-            next = null;
-            if(temp != null){
-                temp.prev = null;
-                return temp;
-            } else {
-                return null;
-            }
-        }
-
-        public PairElement detachPrev() {
-            var temp = prev;
-            prev = null;
-            if(temp != null){
-                temp.next = null;
-                return temp;
-            } else {
-                return null;
-            }
-        }
-
-        public void append(PairElement pair) {
-            if (next != null) {
-                next.append(pair);
-            } else {
-                connectNext(pair);
-            }
-        }
-    }
 }
@@ -17,4 +17,11 @@ abstract class Symbol {
     }
 
     public abstract Set<SymbolPair> getAllRules();
+
+    /**
+     * Gets the number which identifies this symbol in the sequence. Terminals are identified by their value,
+     * which is not negative, and non-terminals by the bitwise complement of their id
+     * @return The number
+     */
+    public abstract int symbolId();
 }
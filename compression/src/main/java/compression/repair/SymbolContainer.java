@@ -25,6 +25,10 @@ class SymbolContainer {
         return index;
     }
 
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
     public boolean hasPrev() {
         return prev != null;
     }
@@ -101,6 +101,15 @@ class SymbolPair extends Symbol implements Cloneable {
         return leftSet;
     }
 
+    /**
+     * Gets the complement of the id of this pair. The pair must have been {@link #mark(int) marked}
+     * @return The number identifying this pair
+     */
+    @Override
+    public int symbolId() {
+        return ~getId();
+    }
+
     @Override
     public boolean isPair() {
         return true;
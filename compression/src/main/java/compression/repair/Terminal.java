@@ -27,6 +27,11 @@ class Terminal extends Symbol implements Cloneable {
         return value;
     }
 
+    @Override
+    public int symbolId() {
+        return value;
+    }
+
     @Override
     public Set<SymbolPair> getAllRules() {
         return new HashSet<>();
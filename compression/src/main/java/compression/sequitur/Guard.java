@@ -7,13 +7,15 @@ class Guard extends Symbol {
 
     public Guard(Rule rule) {
         this.rule = rule;
+        // Guards must not compare equal to any terminal, including the NUL character
+        this.value = -1;
         this.prev = this;
         this.next = this;
     }
 
     @Override
-    public void cleanUp() {
-        join(prev, next);
+    public void cleanUp(SequiturContext context) {
+        join(context, prev, next);
     }
 
     @Override
@@ -22,12 +24,12 @@ class Guard extends Symbol {
     }
 
     @Override
-    protected void deleteDigram() {
+    protected void deleteDigram(SequiturContext context) {
         // Do nothing
     }
 
     @Override
-    public boolean check() {
+    public boolean check(SequiturContext context) {
         return false;
     }
 
@@ -22,9 +22,9 @@ class NonTerminal extends Symbol implements Cloneable {
     }
 
     @Override
-    public void cleanUp() {
-        join(prev, next);
-        deleteDigram();
+    public void cleanUp(SequiturContext context) {
+        join(context, prev, next);
+        deleteDigram(context);
         rule.decrementCount();
     }
 
@@ -33,11 +33,13 @@ class NonTerminal extends Symbol implements Cloneable {
         return true;
     }
 
-    public void expand() {
-        join(prev, rule.first());
-        join(rule.last(), next);
+    public void expand(SequiturContext context) {
+        // The digram which starts with this symbol disappears, and no other symbol would remove it from the index
+        deleteDigram(context);
+        join(context, prev, rule.first());
+        join(context, rule.last(), next);
 
-        DIGRAMS.put(rule.last(), rule.last());
+        context.putDigram(rule.last());
 
         rule.getGuard().setRule(null);
         rule.setGuard(null);
@@ -12,8 +12,6 @@ import java.util.stream.Collectors;
 
 class Rule implements ToUnifiedRuleset {
 
-    private static int NUM_RULES;
-
     private Guard guard;
 
     /**
@@ -27,9 +25,17 @@ class Rule implements ToUnifiedRuleset {
      */
     private int count;
 
-    public Rule() {
-        this.number = NUM_RULES;
-        NUM_RULES++;
+    /**
+     * Whether this rule has been passed to the listener of a {@link StreamingSequitur}
+     */
+    private boolean emitted;
+
+    /**
+     * Creates a new empty rule
+     * @param context The context of the compression this rule belongs to, which assigns the rule's number
+     */
+    public Rule(SequiturContext context) {
+        this.number = context.nextRuleNumber();
         guard = new Guard(this);
         this.count = 0;
     }
@@ -62,14 +68,18 @@ class Rule implements ToUnifiedRuleset {
         return guard;
     }
 
-    public static void resetNumRules() {
-        NUM_RULES = 0;
-    }
-
     public int count() {
         return count;
     }
 
+    public boolean isEmitted() {
+        return emitted;
+    }
+
+    public void setEmitted() {
+        emitted = true;
+    }
+
     public String getRules() {
         var ruleMap = new HashMap<Integer, String>();
         var queue = new ArrayDeque<Rule>();
@@ -164,7 +174,7 @@ class Rule implements ToUnifiedRuleset {
 
         final Function<Symbol, UnifiedSymbol> unify = symbol -> symbol instanceof NonTerminal nonTerminal ?
                 new UnifiedNonTerminal(nonTerminal.getRule().number) :
-                new UnifiedTerminal((char) symbol.value);
+                UnifiedTerminal.of((char) symbol.value);
 
         // Contains all the rules that have been added to the queue already
         Set<Integer> processed = new HashSet<>();
@@ -2,27 +2,34 @@ package compression.sequitur;
 
 import compression.unified.interfaces.ToUnifiedRuleset;
 import compression.unified.interfaces.UnifiedCompressor;
-
-import java.util.HashMap;
+import compression.utils.ByteSequence;
 
 public class Sequitur implements UnifiedCompressor {
 
     @Override
     public ToUnifiedRuleset compress(String s) {
-        reset();
+        final var context = new SequiturContext();
 
-        Rule firstRule = new Rule();
+        Rule firstRule = new Rule(context);
         for(char c : s.toCharArray()) {
-            firstRule.last().insertAfter(new Terminal(c));
-            firstRule.last().prev.check();
+            firstRule.last().insertAfter(context, new Terminal(c));
+            firstRule.last().prev.check(context);
         }
 
         return firstRule;
     }
 
-    private static void reset() {
-        Rule.resetNumRules();
-        Symbol.DIGRAMS = new HashMap<>();
+    @Override
+    public ToUnifiedRuleset compress(ByteSequence bytes) {
+        final var context = new SequiturContext();
+
+        Rule firstRule = new Rule(context);
+        for(int i = 0; i < bytes.byteLength(); i++) {
+            firstRule.last().insertAfter(context, new Terminal(bytes.byteAt(i)));
+            firstRule.last().prev.check(context);
+        }
+
+        return firstRule;
     }
 
     @Override
@@ -0,0 +1,70 @@
+package compression.sequitur;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * The mutable state of a single run of {@link Sequitur}, which consists of the index of all digrams in the grammar
+ * and the counter for the rule numbers. A new context is created for every input, so independent runs share no state
+ * and can be executed concurrently.
+ * <p>
+ * The digram index is an open addressing hash table, whose keys are the values of the digram's two symbols packed into a long.
+ * So a lookup neither calls {@link Symbol#hashCode()} and {@link Symbol#equals(Object)} nor allocates an entry object.
+ */
+final class SequiturContext {
+
+    /**
+     * The digrams of the grammar. A digram is represented by its first symbol, and equal digrams are mapped to
+     * the first symbol of the occurrence which has been indexed
+     */
+    private final Long2ObjectOpenHashMap<Symbol> digrams = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * The amount of rules created so far
+     */
+    private int ruleCount;
+
+    /**
+     * Gets the number for a new rule
+     * @return The number, which is unique within this context
+     */
+    int nextRuleNumber() {
+        return ruleCount++;
+    }
+
+    /**
+     * Indexes an occurrence of a digram, if the digram has not been indexed yet
+     * @param first The first symbol of the digram
+     * @return The first symbol of the indexed occurrence of the same digram, or null if the given occurrence has been indexed
+     */
+    Symbol putDigramIfAbsent(Symbol first) {
+        return digrams.putIfAbsent(key(first), first);
+    }
+
+    /**
+     * Indexes an occurrence of a digram, replacing the previously indexed occurrence
+     * @param first The first symbol of the digram
+     */
+    void putDigram(Symbol first) {
+        digrams.put(key(first), first);
+    }
+
+    /**
+     * Removes a digram from the index, if the given occurrence is the indexed one
+     * @param first The first symbol of the digram
+     */
+    void removeDigram(Symbol first) {
+        final long key = key(first);
+        if (digrams.get(key) == first) {
+            digrams.remove(key);
+        }
+    }
+
+    /**
+     * Packs the values of a digram into the key of {@link #digrams}
+     * @param first The first symbol of the digram
+     * @return The value of the first symbol in the upper and the value of the second symbol in the lower 32 bits
+     */
+    private static long key(Symbol first) {
+        return ((long) first.value << 32) | (first.next.value & 0xFFFFFFFFL);
+    }
+}
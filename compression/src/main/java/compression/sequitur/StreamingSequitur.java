@@ -0,0 +1,353 @@
+package compression.sequitur;
+
+import compression.unified.GrammarCollector;
+import compression.unified.interfaces.GrammarListener;
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedCompressor;
+import compression.utils.ByteSequence;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * Sequitur on input which arrives continuously. The symbols are appended to the grammar one at a time like by
+ * {@link Sequitur}, but only the last symbols of the start rule, the window, are kept. The prefix of the start rule
+ * before the window is passed to a {@link GrammarListener} together with the rules it refers to, and is then removed
+ * from the grammar, so the memory depends on the size of the window instead of the length of the input.
+ * <p>
+ * A symbol which has been passed to the listener is not part of any digram anymore, and a rule which is only referred
+ * to by such symbols is removed together with its digrams. So repetitions are only found within the window and the rules
+ * it refers to, and the grammar is larger than the one of {@link Sequitur}.
+ * <p>
+ * Passing a rule to the listener does not prevent Sequitur from changing its right side later, since neither replacing a
+ * digram by a rule nor inlining a rule changes the text a rule expands to. Every rule is passed once, with its right side
+ * at that time, and the changes afterwards are not passed.
+ */
+public class StreamingSequitur implements UnifiedCompressor {
+
+    /**
+     * The system property, which sets the window size in symbols of instances created without an explicit window size.
+     * By default, the window has {@link #DEFAULT_WINDOW} symbols
+     */
+    public static final String WINDOW_PROPERTY = "compression.sequitur.window";
+
+    public static final int DEFAULT_WINDOW = 1 << 16;
+
+    /**
+     * The size of the buffer used to read from an {@link InputStream} or a {@link ReadableByteChannel}
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The amount of symbols of the start rule which are kept in the grammar
+     */
+    private final int window;
+
+    /**
+     * Creates a new instance with the window size given by {@link #WINDOW_PROPERTY}
+     */
+    public StreamingSequitur() {
+        this(Integer.getInteger(WINDOW_PROPERTY, DEFAULT_WINDOW));
+    }
+
+    /**
+     * Creates a new instance with a given window size
+     * @param window The amount of symbols at the end of the start rule which are kept in the grammar
+     * @throws IllegalArgumentException If the window size is less than 1
+     */
+    public StreamingSequitur(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1, but was " + window);
+        }
+        this.window = window;
+    }
+
+    /**
+     * Opens a stream, whose bytes are appended to the grammar. Every byte is a terminal with the same unsigned value.
+     * @param listener The listener which receives the grammar
+     * @return The stream
+     */
+    public SequiturOutputStream open(GrammarListener listener) {
+        return new SequiturOutputStream(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Compresses all bytes of a stream. The stream is not closed
+     * @param in The stream
+     * @param listener The listener which receives the grammar
+     * @throws IOException If reading the stream or the listener fails
+     */
+    public void compress(InputStream in, GrammarListener listener) throws IOException {
+        try (var out = open(listener)) {
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * Compresses all bytes of a channel. The channel is not closed
+     * @param channel The channel, which should be in blocking mode
+     * @param listener The listener which receives the grammar
+     * @throws IOException If reading the channel or the listener fails
+     */
+    public void compress(ReadableByteChannel channel, GrammarListener listener) throws IOException {
+        final var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (var out = open(listener)) {
+            while (channel.read(buffer) != -1) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(String s) {
+        final var collector = new GrammarCollector();
+        try (var out = open(collector)) {
+            for (int i = 0; i < s.length(); i++) {
+                out.append(s.charAt(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return collector.toUnified();
+    }
+
+    @Override
+    public ToUnifiedRuleset compress(ByteSequence bytes) {
+        final var collector = new GrammarCollector();
+        try (var out = open(collector)) {
+            for (int i = 0; i < bytes.byteLength(); i++) {
+                out.append(bytes.byteAt(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return collector.toUnified();
+    }
+
+    /**
+     * Compresses the content of a file, which is read as a stream instead of being memory-mapped, so files larger than
+     * {@link ByteSequence#MAX_LENGTH} bytes can be compressed as well
+     * @param file The file to compress
+     * @return The grammar
+     * @throws IOException If the file could not be read
+     */
+    @Override
+    public ToUnifiedRuleset compress(Path file) throws IOException {
+        final var collector = new GrammarCollector();
+        try (var channel = Files.newByteChannel(file)) {
+            compress(channel, collector);
+        }
+        return collector.toUnified();
+    }
+
+    @Override
+    public String name() {
+        return StreamingSequitur.class.getSimpleName();
+    }
+
+    /**
+     * A stream, whose bytes are appended to the grammar. After every {@link #window} symbols, and on {@link #flush()},
+     * the start rule is shortened to the window, so the start rule never has more than twice as many symbols.
+     * Closing the stream passes the rest of the grammar to the listener.
+     */
+    public final class SequiturOutputStream extends OutputStream {
+
+        private final SequiturContext context = new SequiturContext();
+
+        private final Rule firstRule = new Rule(context);
+
+        private final GrammarListener listener;
+
+        /**
+         * The top level symbols which are passed to the listener next
+         */
+        private final IntArrayList topLevel = new IntArrayList();
+
+        /**
+         * The right side of the rule which is passed to the listener next
+         */
+        private final IntArrayList symbols = new IntArrayList();
+
+        /**
+         * The rules whose right sides are passed to the listener or removed from the grammar
+         */
+        private final ArrayDeque<Rule> stack = new ArrayDeque<>();
+
+        /**
+         * The amount of symbols appended since the start rule has been shortened to the window the last time
+         */
+        private int appended;
+
+        private boolean closed;
+
+        private SequiturOutputStream(GrammarListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            append(b & 0xFF);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            removePrefix(window);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                removePrefix(0);
+                closed = true;
+            }
+        }
+
+        /**
+         * Appends a terminal to the grammar
+         * @param value The value of the terminal
+         * @throws IOException If the stream is closed or the listener fails
+         */
+        private void append(int value) throws IOException {
+            ensureOpen();
+            firstRule.last().insertAfter(context, new Terminal(value));
+            firstRule.last().prev.check(context);
+
+            if (++appended == window) {
+                removePrefix(window);
+            }
+        }
+
+        /**
+         * Passes the start rule except for its last symbols to the listener and removes it from the grammar
+         * @param keep The amount of symbols at the end of the start rule which are kept
+         * @throws IOException If the listener fails
+         */
+        private void removePrefix(int keep) throws IOException {
+            appended = 0;
+            final Guard guard = firstRule.getGuard();
+
+            // The first symbol which is kept
+            Symbol end = guard;
+            for (int i = 0; i < keep; i++) {
+                end = end.prev;
+                if (end == guard) {
+                    return;
+                }
+            }
+            if (end.prev == guard) {
+                return;
+            }
+
+            for (Symbol symbol = guard.next; symbol != end; symbol = symbol.next) {
+                if (symbol instanceof NonTerminal nonTerminal) {
+                    emit(nonTerminal.getRule());
+                }
+                topLevel.add(encode(symbol));
+            }
+            listener.topLevel(topLevel.elements(), topLevel.size());
+            topLevel.clear();
+
+            for (Symbol symbol = guard.next; symbol != end; symbol = symbol.next) {
+                if (!symbol.next.isGuard()) {
+                    context.removeDigram(symbol);
+                }
+                if (symbol instanceof NonTerminal nonTerminal) {
+                    release(nonTerminal.getRule());
+                }
+            }
+            guard.next = end;
+            end.prev = guard;
+        }
+
+        /**
+         * Passes a rule to the listener, if it has not been passed yet. The rules it refers to are passed first
+         * @param rule The rule
+         * @throws IOException If the listener fails
+         */
+        private void emit(Rule rule) throws IOException {
+            if (rule.isEmitted()) {
+                return;
+            }
+
+            stack.push(rule);
+            while (!stack.isEmpty()) {
+                final Rule current = stack.peek();
+                Rule child = null;
+                for (Symbol symbol = current.first(); symbol != current.getGuard(); symbol = symbol.next) {
+                    if (symbol instanceof NonTerminal nonTerminal && !nonTerminal.getRule().isEmitted()) {
+                        child = nonTerminal.getRule();
+                        break;
+                    }
+                }
+
+                if (child != null) {
+                    stack.push(child);
+                    continue;
+                }
+
+                for (Symbol symbol = current.first(); symbol != current.getGuard(); symbol = symbol.next) {
+                    symbols.add(encode(symbol));
+                }
+                listener.rule(current.getNumber(), symbols.elements(), symbols.size());
+                symbols.clear();
+                current.setEmitted();
+                stack.pop();
+            }
+        }
+
+        /**
+         * Removes a reference to a rule, which has been passed to the listener. If it was the last reference,
+         * the rule's digrams are removed from the grammar and the rules it refers to are released as well
+         * @param rule The rule
+         */
+        private void release(Rule rule) {
+            rule.decrementCount();
+            if (rule.count() > 0) {
+                return;
+            }
+
+            stack.push(rule);
+            while (!stack.isEmpty()) {
+                final Rule current = stack.pop();
+                for (Symbol symbol = current.first(); symbol != current.getGuard(); symbol = symbol.next) {
+                    if (!symbol.next.isGuard()) {
+                        context.removeDigram(symbol);
+                    }
+                    if (symbol instanceof NonTerminal nonTerminal) {
+                        final Rule child = nonTerminal.getRule();
+                        child.decrementCount();
+                        if (child.count() == 0) {
+                            stack.push(child);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+
+    /**
+     * Encodes a symbol like {@link GrammarListener}
+     * @param symbol The symbol
+     * @return The id of the rule of a nonterminal, or the complement of the value of a terminal
+     */
+    private static int encode(Symbol symbol) {
+        return symbol instanceof NonTerminal nonTerminal ? nonTerminal.getRule().getNumber() : ~symbol.value;
+    }
+}
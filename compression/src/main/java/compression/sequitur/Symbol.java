@@ -1,7 +1,5 @@
 package compression.sequitur;
 
-import java.util.HashMap;
-
 abstract class Symbol {
 
     protected static final int NUM_TERMINALS = 100000;
@@ -9,19 +7,17 @@ abstract class Symbol {
     protected Symbol next, prev;
     protected int value;
 
-    protected static HashMap<Symbol, Symbol> DIGRAMS = new HashMap<>();
-
-    public static void join(Symbol left, Symbol right) {
+    public static void join(SequiturContext context, Symbol left, Symbol right) {
 
         if (left.next != null) {
-            left.deleteDigram();
+            left.deleteDigram(context);
 
             if (right.prev != null && right.next != null && right.value == right.prev.value && right.value == right.next.value) {
-                DIGRAMS.put(right, right);
+                context.putDigram(right);
             }
 
             if (left.prev != null && left.value == left.prev.value && left.value == left.next.value) {
-                DIGRAMS.put(left.prev, left.prev);
+                context.putDigram(left.prev);
             }
         }
 
@@ -29,21 +25,17 @@ abstract class Symbol {
         right.prev = left;
     }
 
-    public abstract void cleanUp();
+    public abstract void cleanUp(SequiturContext context);
 
-    public void insertAfter(Symbol toInsert) {
-        join(toInsert, next);
-        join(this, toInsert);
+    public void insertAfter(SequiturContext context, Symbol toInsert) {
+        join(context, toInsert, next);
+        join(context, this, toInsert);
     }
 
-    protected void deleteDigram() {
+    protected void deleteDigram(SequiturContext context) {
         if (next.isGuard()) return;
 
-        var dummy = DIGRAMS.get(this);
-
-        if (dummy == this) {
-            DIGRAMS.remove(this);
-        }
+        context.removeDigram(this);
     }
 
     public boolean isGuard() {
@@ -58,35 +50,34 @@ abstract class Symbol {
         return false;
     }
 
-    public boolean check() {
+    public boolean check(SequiturContext context) {
         if(next.isGuard()) {
             return false;
         }
 
-        if (!DIGRAMS.containsKey(this)) {
-            DIGRAMS.put(this, this);
+        Symbol found = context.putDigramIfAbsent(this);
+
+        if (found == null) {
             return false;
         }
 
-        Symbol found = DIGRAMS.get(this);
-
         if(found.next != this) {
-            match(this, found);
+            match(context, this, found);
         }
 
         return true;
     }
 
-    public void substitute(Rule r) {
-        cleanUp();
-        next.cleanUp();
-        prev.insertAfter(new NonTerminal(r));
-        if(!prev.check()) {
-            prev.next.check();
+    public void substitute(SequiturContext context, Rule r) {
+        cleanUp(context);
+        next.cleanUp(context);
+        prev.insertAfter(context, new NonTerminal(r));
+        if(!prev.check(context)) {
+            prev.next.check(context);
         }
     }
 
-    private void match(Symbol newD, Symbol matching) {
+    private void match(SequiturContext context, Symbol newD, Symbol matching) {
         Rule r;
         Symbol first, second, dummy;
 
@@ -94,10 +85,10 @@ abstract class Symbol {
             // Reuse existing rule
 
             r = ((Guard) matching.prev).getRule();
-            newD.substitute(r);
+            newD.substitute(context, r);
         } else {
             // Create new rule
-            r = new Rule();
+            r = new Rule(context);
             try {
                 first = (Symbol) newD.clone();
                 second = (Symbol) newD.next.clone();
@@ -109,10 +100,10 @@ abstract class Symbol {
                 second.next = r.getGuard();
                 r.getGuard().prev = second;
 
-                matching.substitute(r);
-                newD.substitute(r);
+                matching.substitute(context, r);
+                newD.substitute(context, r);
 
-                DIGRAMS.put(first, first);
+                context.putDigram(first);
 
             } catch (CloneNotSupportedException e) {
                 e.printStackTrace();
@@ -120,7 +111,7 @@ abstract class Symbol {
 
         }
         if(r.first().isNonTerminal() && ((NonTerminal) r.first()).getRule().count() == 1) {
-            ((NonTerminal) r.first()).expand();
+            ((NonTerminal) r.first()).expand(context);
         }
 
     }
@@ -145,9 +136,4 @@ abstract class Symbol {
         code = code % (long) 2265539;
         return (int) code;
     }
-
-    public static void reset() {
-        DIGRAMS.clear();
-    }
-
 }
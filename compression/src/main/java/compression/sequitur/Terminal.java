@@ -9,9 +9,9 @@ class Terminal extends Symbol implements Cloneable {
     }
 
     @Override
-    public void cleanUp() {
-        join(prev, next);
-        deleteDigram();
+    public void cleanUp(SequiturContext context) {
+        join(context, prev, next);
+        deleteDigram(context);
     }
 
     @Override
@@ -0,0 +1,148 @@
+package compression.unified;
+
+import compression.unified.interfaces.ToUnifiedRuleset;
+import compression.unified.interfaces.UnifiedCompressor;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compresses many independent inputs concurrently with the same {@link UnifiedCompressor}.
+ * <p>
+ * The inputs are compressed on a pool with a fixed amount of worker threads, so at most that many inputs are in
+ * memory at the same time, apart from inputs which were passed in memory. Every result is turned into a
+ * {@link UnifiedRuleset} on the worker, so the intermediate data structures of the compressor can be collected as soon
+ * as the input has been compressed. The compressors keep no state between calls, so one instance is shared by all workers.
+ */
+public final class BatchCompressor implements AutoCloseable {
+
+    /**
+     * The system property, which sets the amount of worker threads of batch compressors created without an explicit
+     * parallelism. By default, there is one worker per available processor
+     */
+    public static final String PARALLELISM_PROPERTY = "compression.batch.parallelism";
+
+    private final UnifiedCompressor compressor;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new batch compressor with the parallelism given by {@link #PARALLELISM_PROPERTY}
+     * @param compressor The compressor used for all inputs
+     */
+    public BatchCompressor(UnifiedCompressor compressor) {
+        this(compressor, Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Creates a new batch compressor
+     * @param compressor The compressor used for all inputs
+     * @param parallelism The amount of inputs which are compressed at the same time
+     * @throws IllegalArgumentException If the parallelism is less than 1
+     */
+    public BatchCompressor(UnifiedCompressor compressor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, but was " + parallelism);
+        }
+        this.compressor = compressor;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Schedules the compression of a string
+     * @param s The string to compress
+     * @return The future of the compressed grammar
+     */
+    public CompletableFuture<UnifiedRuleset> submit(String s) {
+        return submit(compressor -> compressor.compress(s));
+    }
+
+    /**
+     * Schedules the compression of bytes
+     * @param bytes The bytes to compress. These must not be modified until the compression is done
+     * @return The future of the compressed grammar
+     */
+    public CompletableFuture<UnifiedRuleset> submit(byte[] bytes) {
+        return submit(compressor -> compressor.compress(bytes));
+    }
+
+    /**
+     * Schedules the compression of a file. The file is only mapped when a worker starts compressing it,
+     * see {@link UnifiedCompressor#compress(Path)}
+     * @param file The file to compress
+     * @return The future of the compressed grammar, which completes exceptionally with the {@link java.io.IOException}
+     *         if the file cannot be read
+     */
+    public CompletableFuture<UnifiedRuleset> submit(Path file) {
+        return submit(compressor -> compressor.compress(file));
+    }
+
+    /**
+     * Schedules the compression of several strings
+     * @param inputs The strings to compress
+     * @return The futures of the compressed grammars in the iteration order of the inputs
+     */
+    public List<CompletableFuture<UnifiedRuleset>> submitAll(Collection<String> inputs) {
+        final var futures = new ArrayList<CompletableFuture<UnifiedRuleset>>(inputs.size());
+        for (String input : inputs) {
+            futures.add(submit(input));
+        }
+        return futures;
+    }
+
+    /**
+     * Schedules the compression of several files
+     * @param files The files to compress
+     * @return The futures of the compressed grammars in the iteration order of the files
+     */
+    public List<CompletableFuture<UnifiedRuleset>> submitFiles(Collection<Path> files) {
+        final var futures = new ArrayList<CompletableFuture<UnifiedRuleset>>(files.size());
+        for (Path file : files) {
+            futures.add(submit(file));
+        }
+        return futures;
+    }
+
+    private CompletableFuture<UnifiedRuleset> submit(Task task) {
+        final var future = new CompletableFuture<UnifiedRuleset>();
+        pool.execute(() -> {
+            // The future has been cancelled while waiting for a worker
+            if (future.isDone()) return;
+            try {
+                future.complete(task.compress(compressor).toUnified());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the amount of inputs which are compressed at the same time
+     * @return The amount of worker threads
+     */
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Stops accepting new inputs, so submitting an input afterwards throws a {@link java.util.concurrent.RejectedExecutionException}.
+     * Inputs which have already been submitted are still compressed
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * The compression of a single input
+     */
+    @FunctionalInterface
+    private interface Task {
+        ToUnifiedRuleset compress(UnifiedCompressor compressor) throws Exception;
+    }
+}
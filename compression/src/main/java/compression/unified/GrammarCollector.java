@@ -0,0 +1,45 @@
+package compression.unified;
+
+import compression.unified.interfaces.GrammarListener;
+import compression.unified.interfaces.UnifiedSymbol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link GrammarListener} which collects the received grammar into a {@link UnifiedRuleset}
+ */
+public final class GrammarCollector implements GrammarListener {
+
+    private final UnifiedRuleset ruleset = new UnifiedRuleset();
+
+    private final List<UnifiedSymbol> topLevel = new ArrayList<>();
+
+    @Override
+    public void rule(int id, int[] symbols, int length) {
+        ruleset.putRule(id, unify(symbols, length));
+    }
+
+    @Override
+    public void topLevel(int[] symbols, int length) {
+        topLevel.addAll(unify(symbols, length));
+    }
+
+    private static List<UnifiedSymbol> unify(int[] symbols, int length) {
+        final var list = new ArrayList<UnifiedSymbol>(length);
+        for (int i = 0; i < length; i++) {
+            list.add(symbols[i] < 0 ? UnifiedTerminal.of((char) ~symbols[i]) : new UnifiedNonTerminal(symbols[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Gets the collected grammar
+     * @return The grammar, whose start rule consists of all top level symbols received so far
+     */
+    public UnifiedRuleset toUnified() {
+        ruleset.setTopLevelRuleId(0);
+        ruleset.putRule(0, topLevel);
+        return ruleset;
+    }
+}
@@ -3,10 +3,56 @@ package compression.unified;
 import compression.unified.interfaces.UnifiedSymbol;
 
 /**
- * A class representing a terminal character
+ * A class representing a terminal character.
+ * Terminals of byte-oriented input carry the unsigned byte value as their character, like ISO-8859-1 does.
  */
 public record UnifiedTerminal(char value) implements UnifiedSymbol {
 
+    /**
+     * Shared instances for all byte values, so byte-oriented grammars don't need one object per terminal
+     */
+    private static final UnifiedTerminal[] BYTE_TERMINALS = new UnifiedTerminal[256];
+
+    static {
+        for (int i = 0; i < BYTE_TERMINALS.length; i++) {
+            BYTE_TERMINALS[i] = new UnifiedTerminal((char) i);
+        }
+    }
+
+    /**
+     * Gets a terminal for the given character. For characters in the byte range, a shared instance is returned
+     * @param value The character
+     * @return The terminal
+     */
+    public static UnifiedTerminal of(char value) {
+        return value < BYTE_TERMINALS.length ? BYTE_TERMINALS[value] : new UnifiedTerminal(value);
+    }
+
+    /**
+     * Gets the shared terminal for the given byte
+     * @param value The byte, which is interpreted as unsigned
+     * @return The terminal
+     */
+    public static UnifiedTerminal ofByte(byte value) {
+        return BYTE_TERMINALS[value & 0xFF];
+    }
+
+    /**
+     * Checks whether this terminal represents a byte, i.e. whether its value is at most 255
+     * @return true, if this terminal can be converted with {@link #byteValue()} without loss, false otherwise
+     */
+    public boolean isByte() {
+        return value < BYTE_TERMINALS.length;
+    }
+
+    /**
+     * Gets the byte represented by this terminal
+     * @return The lower 8 bits of the value
+     */
+    public byte byteValue() {
+        return (byte) value;
+    }
+
     @Override
     public String toString() {
         return String.valueOf(value);
@@ -0,0 +1,31 @@
+package compression.unified.interfaces;
+
+import java.io.IOException;
+
+/**
+ * Receives a grammar piece by piece while it is built from a stream. A nonterminal is stored as the id of its rule,
+ * a terminal c is stored as ~c, which is negative, like in {@link compression.unified.io.GrammarDecoder.RuleConsumer}.
+ * <p>
+ * The start rule has the id 0, and its right side is the concatenation of all top level symbols in the order they are
+ * received. Every rule is received once and before the rules and top level symbols which refer to it.
+ * The arrays passed to the listener may be reused once the call returns.
+ */
+public interface GrammarListener {
+
+    /**
+     * Receives a new rule
+     * @param id The id of the rule, which is positive and unique within the grammar
+     * @param symbols The symbols of the rule's right side
+     * @param length The amount of symbols in the array that belong to this rule
+     * @throws IOException If the listener fails to process the rule
+     */
+    void rule(int id, int[] symbols, int length) throws IOException;
+
+    /**
+     * Receives the next top level symbols
+     * @param symbols The symbols, which follow the previously received top level symbols in the start rule
+     * @param length The amount of symbols in the array that belong to the start rule
+     * @throws IOException If the listener fails to process the symbols
+     */
+    void topLevel(int[] symbols, int length) throws IOException;
+}
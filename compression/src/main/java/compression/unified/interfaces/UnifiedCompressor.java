@@ -1,11 +1,11 @@
 package compression.unified.interfaces;
 
-import compression.areacomp.v4.RuleIntervalIndex;
 import compression.unified.UnifiedRuleset;
+import compression.unified.io.EntropyEncoder;
+import compression.utils.ByteSequence;
 
 import java.io.IOException;
 import java.io.PrintStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -30,6 +30,44 @@ public interface UnifiedCompressor {
      */
     ToUnifiedRuleset compress(String s);
 
+    /**
+     * Compresses the bytes and generates a Grammar as a result.
+     * Every byte is a terminal with the same unsigned value, so the result is the same as for the string
+     * which results from decoding the bytes as ISO-8859-1.
+     * @param bytes The bytes to compress
+     * @return A Grammar, that can be represented as a {@link UnifiedRuleset}
+     */
+    default ToUnifiedRuleset compress(byte[] bytes) {
+        return compress(new ByteSequence(bytes));
+    }
+
+    /**
+     * Compresses the bytes of a {@link ByteSequence} and generates a Grammar as a result.
+     * Every byte is a terminal with the same unsigned value, so the result is the same as for the string
+     * which results from decoding the bytes as ISO-8859-1.
+     * By default this decodes the bytes into a string. Compressors that can work on the bytes directly should override this.
+     * @param bytes The bytes to compress
+     * @return A Grammar, that can be represented as a {@link UnifiedRuleset}
+     */
+    default ToUnifiedRuleset compress(ByteSequence bytes) {
+        return compress(bytes.toString());
+    }
+
+    /**
+     * Compresses the content of a file and generates a Grammar as a result.
+     * By default, the file is memory-mapped with {@link ByteSequence#map(Path)}, so its content is not read into the heap,
+     * unless this compressor does not override {@link #compress(ByteSequence)}, and files larger than
+     * {@link ByteSequence#MAX_LENGTH} bytes, about 2GB, cannot be compressed at once.
+     * Streaming compressors override this to read the file as a stream, so they have no such limit.
+     * @param file The file to compress
+     * @return A Grammar, that can be represented as a {@link UnifiedRuleset}
+     * @throws IOException If the file could not be read
+     * @throws IllegalArgumentException If the file is too large for this compressor
+     */
+    default ToUnifiedRuleset compress(Path file) throws IOException {
+        return compress(ByteSequence.map(file));
+    }
+
     /**
      * Benchmarks this compressor with the given String and output to the console
      * See {@link #benchmark(String, PrintStream)} for a more detailed explanation.
@@ -77,6 +115,7 @@ public interface UnifiedCompressor {
         // Print the size of the generated grammar
         out.println("Grammar size: " + unified.rulesetSize());
         out.println("Grammar depth: " + unified.rulesetDepth());
+        out.println("Entropy coded size: " + EntropyEncoder.encode(unified).length + " bytes");
 
         // Verify, whether this grammar can reproduce the original string
         String reconstructed = unified.buildString();
@@ -104,8 +143,29 @@ public interface UnifiedCompressor {
         // Measure the time it takes to compress the string
         var now = System.nanoTime();
         ToUnifiedRuleset ruleset = compress(input);
+        printSimpleResults(ruleset, now, out, printGrammar);
+    }
+
+    /**
+     * Like {@link #benchmarkSimple(String, PrintStream, boolean)}, but compresses a file with {@link #compress(Path)}
+     * @param file The file to compress
+     * @param out The {@link PrintStream} to write the results to
+     * @param printGrammar Whether the grammar itself should be written to the {@link PrintStream}
+     * @throws IOException If the file could not be read
+     */
+    default void benchmarkSimple(Path file, PrintStream out, boolean printGrammar) throws IOException {
+        // Print the name of the algorithm
+        out.println("Testing " + name() + " Algorithm on input with " + Files.size(file) + " bytes:");
+
+        // Measure the time it takes to compress the bytes
+        var now = System.nanoTime();
+        ToUnifiedRuleset ruleset = compress(file);
+        printSimpleResults(ruleset, now, out, printGrammar);
+    }
+
+    private void printSimpleResults(ToUnifiedRuleset ruleset, long startNs, PrintStream out, boolean printGrammar) {
         UnifiedRuleset unified = ruleset.toUnified();
-        var duration = System.nanoTime() - now;
+        var duration = System.nanoTime() - startNs;
 
         // Output the compression time in milliseconds
         out.println("Compression Time: " + (duration / 1000000) + "ms");
@@ -113,6 +173,7 @@ public interface UnifiedCompressor {
         // Print the size of the generated grammar
         out.println("Grammar size: " + unified.rulesetSize());
         out.println("Grammar depth: " + unified.rulesetDepth());
+        out.println("Entropy coded size: " + EntropyEncoder.encode(unified).length + " bytes");
         out.println("Rule count: " + unified.ruleCount());
         out.println("Average rule length: " + unified.averageRuleLength());
 
@@ -125,22 +186,21 @@ public interface UnifiedCompressor {
     }
 
     /**
-     * Creates an sqlplot-tools RESULT line with the results of compressing the given file
+     * Creates an sqlplot-tools RESULT line with the results of compressing the given file with {@link #compress(Path)}
      * @param inputFileName The file to compress
-     * @throws IOException If unable to create the output directories
+     * @throws IOException If the file could not be read or unable to create the output directories
      */
     default void sqlplot(String inputFileName) throws IOException {
         Path inPath = Paths.get("input", inputFileName);
-        String s = Files.readString(inPath, StandardCharsets.ISO_8859_1);
 
         StringJoiner result = new StringJoiner(" ", "RESULT ", "");
 
         result.add("algo=" + name());
-        result.add("inputsize=" + s.length());
+        result.add("inputsize=" + Files.size(inPath));
 
-        // Measure the time it takes to compress the string
+        // Measure the time it takes to compress the file
         var now = System.nanoTime();
-        ToUnifiedRuleset ruleset = compress(s);
+        ToUnifiedRuleset ruleset = compress(inPath);
         var duration = System.nanoTime() - now;
 
         // Output the compression time in milliseconds
@@ -158,8 +218,7 @@ public interface UnifiedCompressor {
         result.add("numRules=" + unified.ruleCount());
         result.add("avgLen=" + unified.averageRuleLength());
         result.add("depth=" + unified.rulesetDepth());
-
-        result.add("bucketsize=" + RuleIntervalIndex.BUCKET_SIZE_EXPONENT);
+        result.add("encodedsize=" + EntropyEncoder.encode(unified).length);
 
         // I am very sorry
         final int datasetsize;
@@ -0,0 +1,279 @@
+package compression.unified.io;
+
+import compression.unified.UnifiedRuleset;
+import compression.unified.io.GrammarDecoder.Header;
+import compression.unified.io.GrammarDecoder.RuleConsumer;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import static compression.unified.io.EntropyFormat.*;
+import static compression.unified.io.GrammarFormat.readVarInt;
+import static compression.unified.io.GrammarFormat.readVarLong;
+
+/**
+ * Reads grammars written by {@link EntropyEncoder}.
+ * Tokens are decoded with a lookup table from the rANS state to the token, so decoding a token takes a table lookup,
+ * a multiplication and an occasional byte read. The buffers of a block are reused for all blocks.
+ *
+ * @see EntropyFormat
+ */
+public final class EntropyDecoder {
+
+    private EntropyDecoder() {}
+
+    /**
+     * Decodes a grammar from a byte array
+     * @param bytes The encoded grammar
+     * @return The decoded ruleset
+     * @throws GrammarFormatException If the bytes are not a valid grammar
+     */
+    public static UnifiedRuleset decode(byte[] bytes) throws GrammarFormatException {
+        try {
+            return decode(new ByteArrayInputStream(bytes));
+        } catch (GrammarFormatException e) {
+            throw e;
+        } catch (EOFException e) {
+            throw new GrammarFormatException(e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a grammar from a stream. Only the bytes of the grammar are consumed from the stream.
+     * Since the header is read byte by byte, the stream should be buffered.
+     * @param in The stream to read from
+     * @return The decoded ruleset
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    public static UnifiedRuleset decode(InputStream in) throws IOException {
+        return GrammarDecoder.toRuleset(consumer -> decode(in, consumer));
+    }
+
+    /**
+     * Reads a grammar from a stream and passes each rule to a consumer instead of building a {@link UnifiedRuleset}.
+     * The rules are passed in the same way as by {@link GrammarDecoder#decode(InputStream, RuleConsumer)}.
+     * @param in The stream to read from
+     * @param consumer The consumer which receives the rules in topological order
+     * @return The header of the grammar
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    public static Header decode(InputStream in, RuleConsumer consumer) throws IOException {
+        final byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new GrammarFormatException("Not an entropy coded grammar");
+        }
+        final int version = in.read();
+        if (version != VERSION) {
+            throw new GrammarFormatException("Unsupported version " + version);
+        }
+
+        final int ruleCount = readVarInt(in);
+        final int topLevel = readVarInt(in);
+        final long symbolCount = readVarLong(in);
+        final long textLength = readVarLong(in);
+        if (ruleCount > 0 && topLevel >= ruleCount) {
+            throw new GrammarFormatException("Invalid top level rule R" + topLevel);
+        }
+        final var header = new Header(ruleCount, topLevel, symbolCount, textLength);
+
+        final int dictionarySize = readVarInt(in);
+        if (dictionarySize > Character.MAX_VALUE + 1) {
+            throw new GrammarFormatException("Invalid amount of terminals " + dictionarySize);
+        }
+        final int[] dictionary = new int[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = readVarInt(in);
+            if (dictionary[i] > Character.MAX_VALUE) {
+                throw new GrammarFormatException("Invalid terminal " + dictionary[i]);
+            }
+        }
+        final var lengthModel = Model.read(in, TOKENS);
+        final var symbolModel = Model.read(in, SYMBOL_TOKENS);
+
+        final var rans = new RansReader();
+        final var extra = new BitReader();
+        int[] symbols = new int[16];
+
+        int id = 0;
+        while (id < ruleCount) {
+            final int blockRules = readVarInt(in);
+            if (blockRules <= 0 || blockRules > ruleCount - id) {
+                throw new GrammarFormatException("Invalid amount of rules in block: " + blockRules);
+            }
+            final int ransSize = readVarInt(in);
+            final int extraSize = readVarInt(in);
+            rans.read(in, ransSize);
+            extra.read(in, extraSize);
+
+            for (final int end = id + blockRules; id < end; id++) {
+                final int lengthToken = rans.decode(lengthModel);
+                final int length = baseValue(lengthToken) | extra.read(extraBits(lengthToken));
+                if (length > symbols.length) {
+                    symbols = new int[Math.max(length, symbols.length + (symbols.length >> 1))];
+                }
+
+                for (int i = 0; i < length; i++) {
+                    final int token = rans.decode(symbolModel);
+                    if (token >= TOKENS) {
+                        final int delta = baseValue(token - TOKENS) | extra.read(extraBits(token - TOKENS));
+                        final int reference = id - delta - 1;
+                        if (reference < 0) {
+                            throw new GrammarFormatException("R" + id + " references a rule which is not defined before it");
+                        }
+                        symbols[i] = reference;
+                    } else {
+                        final int rank = baseValue(token) | extra.read(extraBits(token));
+                        if (rank >= dictionary.length) {
+                            throw new GrammarFormatException("Invalid terminal rank " + rank);
+                        }
+                        symbols[i] = ~dictionary[rank];
+                    }
+                }
+                consumer.accept(id, symbols, length);
+            }
+        }
+        return header;
+    }
+
+    /**
+     * A static model of the frequencies of tokens with a table for decoding
+     */
+    private static final class Model {
+
+        private final int[] freqs;
+
+        private final int[] starts;
+
+        /**
+         * The token for every value of the lowest {@link EntropyFormat#PROB_BITS} bits of the rANS state
+         */
+        private final byte[] tokens;
+
+        private Model(int[] freqs) {
+            this.freqs = freqs;
+            this.starts = new int[freqs.length];
+            this.tokens = new byte[PROB_SCALE];
+            int start = 0;
+            for (int i = 0; i < freqs.length; i++) {
+                starts[i] = start;
+                Arrays.fill(tokens, start, start + freqs[i], (byte) i);
+                start += freqs[i];
+            }
+        }
+
+        static Model read(InputStream in, int alphabet) throws IOException {
+            final int[] freqs = new int[alphabet];
+            final int used = readVarInt(in);
+            int token = -1;
+            long sum = 0;
+            for (int i = 0; i < used; i++) {
+                token += readVarInt(in) + 1;
+                if (token >= alphabet) {
+                    throw new GrammarFormatException("Invalid token " + token);
+                }
+                freqs[token] = readVarInt(in) + 1;
+                sum += freqs[token];
+            }
+            if (used > 0 && sum != PROB_SCALE) {
+                throw new GrammarFormatException("Invalid model");
+            }
+            return new Model(freqs);
+        }
+    }
+
+    /**
+     * Decodes tokens from the rANS stream of a block
+     */
+    private static final class RansReader {
+
+        private byte[] data = new byte[256];
+
+        private int limit;
+
+        private int position;
+
+        private int x;
+
+        void read(InputStream in, int size) throws IOException {
+            if (size < 4) {
+                throw new GrammarFormatException("Invalid rANS stream");
+            }
+            if (size > data.length) {
+                data = new byte[Math.max(size, data.length + (data.length >> 1))];
+            }
+            if (in.readNBytes(data, 0, size) != size) {
+                throw new EOFException("Unexpected end of grammar");
+            }
+            limit = size;
+            x = (data[0] & 0xFF) | (data[1] & 0xFF) << 8 | (data[2] & 0xFF) << 16 | (data[3] & 0xFF) << 24;
+            position = 4;
+        }
+
+        int decode(Model model) throws GrammarFormatException {
+            final int slot = x & (PROB_SCALE - 1);
+            final int token = model.tokens[slot] & 0xFF;
+            final int freq = model.freqs[token];
+            if (freq == 0) {
+                throw new GrammarFormatException("Invalid rANS stream");
+            }
+            x = freq * (x >>> PROB_BITS) + slot - model.starts[token];
+            while (x < RANS_L) {
+                if (position >= limit) {
+                    throw new GrammarFormatException("Unexpected end of rANS stream");
+                }
+                x = (x << 8) | (data[position++] & 0xFF);
+            }
+            return token;
+        }
+    }
+
+    /**
+     * Reads bits least significant bit first
+     */
+    private static final class BitReader {
+
+        private byte[] data = new byte[256];
+
+        private int limit;
+
+        private int position;
+
+        private long buffer;
+
+        private int count;
+
+        void read(InputStream in, int size) throws IOException {
+            if (size > data.length) {
+                data = new byte[Math.max(size, data.length + (data.length >> 1))];
+            }
+            if (in.readNBytes(data, 0, size) != size) {
+                throw new EOFException("Unexpected end of grammar");
+            }
+            limit = size;
+            position = 0;
+            buffer = 0;
+            count = 0;
+        }
+
+        int read(int bits) throws GrammarFormatException {
+            if (bits == 0) return 0;
+            while (count < bits) {
+                if (position >= limit) {
+                    throw new GrammarFormatException("Unexpected end of extra bits");
+                }
+                buffer |= (long) (data[position++] & 0xFF) << count;
+                count += 8;
+            }
+            final int value = (int) (buffer & ((1L << bits) - 1));
+            buffer >>>= bits;
+            count -= bits;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package compression.unified.io;
+
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.UnifiedSymbol;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static compression.unified.io.EntropyFormat.*;
+import static compression.unified.io.GrammarFormat.writeVarInt;
+import static compression.unified.io.GrammarFormat.writeVarLong;
+
+/**
+ * Writes a {@link UnifiedRuleset} as an entropy coded byte stream, whose size is the actual size of the compressed text.
+ * The grammar is coded with a static rANS coder, whose models are computed in a first pass over the grammar and stored
+ * in the header. See {@link EntropyFormat} for the layout.
+ *
+ * @see EntropyDecoder
+ */
+public final class EntropyEncoder {
+
+    private EntropyEncoder() {}
+
+    /**
+     * Encodes a ruleset into a byte array
+     * @param ruleset The ruleset to encode
+     * @return The encoded ruleset
+     * @throws IllegalArgumentException If the ruleset references missing rules or contains cycles
+     */
+    public static byte[] encode(UnifiedRuleset ruleset) {
+        final var out = new ByteArrayOutputStream();
+        try {
+            encode(ruleset, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a ruleset and writes it to a stream. The stream is not closed.
+     * @param ruleset The ruleset to encode
+     * @param out The stream to write to
+     * @throws IOException If writing to the stream fails
+     * @throws IllegalArgumentException If the ruleset references missing rules or contains cycles
+     */
+    public static void encode(UnifiedRuleset ruleset, OutputStream out) throws IOException {
+        final var rules = ruleset.rules();
+        final var newIds = new Int2IntOpenHashMap(rules.size());
+        newIds.defaultReturnValue(-1);
+        final int[] order = GrammarEncoder.topologicalOrder(ruleset, newIds);
+
+        // First pass: count the terminals, the tokens, and compute the length of the text
+        final long[] terminalCounts = new long[Character.MAX_VALUE + 1];
+        final long[] lengthCounts = new long[TOKENS];
+        final long[] expandedLengths = new long[order.length];
+        long symbolCount = 0;
+        for (int i = 0; i < order.length; i++) {
+            final List<UnifiedSymbol> symbols = rules.get(order[i]);
+            lengthCounts[token(symbols.size())]++;
+            symbolCount += symbols.size();
+            long length = 0;
+            for (UnifiedSymbol symbol : symbols) {
+                if (symbol instanceof UnifiedNonTerminal nonTerminal) {
+                    length += expandedLengths[newIds.get(nonTerminal.id())];
+                } else if (symbol instanceof UnifiedTerminal terminal) {
+                    terminalCounts[terminal.value()]++;
+                    length++;
+                } else {
+                    throw new IllegalArgumentException("Unknown symbol " + symbol);
+                }
+            }
+            expandedLengths[i] = length;
+        }
+
+        final int topLevel = order.length == 0 ? 0 : newIds.get(ruleset.getTopLevelRuleId());
+        if (topLevel == -1) {
+            throw new IllegalArgumentException("The top level rule R" + ruleset.getTopLevelRuleId() + " does not exist");
+        }
+
+        // The terminal dictionary, sorted by descending frequency, so that frequent terminals get small tokens
+        final var dictionary = new IntArrayList();
+        for (int c = 0; c < terminalCounts.length; c++) {
+            if (terminalCounts[c] > 0) dictionary.add(c);
+        }
+        dictionary.sort((a, b) -> terminalCounts[a] != terminalCounts[b] ? Long.compare(terminalCounts[b], terminalCounts[a]) : Integer.compare(a, b));
+        final int[] ranks = new int[terminalCounts.length];
+        for (int i = 0; i < dictionary.size(); i++) {
+            ranks[dictionary.getInt(i)] = i;
+        }
+
+        // Second pass over the symbols to count the symbol tokens, which need the ranks
+        final long[] symbolCounts = new long[SYMBOL_TOKENS];
+        for (int i = 0; i < order.length; i++) {
+            for (UnifiedSymbol symbol : rules.get(order[i])) {
+                symbolCounts[symbolToken(symbol, i, newIds, ranks)]++;
+            }
+        }
+        final var lengthModel = new Model(normalize(lengthCounts));
+        final var symbolModel = new Model(normalize(symbolCounts));
+
+        final var header = new ByteArrayList();
+        header.addElements(0, MAGIC);
+        header.add((byte) VERSION);
+        writeVarInt(header, order.length);
+        writeVarInt(header, topLevel);
+        writeVarLong(header, symbolCount);
+        writeVarLong(header, order.length == 0 ? 0 : expandedLengths[topLevel]);
+        writeVarInt(header, dictionary.size());
+        for (int i = 0; i < dictionary.size(); i++) {
+            writeVarInt(header, dictionary.getInt(i));
+        }
+        lengthModel.write(header);
+        symbolModel.write(header);
+        out.write(header.elements(), 0, header.size());
+
+        // The tokens of a block in the order they are decoded. Symbol tokens are offset by TOKENS to tell them apart
+        final var tokens = new IntArrayList();
+        final var extra = new BitWriter();
+        byte[] rans = new byte[0];
+
+        int blockStart = 0;
+        int blockSymbols = 0;
+        for (int i = 0; i < order.length; i++) {
+            final List<UnifiedSymbol> symbols = rules.get(order[i]);
+            final int lengthToken = token(symbols.size());
+            tokens.add(lengthToken);
+            extra.write(symbols.size(), extraBits(lengthToken));
+
+            for (UnifiedSymbol symbol : symbols) {
+                final int value = symbol instanceof UnifiedNonTerminal nonTerminal
+                        ? i - newIds.get(nonTerminal.id()) - 1
+                        : ranks[((UnifiedTerminal) symbol).value()];
+                final int symbolToken = symbolToken(symbol, i, newIds, ranks);
+                tokens.add(TOKENS + symbolToken);
+                extra.write(value, extraBits(token(value)));
+            }
+
+            blockSymbols += symbols.size();
+            if (blockSymbols >= BLOCK_SYMBOLS || i == order.length - 1) {
+                // Every token takes at most PROB_BITS bits, plus the final state
+                final int capacity = 2 * tokens.size() + 8;
+                if (rans.length < capacity) {
+                    rans = new byte[capacity];
+                }
+
+                // rANS works like a stack, so the tokens are encoded in reverse
+                int position = rans.length;
+                long x = RANS_L;
+                for (int t = tokens.size() - 1; t >= 0; t--) {
+                    final int token = tokens.getInt(t);
+                    final Model model = token >= TOKENS ? symbolModel : lengthModel;
+                    final int s = token >= TOKENS ? token - TOKENS : token;
+                    final int freq = model.freqs[s];
+
+                    final long max = ((long) (RANS_L >>> PROB_BITS) << 8) * freq;
+                    while (x >= max) {
+                        rans[--position] = (byte) x;
+                        x >>>= 8;
+                    }
+                    x = ((x / freq) << PROB_BITS) + (x % freq) + model.starts[s];
+                }
+                position -= 4;
+                rans[position] = (byte) x;
+                rans[position + 1] = (byte) (x >>> 8);
+                rans[position + 2] = (byte) (x >>> 16);
+                rans[position + 3] = (byte) (x >>> 24);
+
+                extra.flush();
+                header.clear();
+                writeVarInt(header, i + 1 - blockStart);
+                writeVarInt(header, rans.length - position);
+                writeVarInt(header, extra.bytes.size());
+                out.write(header.elements(), 0, header.size());
+                out.write(rans, position, rans.length - position);
+                out.write(extra.bytes.elements(), 0, extra.bytes.size());
+
+                tokens.clear();
+                extra.bytes.clear();
+                blockStart = i + 1;
+                blockSymbols = 0;
+            }
+        }
+    }
+
+    private static int symbolToken(UnifiedSymbol symbol, int rule, Int2IntOpenHashMap newIds, int[] ranks) {
+        if (symbol instanceof UnifiedNonTerminal nonTerminal) {
+            return TOKENS + token(rule - newIds.get(nonTerminal.id()) - 1);
+        }
+        return token(ranks[((UnifiedTerminal) symbol).value()]);
+    }
+
+    /**
+     * A static model of the frequencies of tokens
+     */
+    private static final class Model {
+
+        private final int[] freqs;
+
+        /**
+         * The cumulative frequencies of all smaller tokens
+         */
+        private final int[] starts;
+
+        Model(int[] freqs) {
+            this.freqs = freqs;
+            this.starts = new int[freqs.length];
+            for (int i = 1; i < freqs.length; i++) {
+                starts[i] = starts[i - 1] + freqs[i - 1];
+            }
+        }
+
+        void write(ByteArrayList out) {
+            int used = 0;
+            for (int freq : freqs) {
+                if (freq > 0) used++;
+            }
+            writeVarInt(out, used);
+            int previous = -1;
+            for (int i = 0; i < freqs.length; i++) {
+                if (freqs[i] > 0) {
+                    writeVarInt(out, i - previous - 1);
+                    writeVarInt(out, freqs[i] - 1);
+                    previous = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes bits least significant bit first
+     */
+    private static final class BitWriter {
+
+        private final ByteArrayList bytes = new ByteArrayList();
+
+        private long buffer;
+
+        private int count;
+
+        void write(int value, int bits) {
+            if (bits == 0) return;
+            buffer |= (value & ((1L << bits) - 1)) << count;
+            count += bits;
+            while (count >= 8) {
+                bytes.add((byte) buffer);
+                buffer >>>= 8;
+                count -= 8;
+            }
+        }
+
+        void flush() {
+            if (count > 0) {
+                bytes.add((byte) buffer);
+            }
+            buffer = 0;
+            count = 0;
+        }
+    }
+}
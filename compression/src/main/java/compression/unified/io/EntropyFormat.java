@@ -0,0 +1,142 @@
+package compression.unified.io;
+
+/**
+ * Constants and helpers shared by {@link EntropyEncoder} and {@link EntropyDecoder}.
+ * <p>
+ * The entropy coded format contains the same information as the format of {@link GrammarFormat}:
+ * <pre>
+ * header:  magic "SLPA", version byte, rule count, top level rule id, symbol count, length of the text
+ * terminal dictionary:  the amount of distinct terminals, followed by their values from the most to the least frequent one
+ * models:  for the length model and the symbol model, the amount of used tokens, followed by pairs of
+ *          (token - previous token - 1, frequency - 1)
+ * blocks:  rule count, byte length of the rANS stream, byte length of the extra bits, followed by both streams
+ * </pre>
+ * Every value is split into a token and extra bits by {@link #token(int)}. The tokens are coded with a static rANS
+ * coder. The extra bits are stored as they are, least significant bit first.
+ * The length model codes the amount of symbols of each rule. The symbol model codes terminals as the token of
+ * their rank in the terminal dictionary and nonterminals as {@link #TOKENS} plus the token of the same delta as in
+ * {@link GrammarFormat}. Within a block, the length of a rule is followed by its symbols.
+ */
+final class EntropyFormat {
+
+    static final byte[] MAGIC = {'S', 'L', 'P', 'A'};
+
+    static final int VERSION = 1;
+
+    /**
+     * Values below this are their own token and have no extra bits
+     */
+    private static final int DIRECT_TOKENS = 32;
+
+    private static final int DIRECT_BITS = 5;
+
+    /**
+     * The amount of tokens needed to represent any non-negative int, whose highest bit is at most bit 30
+     */
+    static final int TOKENS = DIRECT_TOKENS + 2 * (30 - DIRECT_BITS + 1);
+
+    /**
+     * The amount of tokens of the symbol model
+     */
+    static final int SYMBOL_TOKENS = 2 * TOKENS;
+
+    /**
+     * The binary logarithm of the sum of all frequencies of a model
+     */
+    static final int PROB_BITS = 14;
+
+    static final int PROB_SCALE = 1 << PROB_BITS;
+
+    /**
+     * The lower bound of the normalized rANS state
+     */
+    static final int RANS_L = 1 << 23;
+
+    /**
+     * A block is finished after the first rule that makes it contain at least this many symbols
+     */
+    static final int BLOCK_SYMBOLS = 1 << 16;
+
+    private EntropyFormat() {}
+
+    /**
+     * Gets the token of a value. Values of at least 32 are represented by the position of their highest bit
+     * and the bit below it. The remaining bits are the extra bits.
+     * @param value The non-negative value
+     * @return The token
+     */
+    static int token(int value) {
+        if (value < DIRECT_TOKENS) {
+            return value;
+        }
+        final int k = 31 - Integer.numberOfLeadingZeros(value);
+        return DIRECT_TOKENS + 2 * (k - DIRECT_BITS) + ((value >>> (k - 1)) & 1);
+    }
+
+    /**
+     * Gets the amount of extra bits belonging to a token
+     * @param token The token
+     * @return The amount of the value's lowest bits that are not determined by the token
+     */
+    static int extraBits(int token) {
+        return token < DIRECT_TOKENS ? 0 : (token - DIRECT_TOKENS) / 2 + DIRECT_BITS - 1;
+    }
+
+    /**
+     * Gets the smallest value represented by a token
+     * @param token The token
+     * @return The value without its extra bits
+     */
+    static int baseValue(int token) {
+        if (token < DIRECT_TOKENS) {
+            return token;
+        }
+        final int k = (token - DIRECT_TOKENS) / 2 + DIRECT_BITS;
+        return (1 << k) | (((token - DIRECT_TOKENS) & 1) << (k - 1));
+    }
+
+    /**
+     * Normalizes token counts to frequencies which sum up to {@link #PROB_SCALE}.
+     * Every token that occurs gets a frequency of at least 1.
+     * @param counts The counts of the tokens
+     * @return The frequencies, or all zeros if no token occurs
+     */
+    static int[] normalize(long[] counts) {
+        final int[] freqs = new int[counts.length];
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return freqs;
+        }
+
+        int sum = 0;
+        int largest = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                freqs[i] = (int) Math.max(1, counts[i] * PROB_SCALE / total);
+                sum += freqs[i];
+                if (freqs[i] > freqs[largest]) {
+                    largest = i;
+                }
+            }
+        }
+
+        // Rounding down leaves a remainder for the most frequent token, rounding up small counts to 1 may have to be
+        // compensated by taking from the most frequent tokens
+        freqs[largest] += PROB_SCALE - sum;
+        while (freqs[largest] < 1) {
+            int next = -1;
+            for (int i = 0; i < freqs.length; i++) {
+                if (i != largest && freqs[i] > 1 && (next == -1 || freqs[i] > freqs[next])) {
+                    next = i;
+                }
+            }
+            final int take = Math.min(freqs[next] - 1, 1 - freqs[largest]);
+            freqs[next] -= take;
+            freqs[largest] += take;
+        }
+        return freqs;
+    }
+}
@@ -0,0 +1,167 @@
+package compression.unified.io;
+
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.UnifiedSymbol;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * A grammar whose rules are stored in flat arrays in topological order, so every rule only references rules with
+ * smaller indices. This is the representation {@link GrammarExpander} and {@link GrammarIndex} work on.
+ */
+final class FlatGrammar {
+
+    /**
+     * The position of the first symbol of each rule in {@link #symbols}. Has one additional entry for the end
+     */
+    final int[] offsets;
+
+    /**
+     * The symbols of all rules. A nonterminal is stored as the index of its rule, a terminal c as ~c
+     */
+    final int[] symbols;
+
+    /**
+     * The length of the text each rule expands to
+     */
+    final long[] lengths;
+
+    /**
+     * The amount of rules on the longest path from each rule to a terminal, including the rule itself
+     */
+    final int[] depths;
+
+    /**
+     * The index of the start rule, or -1 if the grammar has no rules
+     */
+    final int topLevel;
+
+    /**
+     * The largest terminal of the grammar, or -1 if it has no terminals
+     */
+    final int maxTerminal;
+
+    private FlatGrammar(Builder builder, int topLevel) {
+        this.offsets = builder.offsets.toIntArray();
+        this.symbols = builder.symbols.toIntArray();
+        this.lengths = builder.lengths.toLongArray();
+        this.depths = builder.depths.toIntArray();
+        this.topLevel = lengths.length == 0 ? -1 : topLevel;
+        this.maxTerminal = builder.maxTerminal;
+    }
+
+    /**
+     * Flattens a ruleset
+     * @param ruleset The ruleset
+     * @return The flat grammar
+     * @throws IllegalArgumentException If the ruleset contains a cycle or references a rule which does not exist
+     */
+    static FlatGrammar of(UnifiedRuleset ruleset) {
+        final var newIds = new Int2IntOpenHashMap();
+        newIds.defaultReturnValue(-1);
+        final int[] order = GrammarEncoder.topologicalOrder(ruleset, newIds);
+
+        final var builder = new Builder();
+        int[] buffer = new int[16];
+        for (int i = 0; i < order.length; i++) {
+            final List<UnifiedSymbol> rule = ruleset.rules().get(order[i]);
+            if (rule.size() > buffer.length) {
+                buffer = new int[Math.max(rule.size(), buffer.length * 2)];
+            }
+            for (int j = 0; j < rule.size(); j++) {
+                final UnifiedSymbol symbol = rule.get(j);
+                if (symbol instanceof UnifiedNonTerminal nonTerminal) {
+                    buffer[j] = newIds.get(nonTerminal.id());
+                } else if (symbol instanceof UnifiedTerminal terminal) {
+                    buffer[j] = ~terminal.value();
+                } else {
+                    throw new IllegalArgumentException("Unknown symbol " + symbol);
+                }
+            }
+            builder.accept(i, buffer, rule.size());
+        }
+
+        final int topLevel = order.length == 0 ? -1 : newIds.get(ruleset.getTopLevelRuleId());
+        if (order.length > 0 && topLevel == -1) {
+            throw new IllegalArgumentException("The top level rule R" + ruleset.getTopLevelRuleId() + " does not exist");
+        }
+        return new FlatGrammar(builder, topLevel);
+    }
+
+    /**
+     * Reads a grammar written by {@link GrammarEncoder} without building a {@link UnifiedRuleset}
+     * @param in The stream to read the grammar from
+     * @return The flat grammar
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    static FlatGrammar read(InputStream in) throws IOException {
+        final var builder = new Builder();
+        return new FlatGrammar(builder, GrammarDecoder.decode(in, builder).topLevelRuleId());
+    }
+
+    /**
+     * Reads a grammar written by {@link EntropyEncoder} without building a {@link UnifiedRuleset}
+     * @param in The stream to read the grammar from
+     * @return The flat grammar
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    static FlatGrammar readEntropyCoded(InputStream in) throws IOException {
+        final var builder = new Builder();
+        return new FlatGrammar(builder, EntropyDecoder.decode(in, builder).topLevelRuleId());
+    }
+
+    /**
+     * Gets the length of the text represented by the grammar
+     * @return The length of the start rule's expansion
+     */
+    long length() {
+        return topLevel == -1 ? 0 : lengths[topLevel];
+    }
+
+    /**
+     * Gets the depth of the grammar, which is the size of the stack needed to walk its derivation tree
+     * @return The amount of rules on the longest path from the start rule to a terminal
+     */
+    int depth() {
+        return topLevel == -1 ? 0 : depths[topLevel];
+    }
+
+    /**
+     * Collects rules in topological order into flat arrays
+     */
+    private static final class Builder implements GrammarDecoder.RuleConsumer {
+
+        private final IntArrayList offsets = IntArrayList.wrap(new int[] {0});
+        private final IntArrayList symbols = new IntArrayList();
+        private final LongArrayList lengths = new LongArrayList();
+        private final IntArrayList depths = new IntArrayList();
+        private int maxTerminal = -1;
+
+        @Override
+        public void accept(int id, int[] rule, int length) {
+            long expanded = 0;
+            int depth = 0;
+            for (int i = 0; i < length; i++) {
+                final int symbol = rule[i];
+                if (symbol < 0) {
+                    maxTerminal = Math.max(maxTerminal, ~symbol);
+                    expanded++;
+                } else {
+                    expanded += lengths.getLong(symbol);
+                    depth = Math.max(depth, depths.getInt(symbol));
+                }
+            }
+            symbols.addElements(symbols.size(), rule, 0, length);
+            offsets.add(symbols.size());
+            lengths.add(expanded);
+            depths.add(depth + 1);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package compression.unified.io;
+
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.UnifiedSymbol;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static compression.unified.io.GrammarFormat.*;
+
+/**
+ * Reads grammars written by {@link GrammarEncoder}.
+ * The rules are read block by block, and the buffers for the sections of a block are reused, so decoding with a
+ * {@link RuleConsumer} allocates memory proportional to the largest block and the longest rule only.
+ *
+ * @see GrammarFormat
+ */
+public final class GrammarDecoder {
+
+    private GrammarDecoder() {}
+
+    /**
+     * The header of a binary grammar
+     * @param ruleCount The amount of rules. The rules have the ids 0 to ruleCount - 1
+     * @param topLevelRuleId The id of the start rule
+     * @param symbolCount The amount of symbols of all rules' right sides
+     * @param textLength The length of the text the grammar represents
+     */
+    public record Header(int ruleCount, int topLevelRuleId, long symbolCount, long textLength) {}
+
+    /**
+     * Receives the decoded rules in the order of their ids.
+     * Since the ids are in topological order, every rule only references rules which have already been received.
+     */
+    @FunctionalInterface
+    public interface RuleConsumer {
+
+        /**
+         * Receives a rule
+         * @param id The id of the rule
+         * @param symbols The symbols of the rule's right side. A nonterminal is stored as the id of its rule,
+         *                a terminal c is stored as ~c, which is negative. The array is reused for the next rule
+         * @param length The amount of symbols in the array that belong to this rule
+         * @throws IOException If the consumer fails to process the rule
+         */
+        void accept(int id, int[] symbols, int length) throws IOException;
+    }
+
+    /**
+     * Decodes a grammar from a byte array
+     * @param bytes The encoded grammar
+     * @return The decoded ruleset
+     * @throws GrammarFormatException If the bytes are not a valid grammar
+     */
+    public static UnifiedRuleset decode(byte[] bytes) throws GrammarFormatException {
+        try {
+            return decode(new ByteArrayInputStream(bytes));
+        } catch (GrammarFormatException e) {
+            throw e;
+        } catch (EOFException e) {
+            throw new GrammarFormatException(e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a grammar from a stream. Only the bytes of the grammar are consumed from the stream.
+     * Since the header is read byte by byte, the stream should be buffered.
+     * @param in The stream to read from
+     * @return The decoded ruleset
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    public static UnifiedRuleset decode(InputStream in) throws IOException {
+        return toRuleset(consumer -> decode(in, consumer));
+    }
+
+    /**
+     * A decoding, which passes the decoded rules to a consumer
+     */
+    @FunctionalInterface
+    interface Decoding {
+        Header decode(RuleConsumer consumer) throws IOException;
+    }
+
+    /**
+     * Builds a {@link UnifiedRuleset} from the rules of a decoding
+     * @param decoding The decoding
+     * @return The ruleset
+     * @throws IOException If the decoding fails
+     */
+    static UnifiedRuleset toRuleset(Decoding decoding) throws IOException {
+        final var ruleset = new UnifiedRuleset();
+        final var nonTerminals = new ArrayList<UnifiedNonTerminal>();
+
+        final var header = decoding.decode((id, symbols, length) -> {
+            final List<UnifiedSymbol> rule = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                final int symbol = symbols[i];
+                rule.add(symbol < 0 ? UnifiedTerminal.of((char) ~symbol) : nonTerminals.get(symbol));
+            }
+            ruleset.rules().put(id, rule);
+            nonTerminals.add(new UnifiedNonTerminal(id));
+        });
+
+        ruleset.setTopLevelRuleId(header.topLevelRuleId());
+        return ruleset;
+    }
+
+    /**
+     * Reads a grammar from a stream and passes each rule to a consumer instead of building a {@link UnifiedRuleset}.
+     * Only the bytes of the grammar are consumed from the stream. Since the header is read byte by byte,
+     * the stream should be buffered.
+     * @param in The stream to read from
+     * @param consumer The consumer which receives the rules in topological order
+     * @return The header of the grammar
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    public static Header decode(InputStream in, RuleConsumer consumer) throws IOException {
+        final var header = readHeader(in);
+
+        final var lengths = new Section();
+        final var kinds = new Section();
+        final var terminals = new Section();
+        final var nonTerminals = new Section();
+        int[] symbols = new int[16];
+
+        int id = 0;
+        while (id < header.ruleCount()) {
+            final int blockRules = readVarInt(in);
+            if (blockRules <= 0 || blockRules > header.ruleCount() - id) {
+                throw new GrammarFormatException("Invalid amount of rules in block: " + blockRules);
+            }
+            final int lengthsSize = readVarInt(in);
+            final int kindsSize = readVarInt(in);
+            final int terminalsSize = readVarInt(in);
+            final int nonTerminalsSize = readVarInt(in);
+            lengths.read(in, lengthsSize);
+            kinds.read(in, kindsSize);
+            terminals.read(in, terminalsSize);
+            nonTerminals.read(in, nonTerminalsSize);
+
+            for (final int end = id + blockRules; id < end; id++) {
+                final int length = lengths.readVarInt();
+                if (length > symbols.length) {
+                    symbols = new int[Math.max(length, symbols.length + (symbols.length >> 1))];
+                }
+
+                for (int i = 0; i < length; i++) {
+                    if (kinds.readBit()) {
+                        final int reference = id - nonTerminals.readVarInt() - 1;
+                        if (reference < 0) {
+                            throw new GrammarFormatException("R" + id + " references a rule which is not defined before it");
+                        }
+                        symbols[i] = reference;
+                    } else {
+                        final int terminal = terminals.readVarInt();
+                        if (terminal > Character.MAX_VALUE) {
+                            throw new GrammarFormatException("Invalid terminal " + terminal);
+                        }
+                        symbols[i] = ~terminal;
+                    }
+                }
+                consumer.accept(id, symbols, length);
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Reads only the header of a grammar
+     * @param in The stream to read from
+     * @return The header
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    public static Header readHeader(InputStream in) throws IOException {
+        final byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new GrammarFormatException("Not a binary grammar");
+        }
+        final int version = in.read();
+        if (version != VERSION) {
+            throw new GrammarFormatException("Unsupported version " + version);
+        }
+
+        final int ruleCount = readVarInt(in);
+        final int topLevel = readVarInt(in);
+        final long symbolCount = readVarLong(in);
+        final long textLength = readVarLong(in);
+        if (ruleCount > 0 && topLevel >= ruleCount) {
+            throw new GrammarFormatException("Invalid top level rule R" + topLevel);
+        }
+        return new Header(ruleCount, topLevel, symbolCount, textLength);
+    }
+
+    /**
+     * A section of a block, whose buffer is reused for every block
+     */
+    private static final class Section {
+
+        private byte[] data = new byte[256];
+
+        private int limit;
+
+        private int position;
+
+        /**
+         * The index of the next bit in the byte at {@link #position} for {@link #readBit()}
+         */
+        private int bit;
+
+        void read(InputStream in, int size) throws IOException {
+            if (size > data.length) {
+                data = new byte[Math.max(size, data.length + (data.length >> 1))];
+            }
+            if (in.readNBytes(data, 0, size) != size) {
+                throw new EOFException("Unexpected end of grammar");
+            }
+            limit = size;
+            position = 0;
+            bit = 0;
+        }
+
+        int readVarInt() throws GrammarFormatException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (position >= limit) {
+                    throw new GrammarFormatException("Unexpected end of section");
+                }
+                final byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    if (value < 0) break;
+                    return value;
+                }
+            }
+            throw new GrammarFormatException("Invalid varint");
+        }
+
+        boolean readBit() throws GrammarFormatException {
+            if (position >= limit) {
+                throw new GrammarFormatException("Unexpected end of section");
+            }
+            final boolean set = (data[position] & (1 << bit)) != 0;
+            if (++bit == 8) {
+                bit = 0;
+                position++;
+            }
+            return set;
+        }
+    }
+}
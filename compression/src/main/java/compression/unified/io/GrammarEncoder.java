@@ -0,0 +1,206 @@
+package compression.unified.io;
+
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.UnifiedSymbol;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static compression.unified.io.GrammarFormat.*;
+
+/**
+ * Writes a {@link UnifiedRuleset} in the binary format described in {@link GrammarFormat}.
+ * The rules are renumbered in topological order. They are written in blocks, so only the sections of a single block
+ * are buffered in memory, and the buffers are reused for all blocks.
+ *
+ * @see GrammarDecoder
+ */
+public final class GrammarEncoder {
+
+    private GrammarEncoder() {}
+
+    /**
+     * Encodes a ruleset into a byte array
+     * @param ruleset The ruleset to encode
+     * @return The encoded ruleset
+     * @throws IllegalArgumentException If the ruleset references missing rules or contains cycles
+     */
+    public static byte[] encode(UnifiedRuleset ruleset) {
+        final var out = new ByteArrayOutputStream();
+        try {
+            encode(ruleset, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a ruleset and writes it to a stream. The stream is not closed.
+     * @param ruleset The ruleset to encode
+     * @param out The stream to write to
+     * @throws IOException If writing to the stream fails
+     * @throws IllegalArgumentException If the ruleset references missing rules or contains cycles
+     */
+    public static void encode(UnifiedRuleset ruleset, OutputStream out) throws IOException {
+        final var rules = ruleset.rules();
+        final var newIds = new Int2IntOpenHashMap(rules.size());
+        newIds.defaultReturnValue(-1);
+        final int[] order = topologicalOrder(ruleset, newIds);
+
+        // The length of the text each rule expands to, indexed by the new rule id
+        final long[] expandedLengths = new long[order.length];
+        long symbolCount = 0;
+        for (int i = 0; i < order.length; i++) {
+            long length = 0;
+            for (UnifiedSymbol symbol : rules.get(order[i])) {
+                length += symbol instanceof UnifiedNonTerminal nonTerminal ? expandedLengths[newIds.get(nonTerminal.id())] : 1;
+            }
+            expandedLengths[i] = length;
+            symbolCount += rules.get(order[i]).size();
+        }
+
+        final int topLevel = order.length == 0 ? 0 : newIds.get(ruleset.getTopLevelRuleId());
+        if (topLevel == -1) {
+            throw new IllegalArgumentException("The top level rule R" + ruleset.getTopLevelRuleId() + " does not exist");
+        }
+
+        final var header = new ByteArrayList();
+        header.addElements(0, MAGIC);
+        header.add((byte) VERSION);
+        writeVarInt(header, order.length);
+        writeVarInt(header, topLevel);
+        writeVarLong(header, symbolCount);
+        writeVarLong(header, order.length == 0 ? 0 : expandedLengths[topLevel]);
+        out.write(header.elements(), 0, header.size());
+
+        final var lengths = new ByteArrayList();
+        final var kinds = new ByteArrayList();
+        final var terminals = new ByteArrayList();
+        final var nonTerminals = new ByteArrayList();
+
+        int kindBits = 0;
+        int kindCount = 0;
+        int blockStart = 0;
+        int blockSymbols = 0;
+        for (int i = 0; i < order.length; i++) {
+            final List<UnifiedSymbol> symbols = rules.get(order[i]);
+            writeVarInt(lengths, symbols.size());
+            for (UnifiedSymbol symbol : symbols) {
+                if (symbol instanceof UnifiedNonTerminal nonTerminal) {
+                    kindBits |= 1 << kindCount;
+                    writeVarInt(nonTerminals, i - newIds.get(nonTerminal.id()) - 1);
+                } else if (symbol instanceof UnifiedTerminal terminal) {
+                    writeVarInt(terminals, terminal.value());
+                } else {
+                    throw new IllegalArgumentException("Unknown symbol " + symbol);
+                }
+
+                if (++kindCount == 8) {
+                    kinds.add((byte) kindBits);
+                    kindBits = 0;
+                    kindCount = 0;
+                }
+            }
+
+            blockSymbols += symbols.size();
+            if (blockSymbols >= BLOCK_SYMBOLS || i == order.length - 1) {
+                if (kindCount > 0) {
+                    kinds.add((byte) kindBits);
+                    kindBits = 0;
+                    kindCount = 0;
+                }
+
+                header.clear();
+                writeVarInt(header, i + 1 - blockStart);
+                writeVarInt(header, lengths.size());
+                writeVarInt(header, kinds.size());
+                writeVarInt(header, terminals.size());
+                writeVarInt(header, nonTerminals.size());
+                out.write(header.elements(), 0, header.size());
+                for (ByteArrayList section : List.of(lengths, kinds, terminals, nonTerminals)) {
+                    out.write(section.elements(), 0, section.size());
+                    section.clear();
+                }
+
+                blockStart = i + 1;
+                blockSymbols = 0;
+            }
+        }
+    }
+
+    /**
+     * Orders the rules of a ruleset, so that every rule comes after all rules it references.
+     * Rules that are reachable from the top level rule come first. The rules are traversed iteratively,
+     * so deep grammars can't overflow the call stack.
+     * @param ruleset The ruleset
+     * @param newIds An empty map, which is filled with the position of each rule id in the returned order
+     * @return The rule ids in topological order
+     */
+    static int[] topologicalOrder(UnifiedRuleset ruleset, Int2IntOpenHashMap newIds) {
+        final var rules = ruleset.rules();
+        final var order = new IntArrayList(rules.size());
+        final var roots = new IntArrayList(rules.size());
+        if (rules.containsKey(ruleset.getTopLevelRuleId())) {
+            roots.add(ruleset.getTopLevelRuleId());
+        }
+        final int[] ids = rules.keySet().toIntArray();
+        Arrays.sort(ids);
+        roots.addElements(roots.size(), ids);
+
+        // Rules on the stack are marked with -2 in newIds until all their children are ordered
+        final var stack = new IntArrayList();
+        final var positions = new IntArrayList();
+        for (int r = 0; r < roots.size(); r++) {
+            final int root = roots.getInt(r);
+            if (newIds.containsKey(root)) continue;
+
+            newIds.put(root, -2);
+            stack.push(root);
+            positions.push(0);
+            while (!stack.isEmpty()) {
+                final int top = stack.size() - 1;
+                final var symbols = rules.get(stack.getInt(top));
+                int position = positions.getInt(top);
+                int child = -1;
+                while (position < symbols.size() && child == -1) {
+                    if (symbols.get(position++) instanceof UnifiedNonTerminal nonTerminal) {
+                        final int id = nonTerminal.id();
+                        final int state = newIds.get(id);
+                        if (state == -2) {
+                            throw new IllegalArgumentException("The grammar contains a cycle through R" + id);
+                        }
+                        if (state == -1) {
+                            if (!rules.containsKey(id)) {
+                                throw new IllegalArgumentException("The rule R" + id + " does not exist");
+                            }
+                            child = id;
+                        }
+                    }
+                }
+                positions.set(top, position);
+
+                if (child != -1) {
+                    newIds.put(child, -2);
+                    stack.push(child);
+                    positions.push(0);
+                } else {
+                    final int id = stack.popInt();
+                    positions.popInt();
+                    newIds.put(id, order.size());
+                    order.add(id);
+                }
+            }
+        }
+        return order.toIntArray();
+    }
+}
@@ -0,0 +1,220 @@
+package compression.unified.io;
+
+import compression.unified.UnifiedRuleset;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the text represented by a grammar of bytes to a stream or channel, without building the text in memory.
+ * <p>
+ * The rules are stored in flat int arrays in topological order. The expansion walks the derivation tree with an
+ * explicit stack, whose size is bounded by the depth of the grammar, and collects the bytes in a reusable buffer,
+ * which is written whenever it is full. Rules whose expansion is at most {@link #CACHE_LIMIT} bytes long are expanded
+ * once in advance, so the deep parts of the derivation tree are emitted by copying bytes instead of walking the tree.
+ * The memory needed besides the grammar itself is therefore constant for a given grammar, regardless of the length
+ * of its text.
+ * <p>
+ * Terminals are written as single bytes, so grammars of text that was read as ISO-8859-1 or as bytes reproduce the
+ * original input. Grammars containing terminals larger than 255 cannot be expanded.
+ */
+public final class GrammarExpander {
+
+    /**
+     * The size of the buffer the bytes are collected in before they are written
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The maximum length of an expansion that is cached
+     */
+    static final int CACHE_LIMIT = 64;
+
+    /**
+     * The maximum amount of bytes of all cached expansions
+     */
+    private static final int CACHE_BUDGET = 1 << 24;
+
+    /**
+     * The rules of the grammar
+     */
+    private final FlatGrammar grammar;
+
+    /**
+     * The position of each rule's cached expansion in {@link #cache}, or -1 if it is not cached
+     */
+    private final int[] cacheOffsets;
+
+    /**
+     * The cached expansions of short rules
+     */
+    private final byte[] cache;
+
+    private GrammarExpander(FlatGrammar grammar) {
+        if (grammar.maxTerminal > 0xFF) {
+            throw new IllegalArgumentException("The grammar contains the terminal " + (char) grammar.maxTerminal + ", which is not a byte");
+        }
+        this.grammar = grammar;
+
+        // Children come before their parents, and an expansion is never shorter than the expansions of its children,
+        // so the children of a rule that gets cached have already been cached
+        final int[] offsets = grammar.offsets;
+        final int[] symbols = grammar.symbols;
+        final long[] lengths = grammar.lengths;
+        this.cacheOffsets = new int[lengths.length];
+        final var cache = new ByteArrayList();
+        for (int rule = 0; rule < lengths.length; rule++) {
+            if (lengths[rule] > CACHE_LIMIT || cache.size() + lengths[rule] > CACHE_BUDGET) {
+                cacheOffsets[rule] = -1;
+                continue;
+            }
+            cacheOffsets[rule] = cache.size();
+            for (int i = offsets[rule]; i < offsets[rule + 1]; i++) {
+                final int symbol = symbols[i];
+                if (symbol < 0) {
+                    cache.add((byte) ~symbol);
+                } else {
+                    cache.addElements(cache.size(), cache.elements(), cacheOffsets[symbol], (int) lengths[symbol]);
+                }
+            }
+        }
+        this.cache = cache.toByteArray();
+    }
+
+    /**
+     * Prepares the expansion of a ruleset
+     * @param ruleset The ruleset
+     * @return The expander
+     * @throws IllegalArgumentException If the ruleset contains a cycle, references a rule which does not exist
+     *                                  or contains a terminal which is not a byte
+     */
+    public static GrammarExpander of(UnifiedRuleset ruleset) {
+        return new GrammarExpander(FlatGrammar.of(ruleset));
+    }
+
+    /**
+     * Prepares the expansion of a grammar written by {@link GrammarEncoder}. The grammar is read directly into the
+     * arrays of the expander, so no {@link UnifiedRuleset} is built
+     * @param in The stream to read the grammar from
+     * @return The expander
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     * @throws IllegalArgumentException If the grammar contains a terminal which is not a byte
+     */
+    public static GrammarExpander read(InputStream in) throws IOException {
+        return new GrammarExpander(FlatGrammar.read(in));
+    }
+
+    /**
+     * Prepares the expansion of a grammar written by {@link EntropyEncoder}. The grammar is read directly into the
+     * arrays of the expander, so no {@link UnifiedRuleset} is built
+     * @param in The stream to read the grammar from
+     * @return The expander
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     * @throws IllegalArgumentException If the grammar contains a terminal which is not a byte
+     */
+    public static GrammarExpander readEntropyCoded(InputStream in) throws IOException {
+        return new GrammarExpander(FlatGrammar.readEntropyCoded(in));
+    }
+
+    /**
+     * Gets the length of the text represented by the grammar
+     * @return The amount of bytes written by an expansion
+     */
+    public long length() {
+        return grammar.length();
+    }
+
+    /**
+     * Writes the text represented by the grammar to a stream. The stream is neither flushed nor closed
+     * @param out The stream to write to
+     * @throws IOException If writing to the stream fails
+     */
+    public void expand(OutputStream out) throws IOException {
+        expand((buffer, length) -> out.write(buffer, 0, length));
+    }
+
+    /**
+     * Writes the text represented by the grammar to a channel. The channel is not closed
+     * @param channel The channel to write to
+     * @throws IOException If writing to the channel fails
+     */
+    public void expand(WritableByteChannel channel) throws IOException {
+        expand((buffer, length) -> {
+            final var wrapped = ByteBuffer.wrap(buffer, 0, length);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+        });
+    }
+
+    /**
+     * Receives the filled parts of the buffer
+     */
+    @FunctionalInterface
+    private interface Sink {
+        void write(byte[] buffer, int length) throws IOException;
+    }
+
+    private void expand(Sink sink) throws IOException {
+        final int topLevel = grammar.topLevel;
+        if (topLevel == -1) return;
+
+        final int[] offsets = grammar.offsets;
+        final int[] symbols = grammar.symbols;
+        final long[] lengths = grammar.lengths;
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int filled = 0;
+
+        // The rules on the path from the start rule to the current symbol, and the position of the next symbol in each
+        final int[] rules = new int[grammar.depth()];
+        final int[] positions = new int[grammar.depth()];
+        rules[0] = topLevel;
+        positions[0] = offsets[topLevel];
+        int size = 1;
+
+        while (size > 0) {
+            final int top = size - 1;
+            final int end = offsets[rules[top] + 1];
+            int position = positions[top];
+            int child = -1;
+            while (position < end) {
+                final int symbol = symbols[position++];
+                if (symbol < 0) {
+                    if (filled == BUFFER_SIZE) {
+                        sink.write(buffer, filled);
+                        filled = 0;
+                    }
+                    buffer[filled++] = (byte) ~symbol;
+                } else if (cacheOffsets[symbol] >= 0) {
+                    final int length = (int) lengths[symbol];
+                    if (filled + length > BUFFER_SIZE) {
+                        sink.write(buffer, filled);
+                        filled = 0;
+                    }
+                    System.arraycopy(cache, cacheOffsets[symbol], buffer, filled, length);
+                    filled += length;
+                } else {
+                    child = symbol;
+                    break;
+                }
+            }
+
+            if (child == -1) {
+                size--;
+            } else {
+                positions[top] = position;
+                rules[size] = child;
+                positions[size] = offsets[child];
+                size++;
+            }
+        }
+
+        if (filled > 0) {
+            sink.write(buffer, filled);
+        }
+    }
+}
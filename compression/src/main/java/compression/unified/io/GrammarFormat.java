@@ -0,0 +1,76 @@
+package compression.unified.io;
+
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Constants and helpers shared by {@link GrammarEncoder} and {@link GrammarDecoder}.
+ * <p>
+ * A binary grammar has the following layout. All numbers are unsigned LEB128 varints, i.e. 7 bits per byte with the
+ * highest bit set on all but the last byte.
+ * <pre>
+ * header:  magic "SLPG", version byte, rule count, top level rule id, symbol count, length of the text
+ * blocks:  rule count, byte lengths of the four sections, followed by the sections:
+ *          lengths        the amount of symbols of each rule
+ *          kinds          one bit per symbol, set for nonterminals, least significant bit first
+ *          terminals      the char value of each terminal
+ *          nonterminals   for each nonterminal in rule i referencing rule j, the value i - j - 1
+ * </pre>
+ * Rules are numbered in topological order, so every rule only references rules with smaller ids.
+ * Blocks are read one after another until all rules have been read.
+ */
+final class GrammarFormat {
+
+    static final byte[] MAGIC = {'S', 'L', 'P', 'G'};
+
+    static final int VERSION = 1;
+
+    /**
+     * A block is finished after the first rule that makes it contain at least this many symbols
+     */
+    static final int BLOCK_SYMBOLS = 1 << 16;
+
+    private GrammarFormat() {}
+
+    static void writeVarInt(ByteArrayList out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.add((byte) value);
+    }
+
+    static void writeVarLong(ByteArrayList out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.add((byte) value);
+    }
+
+    static int readVarInt(InputStream in) throws IOException {
+        final long value = readVarLong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new GrammarFormatException("Value " + value + " is out of range");
+        }
+        return (int) value;
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of grammar");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new GrammarFormatException("Varint is too long");
+    }
+}
@@ -0,0 +1,12 @@
+package compression.unified.io;
+
+import java.io.IOException;
+
+/**
+ * An exception thrown when reading data that is not a valid binary grammar
+ */
+public class GrammarFormatException extends IOException {
+    public GrammarFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,201 @@
+package compression.unified.io;
+
+import compression.unified.UnifiedRuleset;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Gives random access to the text represented by a grammar without expanding it.
+ * <p>
+ * Besides the flattened rules, the index stores for every symbol the length of the text its rule expands to before
+ * that symbol. A position is found by descending from the start rule and binary searching these prefix sums in each
+ * rule on the way, so {@link #charAt(long)} takes O(depth * log(rule length)) time, and {@link #substring(long, long)}
+ * takes O(depth * log(rule length) + j - i) time for the substring [i, j).
+ * <p>
+ * This is not O(depth + j - i): finding the symbol at a position of a rule in constant time would need a table over
+ * the whole expansion of the rule, whose size can be exponential in the size of the grammar. The logarithmic factor
+ * only matters for long rules, like the start rule. Rules of RePair have two symbols, so every level takes constant
+ * time there.
+ * The index needs 12 bytes per symbol of the grammar.
+ */
+public final class GrammarIndex {
+
+    /**
+     * The rules of the grammar
+     */
+    private final FlatGrammar grammar;
+
+    /**
+     * For every symbol, the length of the expansion of the symbols before it in the same rule
+     */
+    private final long[] prefixLengths;
+
+    private GrammarIndex(FlatGrammar grammar) {
+        this.grammar = grammar;
+
+        final int[] offsets = grammar.offsets;
+        final int[] symbols = grammar.symbols;
+        this.prefixLengths = new long[symbols.length];
+        for (int rule = 0; rule < grammar.lengths.length; rule++) {
+            long length = 0;
+            for (int i = offsets[rule]; i < offsets[rule + 1]; i++) {
+                prefixLengths[i] = length;
+                length += symbols[i] < 0 ? 1 : grammar.lengths[symbols[i]];
+            }
+        }
+    }
+
+    /**
+     * Builds the index of a ruleset
+     * @param ruleset The ruleset
+     * @return The index
+     * @throws IllegalArgumentException If the ruleset contains a cycle or references a rule which does not exist
+     */
+    public static GrammarIndex of(UnifiedRuleset ruleset) {
+        return new GrammarIndex(FlatGrammar.of(ruleset));
+    }
+
+    /**
+     * Builds the index of a grammar written by {@link GrammarEncoder}, without building a {@link UnifiedRuleset}
+     * @param in The stream to read the grammar from
+     * @return The index
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    public static GrammarIndex read(InputStream in) throws IOException {
+        return new GrammarIndex(FlatGrammar.read(in));
+    }
+
+    /**
+     * Builds the index of a grammar written by {@link EntropyEncoder}, without building a {@link UnifiedRuleset}
+     * @param in The stream to read the grammar from
+     * @return The index
+     * @throws IOException If reading from the stream fails or the data is not a valid grammar
+     */
+    public static GrammarIndex readEntropyCoded(InputStream in) throws IOException {
+        return new GrammarIndex(FlatGrammar.readEntropyCoded(in));
+    }
+
+    /**
+     * Gets the length of the text represented by the grammar
+     * @return The length of the text
+     */
+    public long length() {
+        return grammar.length();
+    }
+
+    /**
+     * Gets a single character of the text
+     * @param index The position of the character
+     * @return The character
+     * @throws IndexOutOfBoundsException If the index is negative or not less than {@link #length()}
+     */
+    public char charAt(long index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length());
+        }
+
+        int rule = grammar.topLevel;
+        while (true) {
+            final int position = find(rule, index);
+            final int symbol = grammar.symbols[position];
+            if (symbol < 0) {
+                return (char) ~symbol;
+            }
+            index -= prefixLengths[position];
+            rule = symbol;
+        }
+    }
+
+    /**
+     * Gets a part of the text
+     * @param start The position of the first character, inclusive
+     * @param end The position after the last character, exclusive
+     * @return The text between start and end
+     * @throws IndexOutOfBoundsException If start is negative, end is larger than {@link #length()} or start is larger than end
+     */
+    public String substring(long start, long end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+        }
+        if (end - start > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The substring is too long for a String: " + (end - start));
+        }
+        if (start == end) {
+            return "";
+        }
+
+        final int[] offsets = grammar.offsets;
+        final int[] symbols = grammar.symbols;
+
+        // The rules on the path from the start rule to the current symbol, and the position of the next symbol in each
+        final int[] rules = new int[grammar.depth()];
+        final int[] positions = new int[grammar.depth()];
+        int size = 0;
+
+        // Descend to the first character. The deepest rule continues at the terminal itself, the others after the child
+        int rule = grammar.topLevel;
+        long index = start;
+        while (true) {
+            final int position = find(rule, index);
+            rules[size] = rule;
+            final int symbol = symbols[position];
+            if (symbol < 0) {
+                positions[size++] = position;
+                break;
+            }
+            positions[size++] = position + 1;
+            index -= prefixLengths[position];
+            rule = symbol;
+        }
+
+        final int length = (int) (end - start);
+        final var sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            final int top = size - 1;
+            final int ruleEnd = offsets[rules[top] + 1];
+            int position = positions[top];
+            int child = -1;
+            while (position < ruleEnd && sb.length() < length) {
+                final int symbol = symbols[position++];
+                if (symbol < 0) {
+                    sb.append((char) ~symbol);
+                } else {
+                    child = symbol;
+                    break;
+                }
+            }
+
+            if (child == -1) {
+                size--;
+            } else {
+                positions[top] = position;
+                rules[size] = child;
+                positions[size] = offsets[child];
+                size++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Finds the symbol of a rule whose expansion contains the given position
+     * @param rule The rule
+     * @param index The position relative to the start of the rule's expansion. Must be less than its length
+     * @return The position of the symbol in {@link FlatGrammar#symbols}
+     */
+    private int find(int rule, long index) {
+        // The last symbol whose prefix length is at most the index
+        int low = grammar.offsets[rule];
+        int high = grammar.offsets[rule + 1] - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (prefixLengths[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
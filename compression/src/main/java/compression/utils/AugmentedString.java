@@ -1,7 +1,5 @@
 package compression.utils;
 
-import org.jsuffixarrays.SuffixArrays;
-
 import java.util.*;
 
 /**
@@ -10,7 +8,29 @@ import java.util.*;
 public class AugmentedString implements CharSequence {
 
     /**
-     * The underlying String to which the data belongs
+     * The state of an interval on the stack of {@link #forEachLCPInterval(int, LCPIntervalConsumer)}, whose first child
+     * interval has not been visited yet
+     */
+    private static final int FIRST_CHILD = 0;
+
+    /**
+     * The state of an interval on the stack, whose child intervals between two of its l-indices are visited
+     */
+    private static final int NEXT_CHILD = 1;
+
+    /**
+     * The state of an interval on the stack, whose last child interval has been visited
+     */
+    private static final int LAST_CHILD = 2;
+
+    /**
+     * The amount of nested intervals the stack of {@link #forEachLCPInterval(int, LCPIntervalConsumer)} can hold before it grows
+     */
+    private static final int INITIAL_STACK_DEPTH = 64;
+
+    /**
+     * The underlying text to which the data belongs, followed by {@link Character#MAX_VALUE} as a sentinel.
+     * This is a {@link ByteSequence} if this string was created from bytes
      */
     public final CharSequence underlying;
 
@@ -38,17 +58,26 @@ public class AugmentedString implements CharSequence {
     private final int[] childTable;
 
     /**
-     * A static stack used for {@link #childUpDownCompressed(int[], int[])} and {@link #childNextLIndexCompressed(int[], int[])}
-     * to prevent repeated allocation of memory
+     * The range minimum structure over {@link #lcp}, which is created when it is needed for the first time
      */
-    private static final Deque<Integer> stack = new ArrayDeque<>();
+    private volatile RangeMinimum lcpRangeMinimum;
 
     /**
      * Creates a new augmented string from the given String and generates the associated data
+     * using the {@link SuffixArrayBuilder#defaultBuilder() default suffix array builder}
      * @param s The string to augment
      */
-    @SuppressWarnings("StringBufferReplaceableByString")
     public AugmentedString(CharSequence s) {
+        this(s, SuffixArrayBuilder.defaultBuilder());
+    }
+
+    /**
+     * Creates a new augmented string from the given String and generates the associated data
+     * @param s The string to augment
+     * @param builder The builder used to construct the suffix array and the lcp array
+     */
+    @SuppressWarnings("StringBufferReplaceableByString")
+    public AugmentedString(CharSequence s, SuffixArrayBuilder builder) {
         // Workaround for AreaComp V1
         // Since Rules in V1 don't just return their symbols upon calling toString, here a StringBuilder is used,
         // which only uses the CharSequence interface and thus works correctly here.
@@ -56,17 +85,58 @@ public class AugmentedString implements CharSequence {
         this.underlying = new StringBuilder(s).append(Character.MAX_VALUE).toString();
 
 
-        final var suffixData = SuffixArrays.createWithLCP(underlying);
-        this.suffixArray = suffixData.getSuffixArray();
+        final var suffixData = builder.build(underlying);
+        this.suffixArray = suffixData.suffixArray();
         //this.inverseSuffixArray = inverseSuffixArray(suffixArray);
         this.inverseSuffixArray = null;
-        this.lcp = suffixData.getLCP();
+        this.lcp = suffixData.lcp();
         this.lcp[0] = 0;
         this.childTable = childTableCompressed(lcp);
         //System.out.println("Compressed child array: " + Arrays.toString(childTableCompressed(lcp)));
     }
 
 
+    /**
+     * Creates a new augmented string from the given bytes and generates the associated data
+     * using the {@link SuffixArrayBuilder#defaultBuilder() default suffix array builder}.
+     * Every byte is a character with the same unsigned value, as if the bytes were decoded as ISO-8859-1.
+     * @param bytes The bytes to augment. These are not copied, so they must not be modified afterwards
+     */
+    public AugmentedString(byte[] bytes) {
+        this(bytes, SuffixArrayBuilder.defaultBuilder());
+    }
+
+    /**
+     * Creates a new augmented string from the given bytes and generates the associated data.
+     * Every byte is a character with the same unsigned value, as if the bytes were decoded as ISO-8859-1.
+     * The text is kept as bytes, which needs half the memory of a String, and the suffix array is constructed
+     * over the byte alphabet.
+     * @param bytes The bytes to augment. These are not copied, so they must not be modified afterwards
+     * @param builder The builder used to construct the suffix array and the lcp array
+     */
+    public AugmentedString(byte[] bytes, SuffixArrayBuilder builder) {
+        this(new ByteSequence(bytes), builder);
+    }
+
+    /**
+     * Creates a new augmented string from the given bytes and generates the associated data.
+     * The bytes may be memory-mapped, see {@link ByteSequence#map(java.nio.file.Path)}, in which case they are never
+     * copied into the heap as a whole.
+     * @param bytes The bytes to augment. A sentinel of the sequence itself is ignored
+     * @param builder The builder used to construct the suffix array and the lcp array
+     */
+    public AugmentedString(ByteSequence bytes, SuffixArrayBuilder builder) {
+        this.underlying = bytes.withSentinel();
+
+        final var suffixData = builder.build(bytes);
+        this.suffixArray = suffixData.suffixArray();
+        this.inverseSuffixArray = null;
+        this.lcp = suffixData.lcp();
+        this.lcp[0] = 0;
+        this.childTable = childTableCompressed(lcp);
+    }
+
+
     /**
      * Gets the i-th substring in lexicographical order
      * @param i The index in the suffix array
@@ -136,8 +206,10 @@ public class AugmentedString implements CharSequence {
         int[] childTable = new int[lcp.length];
         Arrays.fill(childTable, -1);
 
-        childUpDownCompressed(lcp, childTable);
-        childNextLIndexCompressed(lcp, childTable);
+        // Both passes share one stack, which is local to this call, so several strings can be augmented concurrently
+        final int[] stack = new int[lcp.length];
+        childUpDownCompressed(lcp, childTable, stack);
+        childNextLIndexCompressed(lcp, childTable, stack);
 
         return childTable;
     }
@@ -146,15 +218,17 @@ public class AugmentedString implements CharSequence {
      * Calculates the "up" and "down" fields of {@link #childTable} with Abouelhoda et al's Algorithm
      * @param lcp The lcp array for which to compute the child table
      * @param childTable The child table to populate
+     * @param stack The stack of indices, which needs space for an entry per element of the lcp array
      */
-    private static void childUpDownCompressed(int[] lcp, int[] childTable) {
+    private static void childUpDownCompressed(int[] lcp, int[] childTable, int[] stack) {
         int lastIndex = -1;
-        stack.push(0);
+        int size = 0;
+        stack[size++] = 0;
         for (int i = 1; i < lcp.length; i++) {
-            int top = stack.peek();
+            int top = stack[size - 1];
             while (lcp[i] < lcp[top]) {
-                lastIndex = stack.pop();
-                top = stack.peek();
+                lastIndex = stack[--size];
+                top = stack[size - 1];
                 if(lcp[i] <= lcp[top] && lcp[top] != lcp[lastIndex]) {
                     childTable[top] = lastIndex;
                 }
@@ -165,29 +239,29 @@ public class AugmentedString implements CharSequence {
                     childTable[i - 1] = lastIndex;
                     lastIndex = -1;
                 }
-                stack.push(i);
+                stack[size++] = i;
             }
         }
-        stack.clear();
     }
 
     /**
      * Calculates the "nextLIndex" fields of {@link #childTable} with Abouelhoda et al's Algorithm
      * @param lcp The lcp array for which to compute the child table
      * @param childTable The child table to populate
+     * @param stack The stack of indices, which needs space for an entry per element of the lcp array
      */
-    private static void childNextLIndexCompressed(int[] lcp, int[] childTable) {
-        stack.push(0);
+    private static void childNextLIndexCompressed(int[] lcp, int[] childTable, int[] stack) {
+        int size = 0;
+        stack[size++] = 0;
         for (int i = 1; i < lcp.length; i++) {
-            while(lcp[i] < lcp[stack.peek()]) {
-                stack.pop();
+            while(lcp[i] < lcp[stack[size - 1]]) {
+                size--;
             }
-            if (lcp[i] == lcp[stack.peek()]) {
-                childTable[stack.pop()] = i;
+            if (lcp[i] == lcp[stack[size - 1]]) {
+                childTable[stack[--size]] = i;
             }
-            stack.push(i);
+            stack[size++] = i;
         }
-        stack.clear();
     }
 
 
@@ -247,21 +321,35 @@ public class AugmentedString implements CharSequence {
      */
     public Collection<Interval> getLCPIntervals(int minLValue) {
         var list = new ArrayList<Interval>();
+        forEachLCPInterval(minLValue, (low, high, lValue) -> list.add(new Interval(low, high)));
+        return list;
+    }
+
+    /**
+     * Passes all lcp intervals in this string with an l-value of at least minLValue to a consumer, in the same order as
+     * {@link #getLCPIntervals(int)} returns them. Every interval is directly followed by its child intervals.
+     * The child intervals are traversed with an explicit stack instead of recursion, so no object is allocated per interval
+     * and the deeply nested intervals of highly repetitive strings cannot overflow the call stack
+     *
+     * @param minLValue The minimum l value of the lcp intervals to pass to the consumer
+     * @param consumer The consumer which receives the intervals
+     */
+    public void forEachLCPInterval(int minLValue, LCPIntervalConsumer consumer) {
+        var stack = new int[3 * INITIAL_STACK_DEPTH];
 
         var lastlIndex = 0;
         var currentlIndex = nextLIndex(0);
 
-        if(0 >= minLValue) list.add(new Interval(lastlIndex, length()));
+        if(0 >= minLValue) consumer.accept(lastlIndex, length(), 0);
 
         while (currentlIndex != -1) {
-            if(lValue(lastlIndex, currentlIndex - 1) >= minLValue) list.add(new Interval(lastlIndex, currentlIndex - 1));
-            addChildIntervals(lastlIndex, currentlIndex - 1, minLValue, list);
+            final int lValue = lValue(lastlIndex, currentlIndex - 1);
+            if(lValue >= minLValue) consumer.accept(lastlIndex, currentlIndex - 1, lValue);
+            stack = forEachChildInterval(lastlIndex, currentlIndex - 1, minLValue, consumer, stack);
 
             lastlIndex = currentlIndex;
             currentlIndex = nextLIndex(currentlIndex);
         }
-
-        return list;
     }
 
     /**
@@ -272,49 +360,78 @@ public class AugmentedString implements CharSequence {
      * @param intervals The collection to add the intervals into
      */
     public void addChildIntervals(int low, int high, Collection<Interval> intervals) {
-        addChildIntervals(low, high, 0, intervals);
+        forEachChildInterval(low, high, 0, (childLow, childHigh, lValue) -> intervals.add(new Interval(childLow, childHigh)),
+                new int[3 * INITIAL_STACK_DEPTH]);
     }
 
     /**
-     * Add all the child intervals in the given lcp-interval (low, high) according to Abouelhoda et al with a minimum l-value to a collection
+     * Passes all the child intervals in the given lcp-interval (low, high) according to Abouelhoda et al with a minimum
+     * l-value and a length greater than 1 to a consumer, each directly followed by its own child intervals.
+     * <p>
+     * Every frame on the stack consists of three values: the l-index at which the next child interval starts (or the
+     * lower bound of the interval, before the first child), the upper bound of the interval and its {@link #FIRST_CHILD state}
      *
      * @param low The lower bound of the lcp interval
      * @param high The upper bound of the lcp interval
-     * @param minLValue The minimum l-value of the returned intervals
-     * @param intervals The collection to add the intervals into
+     * @param minLValue The minimum l-value of the intervals to pass to the consumer
+     * @param consumer The consumer which receives the intervals
+     * @param stack The stack to use for the traversal
+     * @return The stack, which has been replaced by a larger one if it was too small
      */
-    private void addChildIntervals(int low, int high, int minLValue, Collection<Interval> intervals) {
-        if (low >= high) return;
-
-        int currentLIndex;
-
-        // Get the first l index of the lcp interval
-        if (low < up(high + 1) && up(high + 1) <= high) {
-            currentLIndex = up(high + 1);
-        } else {
-            currentLIndex = down(low);
-        }
-
-        // Add the first child interval if its length is greater than 1 and has a high enough l-value
-        if(currentLIndex - 1 > low && lValue(low, currentLIndex - 1) >= minLValue) {
-            intervals.add(new Interval(low, currentLIndex - 1));
-            addChildIntervals(low, currentLIndex - 1, minLValue, intervals);
-        }
-
-        while (hasNextLIndex(currentLIndex)) {
-            int nextLIndex = nextLIndex(currentLIndex);
-            if(nextLIndex - 1 > currentLIndex && lValue(currentLIndex, nextLIndex - 1) >= minLValue) {
-                intervals.add(new Interval(currentLIndex, nextLIndex - 1));
-                addChildIntervals(currentLIndex, nextLIndex - 1, minLValue, intervals);
+    private int[] forEachChildInterval(int low, int high, int minLValue, LCPIntervalConsumer consumer, int[] stack) {
+        if (low >= high) return stack;
+
+        int size = 0;
+        stack[size++] = low;
+        stack[size++] = high;
+        stack[size++] = FIRST_CHILD;
+
+        while (size > 0) {
+            final int state = stack[size - 1];
+            final int intervalHigh = stack[size - 2];
+            final int currentLIndex = stack[size - 3];
+
+            final int childLow;
+            final int childHigh;
+            if (state == FIRST_CHILD) {
+                // Get the first l index of the lcp interval, whose lower bound is still on the stack
+                final int up = up(intervalHigh + 1);
+                final int firstLIndex = currentLIndex < up && up <= intervalHigh ? up : down(currentLIndex);
+                childLow = currentLIndex;
+                childHigh = firstLIndex - 1;
+                stack[size - 3] = firstLIndex;
+                stack[size - 1] = NEXT_CHILD;
+            } else if (state == NEXT_CHILD && hasNextLIndex(currentLIndex)) {
+                final int nextLIndex = nextLIndex(currentLIndex);
+                childLow = currentLIndex;
+                childHigh = nextLIndex - 1;
+                stack[size - 3] = nextLIndex;
+            } else if (state == NEXT_CHILD) {
+                childLow = currentLIndex;
+                childHigh = intervalHigh;
+                stack[size - 1] = LAST_CHILD;
+            } else {
+                // All children of the interval have been traversed
+                size -= 3;
+                continue;
             }
-            currentLIndex = nextLIndex;
-        }
 
-        int lValue = lValue(currentLIndex, high);
-        if(high > currentLIndex && lValue >= minLValue) {
-            intervals.add(new Interval(currentLIndex, high));
-            addChildIntervals(currentLIndex, high, minLValue, intervals);
+            // Only pass on child intervals whose length is greater than 1 and which have a high enough l-value
+            if (childHigh > childLow) {
+                final int lValue = lValue(childLow, childHigh);
+                if (lValue >= minLValue) {
+                    consumer.accept(childLow, childHigh, lValue);
+
+                    if (size + 3 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length + (stack.length >> 1));
+                    }
+                    stack[size++] = childLow;
+                    stack[size++] = childHigh;
+                    stack[size++] = FIRST_CHILD;
+                }
+            }
         }
+        return stack;
     }
 
     /**
@@ -333,6 +450,36 @@ public class AugmentedString implements CharSequence {
         }
     }
 
+    /**
+     * Gets the minimum of the lcp array in an arbitrary range in constant time.
+     * In contrast to {@link #lValue(int, int)}, the range does not have to be an lcp interval
+     * @param from The inclusive start of the range
+     * @param to The inclusive end of the range
+     * @return The minimum value of {@link #lcp} in [from, to]
+     */
+    public int lcpMinimum(int from, int to) {
+        return lcpRangeMinimum().minimum(from, to);
+    }
+
+    /**
+     * Gets the range minimum structure over the lcp array. It is created on the first call, which takes linear time.
+     * This method may be called from multiple threads
+     * @return The range minimum structure
+     */
+    public RangeMinimum lcpRangeMinimum() {
+        var rangeMinimum = lcpRangeMinimum;
+        if (rangeMinimum == null) {
+            synchronized (this) {
+                rangeMinimum = lcpRangeMinimum;
+                if (rangeMinimum == null) {
+                    rangeMinimum = RangeMinimum.of(lcp);
+                    lcpRangeMinimum = rangeMinimum;
+                }
+            }
+        }
+        return rangeMinimum;
+    }
+
     /**
      * Gets the lcp value at a specific index
      * @param i The index
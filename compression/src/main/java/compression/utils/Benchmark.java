@@ -1,12 +1,20 @@
 package compression.utils;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * A class offering functions for recording execution time mainly through {@link #startTimer(String, String)} and {@link #stopTimer(String, String)}.
+ * A class offering functions for recording execution time.
+ * Timers are registered once through {@link #timer(String, String)}, which returns a {@link Timer} handle.
+ * Hot code should keep that handle in a static field and use {@link Timer#start()} and {@link Timer#stop(long)}, so that no
+ * string hashing or allocation happens while measuring. All timers are thread-safe.
+ * <p>
+ * Recording can be switched on and off at runtime using {@link #setEnabled(boolean)}. Initially it is enabled if the
+ * system property {@code compression.benchmark} is set to true.
  * Results can be retrieved through {@link #getGroupBenchmarkData(String)} or {@link #getAllValues()}.
  */
 public final class Benchmark {
@@ -14,91 +22,214 @@ public final class Benchmark {
     /**
      * Whether recording benchmark data is enabled
      */
-    private static final boolean ENABLE = false;
+    private static volatile boolean enabled = Boolean.getBoolean("compression.benchmark");
 
     /**
-     * A map that maps `group name -> timer name -> benchmark data`. This records all benchmark data
+     * A map that maps `group name -> timer name -> timer`. This contains all registered timers.
+     * It is only accessed while holding its lock, which is fine, since timers are only registered once.
      */
-    private static final Map<String, Map<String, BenchmarkData>> EXECUTION_TIMES = new TreeMap<>();
+    private static final Map<String, Map<String, Timer>> TIMERS = new TreeMap<>();
 
     /**
-     * A temporary storage for running timers. It maps `group name -> timer name -> timer start time`.
-     * The start time is recorded in nanoseconds.
-     *
-     * @see System#nanoTime()
+     * The start times of the timers started through {@link #startTimer(String, String)} on the current thread
+     */
+    private static final ThreadLocal<Map<Timer, Long>> RUNNING_TIMERS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * The value returned by {@link Timer#start()} if recording is disabled
+     */
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private Benchmark() {}
+
+    /**
+     * Switches recording of benchmark data on or off
+     * @param enable Whether benchmark data should be recorded
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Checks whether benchmark data is currently being recorded
+     * @return true, if benchmark data is recorded, false otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the timer with the given name in the given group. If there is no such timer yet, it is registered.
+     * The returned handle should be stored and reused, as looking it up is comparatively expensive.
+     * @param group The name of the group which the timer belongs to
+     * @param timerName The name of the timer
+     * @return The timer
      */
-    private static final Map<String, Map<String, Long>> TIMERS = new HashMap<>();
+    public static Timer timer(String group, String timerName) {
+        synchronized (TIMERS) {
+            return TIMERS.computeIfAbsent(group, name -> new LinkedHashMap<>())
+                    .computeIfAbsent(timerName, name -> new Timer());
+        }
+    }
 
     /**
      * Starts a timer to record execution time. The timer can be stopped using {@link #stopTimer(String, String)},
-     * which stops the timer and adds the recorded time to the corresponding value in {@link #EXECUTION_TIMES}
+     * which stops the timer and adds the recorded time to it.
+     * This looks up the timer by its name on every call. In frequently executed code, use a {@link Timer} handle instead.
      * @param group The name of the group which the timer belongs to
      * @param timerName The name of the timer
      *
      * @see #stopTimer(String, String)
-     * @see #updateTime(String, String, long)
+     * @see #timer(String, String)
      */
     public static void startTimer(String group, String timerName) {
-        if(!ENABLE) return;
-        TIMERS.computeIfAbsent(group, k -> new HashMap<>());
-        final var previous = TIMERS.get(group).put(timerName, System.nanoTime());
+        if(!enabled) return;
+        final var previous = RUNNING_TIMERS.get().put(timer(group, timerName), System.nanoTime());
         if(previous != null) throw new TimerAlreadyStartedException(group, timerName);
     }
 
     /**
-     * Stops a timer started by {@link #startTimer(String, String)}. The recorded time is added to the {@link #EXECUTION_TIMES}
-     * map. This calls {@link #updateTime(String, String, long)} internally.
+     * Stops a timer started by {@link #startTimer(String, String)} on the same thread and adds the recorded time to the timer.
      * @param group The group which this timer belongs to
      * @param timerName The name of this timer
      *
      * @see #startTimer(String, String)
-     * @see #updateTime(String, String, long)
      */
     public static void stopTimer(String group, String timerName) {
-        if(!ENABLE) return;
-        if(!TIMERS.containsKey(group) || !TIMERS.get(group).containsKey(timerName)) {
+        if(!enabled) return;
+        final Long start = RUNNING_TIMERS.get().remove(timer(group, timerName));
+        if(start == null) {
             throw new NoTimerStartedException(group, timerName);
         }
-        updateTime(group, timerName, System.nanoTime() - TIMERS.get(group).remove(timerName));
+        timer(group, timerName).record(System.nanoTime() - start);
     }
 
     /**
-     * Adds the given time to a timer. For ease of use, rather use {@link #startTimer(String, String)} and {@link #stopTimer(String, String)}
-     * than this.
+     * Adds the given time to a timer. For ease of use, rather use a {@link Timer} handle than this.
      * @param group The group which this timer belongs to
      * @param timerName The name of this timer
      * @param timeNs The time to add to the timer in nanoseconds
      */
     public static void updateTime(String group, String timerName, long timeNs) {
-        if(!ENABLE) return;
-        if(!EXECUTION_TIMES.containsKey(group)) {
-            EXECUTION_TIMES.put(group, new LinkedHashMap<>());
-        }
-        EXECUTION_TIMES.computeIfAbsent(group, name -> new LinkedHashMap<>()) // get the map which contains the benchmark data for the given algorithm
-                .computeIfAbsent(timerName, n -> new BenchmarkData()) // Get the benchmark data that tracks this timer name
-                .addTime(timeNs); // Add the new time to it
+        if(!enabled) return;
+        timer(group, timerName).record(timeNs);
     }
 
     /**
-     * Gets all the benchmark data in a group.
+     * Gets a snapshot of all the benchmark data in a group.
      * @param group The group whose values to get
      * @return A map, that maps from timer name to its corresponding benchmark data
      */
     public static Map<String, BenchmarkData> getGroupBenchmarkData(String group) {
-        return EXECUTION_TIMES.getOrDefault(group, new HashMap<>());
+        final var result = new LinkedHashMap<String, BenchmarkData>();
+        synchronized (TIMERS) {
+            TIMERS.getOrDefault(group, Map.of()).forEach((name, timer) -> result.put(name, timer.snapshot()));
+        }
+        return result;
     }
 
     /**
-     * Gets all benchmark values.
+     * Gets a snapshot of all benchmark values.
      * @return A map that marks from a group name, to another map which maps from timer names to their corresponding benchmark data
      *
      * @see #getGroupBenchmarkData(String)
      */
     public static Map<String, Map<String, BenchmarkData>> getAllValues() {
-        return EXECUTION_TIMES;
+        final var result = new TreeMap<String, Map<String, BenchmarkData>>();
+        synchronized (TIMERS) {
+            TIMERS.keySet().forEach(group -> result.put(group, getGroupBenchmarkData(group)));
+        }
+        return result;
+    }
+
+    /**
+     * Resets the recorded data of all timers. The timers stay registered.
+     */
+    public static void reset() {
+        synchronized (TIMERS) {
+            TIMERS.values().forEach(group -> group.values().forEach(Timer::reset));
+        }
     }
 
 
+    /**
+     * A handle to a registered timer. Time is accumulated in {@link LongAdder}s, so that concurrent updates from
+     * multiple threads neither block nor contend on the same memory location.
+     * Besides the total time, a histogram with power-of-two buckets over the single recorded times is kept.
+     */
+    public static final class Timer {
+
+        /**
+         * The amount of histogram buckets. Bucket i counts the times t with 2^(i-1) <= t < 2^i nanoseconds.
+         * Bucket 0 counts times of 0ns.
+         */
+        static final int HISTOGRAM_BUCKETS = 64;
+
+        private final LongAdder timeNs = new LongAdder();
+
+        private final LongAdder callCount = new LongAdder();
+
+        private final LongAdder[] histogram = new LongAdder[HISTOGRAM_BUCKETS];
+
+        private Timer() {
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Starts a measurement. The returned value must be passed to {@link #stop(long)}.
+         * @return The start time, or a sentinel value if recording is disabled
+         */
+        public long start() {
+            return enabled ? System.nanoTime() : NOT_STARTED;
+        }
+
+        /**
+         * Stops a measurement started by {@link #start()} and records the elapsed time
+         * @param startNs The value returned by {@link #start()}
+         */
+        public void stop(long startNs) {
+            if(startNs == NOT_STARTED) return;
+            record(System.nanoTime() - startNs);
+        }
+
+        /**
+         * Records the given time and increases the call count by one
+         * @param timeNs The time to add in nanoseconds
+         */
+        public void record(long timeNs) {
+            if(!enabled) return;
+            this.timeNs.add(timeNs);
+            this.callCount.increment();
+            histogram[bucket(timeNs)].increment();
+        }
+
+        private static int bucket(long timeNs) {
+            return timeNs <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(timeNs);
+        }
+
+        private void reset() {
+            timeNs.reset();
+            callCount.reset();
+            for (LongAdder bucket : histogram) {
+                bucket.reset();
+            }
+        }
+
+        /**
+         * Gets the data recorded by this timer at this point in time
+         * @return The recorded data
+         */
+        public BenchmarkData snapshot() {
+            final long[] counts = new long[histogram.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = histogram[i].sum();
+            }
+            return new BenchmarkData(timeNs.sum(), callCount.sum(), counts);
+        }
+    }
+
     /**
      * An exception thrown when trying to start a timer while it is already running
      */
@@ -124,25 +255,22 @@ public final class Benchmark {
         /**
          * The total execution time
          */
-        private long timeNs;
+        private final long timeNs;
 
         /**
          * The amount of times the timer has been called
          */
-        private long callCount;
-
-        public BenchmarkData() {
-            this.timeNs = 0;
-            this.callCount = 0;
-        }
+        private final long callCount;
 
         /**
-         * Adds time and increases {@link #callCount} by one
-         * @param timeNs The time to add
+         * The histogram of the single recorded times. See {@link Timer#HISTOGRAM_BUCKETS} for the bucket bounds
          */
-        private void addTime(long timeNs) {
-            this.timeNs += timeNs;
-            this.callCount++;
+        private final long[] histogram;
+
+        public BenchmarkData(long timeNs, long callCount, long[] histogram) {
+            this.timeNs = timeNs;
+            this.callCount = callCount;
+            this.histogram = histogram;
         }
 
         /**
@@ -169,9 +297,35 @@ public final class Benchmark {
             return callCount;
         }
 
+        /**
+         * Gets an upper bound for the given percentile of the single recorded times.
+         * Since the histogram buckets are powers of two, this is precise up to a factor of two.
+         * @param percentile The percentile in the range [0, 1]
+         * @return The upper bound in nanoseconds, or 0 if nothing has been recorded
+         */
+        public long percentileNanos(double percentile) {
+            final long rank = (long) Math.ceil(percentile * callCount);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if(seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : (1L << i) - 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Gets the histogram of the single recorded times
+         * @return A copy of the histogram
+         */
+        public long[] histogram() {
+            return Arrays.copyOf(histogram, histogram.length);
+        }
+
         @Override
         public String toString() {
-            return "%dms, %d calls".formatted(timeMillis(), callCount);
+            return "%dms, %d calls, p50 <= %dns, p99 <= %dns".formatted(timeMillis(), callCount, percentileNanos(0.5), percentileNanos(0.99));
         }
     }
 }
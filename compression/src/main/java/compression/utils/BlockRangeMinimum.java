@@ -0,0 +1,101 @@
+package compression.utils;
+
+/**
+ * A range minimum structure for large arrays, which needs about 7.5 bytes per entry regardless of the array's length.
+ * <p>
+ * The array is split into blocks of 32 entries. Queries spanning several blocks use a {@link SparseTableRangeMinimum}
+ * over the minima of the blocks in between. Queries inside a block use a bit mask per entry: the mask of position i
+ * marks the positions j <= i in its block whose value is at most every value in (j, i], which is the stack of
+ * candidates for the minimum of a range ending at i. The minimum of [from, i] is the first candidate at or after from,
+ * so it is found with a single {@link Integer#numberOfTrailingZeros(int)}.
+ * This follows the approach of Ferrada and Navarro, "Improved Range Minimum Queries".
+ */
+public class BlockRangeMinimum implements RangeMinimum {
+
+    private static final int BLOCK_BITS = 5;
+
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    private final int[] values;
+
+    /**
+     * The candidate masks of all positions as described above. Bit j refers to the j-th position of the block
+     */
+    private final int[] masks;
+
+    /**
+     * The position of the minimum of each block
+     */
+    private final int[] blockMinimumIndices;
+
+    /**
+     * The range minimum structure over the minima of the blocks
+     */
+    private final SparseTableRangeMinimum blocks;
+
+    /**
+     * Creates the structure for an array
+     * @param values The array. It is not copied
+     */
+    public BlockRangeMinimum(int[] values) {
+        this.values = values;
+        this.masks = new int[values.length];
+
+        final int blockCount = (values.length + BLOCK_SIZE - 1) >>> BLOCK_BITS;
+        this.blockMinimumIndices = new int[blockCount];
+        final int[] blockMinima = new int[blockCount];
+
+        for (int block = 0; block < blockCount; block++) {
+            final int start = block << BLOCK_BITS;
+            final int end = Math.min(values.length, start + BLOCK_SIZE);
+            int mask = 0;
+            for (int i = start; i < end; i++) {
+                // Remove the candidates with a larger value, which are the highest bits of the mask
+                while (mask != 0) {
+                    final int top = 31 - Integer.numberOfLeadingZeros(mask);
+                    if (values[start + top] <= values[i]) break;
+                    mask &= ~(1 << top);
+                }
+                mask |= 1 << (i - start);
+                masks[i] = mask;
+            }
+            // The lowest candidate of the last position is the minimum of the whole block
+            blockMinimumIndices[block] = start + Integer.numberOfTrailingZeros(masks[end - 1]);
+            blockMinima[block] = values[blockMinimumIndices[block]];
+        }
+        this.blocks = new SparseTableRangeMinimum(blockMinima);
+    }
+
+    /**
+     * Gets the position of the minimum of a range inside one block
+     */
+    private int inBlock(int from, int to) {
+        final int start = to & -BLOCK_SIZE;
+        return start + Integer.numberOfTrailingZeros(masks[to] & (-1 << (from - start)));
+    }
+
+    @Override
+    public int minimumIndex(int from, int to) {
+        RangeMinimum.checkRange(from, to, values.length);
+
+        final int fromBlock = from >>> BLOCK_BITS;
+        final int toBlock = to >>> BLOCK_BITS;
+        if (fromBlock == toBlock) {
+            return inBlock(from, to);
+        }
+
+        // Compare from left to right and only replace on strictly smaller values, so the leftmost minimum is kept
+        int minimum = inBlock(from, (fromBlock << BLOCK_BITS) + BLOCK_SIZE - 1);
+        if (fromBlock + 1 < toBlock) {
+            final int between = blockMinimumIndices[blocks.minimumIndex(fromBlock + 1, toBlock - 1)];
+            if (values[between] < values[minimum]) minimum = between;
+        }
+        final int last = inBlock(toBlock << BLOCK_BITS, to);
+        return values[last] < values[minimum] ? last : minimum;
+    }
+
+    @Override
+    public int minimum(int from, int to) {
+        return values[minimumIndex(from, to)];
+    }
+}
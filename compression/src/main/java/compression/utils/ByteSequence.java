@@ -0,0 +1,178 @@
+package compression.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CharSequence} view of bytes, which maps every byte to the char with the same unsigned value,
+ * just like decoding the bytes as ISO-8859-1 would. In contrast to a {@link String} it only needs one byte per character.
+ * <p>
+ * The bytes are either stored in a byte array or in a file, which is memory-mapped by {@link #map(Path)}.
+ * A sequence has at most {@link #MAX_LENGTH} bytes, so a file larger than about 2GB cannot be mapped as a whole.
+ * Such files can be compressed by the streaming compressors, whose
+ * {@link compression.unified.interfaces.UnifiedCompressor#compress(Path)} reads the file instead of mapping it.
+ * <p>
+ * Optionally the sequence ends with an additional {@link Character#MAX_VALUE}, which is not stored with the bytes.
+ * This is used by {@link AugmentedString} as the unique sentinel at the end of its text.
+ */
+public final class ByteSequence implements CharSequence {
+
+    /**
+     * The maximum amount of bytes in a sequence. All positions in texts and grammars are ints, and the suffix array
+     * needs additional entries for the sentinel, so larger inputs have to be split before they are compressed.
+     * This is also less than the maximum size of a single mapping with {@link FileChannel#map}
+     */
+    public static final int MAX_LENGTH = Integer.MAX_VALUE - 16;
+
+    /**
+     * The bytes of this sequence if it is backed by an array, otherwise null.
+     * These are not copied, so they must not be modified while this sequence is in use
+     */
+    private final byte[] array;
+
+    /**
+     * The mapped bytes of this sequence if it is backed by a file, otherwise null
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The amount of bytes, not including the sentinel
+     */
+    private final int size;
+
+    /**
+     * Whether {@link Character#MAX_VALUE} is appended after the last byte
+     */
+    private final boolean sentinel;
+
+    /**
+     * Creates a new sequence backed by the given bytes
+     * @param bytes The bytes. These are not copied
+     */
+    public ByteSequence(byte[] bytes) {
+        this(bytes, null, bytes.length, false);
+    }
+
+    private ByteSequence(byte[] array, ByteBuffer buffer, int size, boolean sentinel) {
+        this.array = array;
+        this.buffer = buffer;
+        this.size = size;
+        this.sentinel = sentinel;
+    }
+
+    /**
+     * Creates a new sequence backed by the given bytes, which is followed by {@link Character#MAX_VALUE}
+     * @param bytes The bytes. These are not copied
+     * @return The sequence, whose length is one more than the amount of bytes
+     */
+    public static ByteSequence withSentinel(byte[] bytes) {
+        return new ByteSequence(bytes).withSentinel();
+    }
+
+    /**
+     * Memory-maps the given file read-only. The file's contents are not read into the heap, but paged in by the
+     * operating system when they are accessed. The file must not be modified while the sequence is in use.
+     * @param file The file to map
+     * @return The sequence of the file's bytes
+     * @throws IOException If the file could not be opened or mapped
+     * @throws IllegalArgumentException If the file is larger than {@link #MAX_LENGTH}
+     */
+    public static ByteSequence map(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return map(channel);
+        }
+    }
+
+    /**
+     * Memory-maps the whole content of the given channel read-only. The mapping stays valid after the channel is closed.
+     * @param channel The channel to map
+     * @return The sequence of the channel's bytes
+     * @throws IOException If the channel could not be mapped
+     * @throws IllegalArgumentException If the channel is larger than {@link #MAX_LENGTH}
+     */
+    public static ByteSequence map(FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size > MAX_LENGTH) {
+            throw new IllegalArgumentException("Cannot compress " + size + " bytes at once, the maximum is " + MAX_LENGTH + " bytes");
+        }
+        return new ByteSequence(null, channel.map(FileChannel.MapMode.READ_ONLY, 0, size), (int) size, false);
+    }
+
+    /**
+     * Gets a sequence with the same bytes, which is followed by {@link Character#MAX_VALUE}
+     * @return The sequence, whose length is one more than the amount of bytes
+     */
+    public ByteSequence withSentinel() {
+        return sentinel ? this : new ByteSequence(array, buffer, size, true);
+    }
+
+    /**
+     * Gets the amount of bytes in this sequence, which does not include the sentinel
+     * @return The amount of bytes
+     */
+    public int byteLength() {
+        return size;
+    }
+
+    /**
+     * Gets the unsigned value of the byte at the given index
+     * @param index The index
+     * @return The value in the range [0, 255]
+     */
+    public int byteAt(int index) {
+        if (array != null) {
+            return array[index] & 0xFF;
+        }
+        return buffer.get(index) & 0xFF;
+    }
+
+    /**
+     * Copies the bytes of this sequence into a new array. The sentinel is not included
+     * @return The bytes
+     */
+    public byte[] toByteArray() {
+        if (array != null) {
+            return array.clone();
+        }
+        final byte[] bytes = new byte[size];
+        buffer.get(0, bytes);
+        return bytes;
+    }
+
+    @Override
+    public int length() {
+        return sentinel ? size + 1 : size;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (sentinel && index == size) {
+            return Character.MAX_VALUE;
+        }
+        return (char) byteAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+        }
+        final var sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            sb.append(charAt(i));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        final String s = array != null
+                ? new String(array, StandardCharsets.ISO_8859_1)
+                : new String(toByteArray(), StandardCharsets.ISO_8859_1);
+        return sentinel ? s + Character.MAX_VALUE : s;
+    }
+}
@@ -0,0 +1,17 @@
+package compression.utils;
+
+/**
+ * Receives the lcp intervals enumerated by {@link AugmentedString#forEachLCPInterval(int, LCPIntervalConsumer)}
+ */
+@FunctionalInterface
+public interface LCPIntervalConsumer {
+
+    /**
+     * Called for every enumerated lcp interval
+     *
+     * @param low The lower bound of the lcp interval (inclusive)
+     * @param high The upper bound of the lcp interval (inclusive)
+     * @param lValue The l-value of the lcp interval
+     */
+    void accept(int low, int high, int lValue);
+}
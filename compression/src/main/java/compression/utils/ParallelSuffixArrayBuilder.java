@@ -0,0 +1,221 @@
+package compression.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Builds suffix arrays on multiple threads.
+ * <p>
+ * The suffix array is constructed by prefix doubling: the suffixes are first sorted by their first character, and in every
+ * following round each group of suffixes that are still equal is sorted by the rank of the suffix h characters further
+ * in the text, which doubles the amount of characters that are known to be sorted. The groups of a round are
+ * independent of each other, so they are refined in parallel, and large groups are sorted with {@link Arrays#parallelSort(long[], int, int)}.
+ * <p>
+ * The lcp array is computed with Kasai et al's algorithm. The text is split into chunks, whose lcp values are computed
+ * in parallel. Each chunk only loses the lcp value carried over from the previous chunk.
+ * <p>
+ * The results are the same as those of {@link SequentialSuffixArrayBuilder}.
+ */
+public class ParallelSuffixArrayBuilder implements SuffixArrayBuilder {
+
+    /**
+     * Groups with less suffixes than this are sorted and scanned sequentially
+     */
+    private static final int PARALLEL_GROUP_THRESHOLD = 1 << 16;
+
+    /**
+     * The minimum amount of text positions for which the lcp values are computed by the same task
+     */
+    private static final int MIN_LCP_CHUNK = 1 << 14;
+
+    /**
+     * The pool that executes the construction
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new builder that uses the common pool
+     */
+    public ParallelSuffixArrayBuilder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new builder that uses its own pool with the given parallelism
+     * @param parallelism The amount of threads to use
+     */
+    public ParallelSuffixArrayBuilder(int parallelism) {
+        this(new ForkJoinPool(parallelism));
+    }
+
+    /**
+     * Creates a new builder that runs in the given pool
+     * @param pool The pool to use
+     */
+    public ParallelSuffixArrayBuilder(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public SuffixData build(CharSequence text) {
+        return pool.submit(() -> construct(text.toString().toCharArray())).join();
+    }
+
+    @Override
+    public SuffixData build(ByteSequence text) {
+        return pool.submit(() -> {
+            final int n = text.byteLength();
+            final char[] chars = new char[n + 1];
+            for (int i = 0; i < n; i++) {
+                chars[i] = (char) text.byteAt(i);
+            }
+            chars[n] = Character.MAX_VALUE;
+            return construct(chars);
+        }).join();
+    }
+
+    private SuffixData construct(char[] text) {
+        final int n = text.length;
+
+        // One additional entry with the value -1, like the arrays produced by jsuffixarrays
+        final int[] sa = new int[n + 1];
+        sa[n] = -1;
+        if (n == 0) {
+            return new SuffixData(sa, new int[0]);
+        }
+
+        // The rank of a suffix is the index of the first entry of its group in the suffix array
+        final int[] rank = new int[n];
+        // The index of the first entry of the group at each position in the suffix array. Reused for the lcp array
+        final int[] heads = new int[n];
+        final long[] keys = new long[n];
+
+        Arrays.parallelSetAll(keys, i -> ((long) text[i] << 32) | i);
+        Arrays.parallelSort(keys);
+
+        long[] groups = {(long) n};
+        for (int h = 1; groups.length > 0; h *= 2) {
+            final long[] current = groups;
+
+            // Each group is a long with its start in the upper and its end in the lower half
+            finishGroups(current, keys, sa, heads);
+            IntStream.range(0, current.length).parallel().forEach(g -> {
+                final int start = (int) (current[g] >>> 32);
+                final int end = (int) current[g];
+                updateRanks(start, end, sa, heads, rank);
+            });
+            groups = IntStream.range(0, current.length).parallel()
+                    .mapToObj(g -> splitGroup((int) (current[g] >>> 32), (int) current[g], heads))
+                    .flatMapToLong(s -> s)
+                    .toArray();
+
+            if (groups.length == 0) break;
+
+            final long[] next = groups;
+            final int offset = h;
+            IntStream.range(0, next.length).parallel().forEach(g -> {
+                final int start = (int) (next[g] >>> 32);
+                final int end = (int) next[g];
+                for (int k = start; k < end; k++) {
+                    final int suffix = sa[k];
+                    final long key = suffix + offset < n ? rank[suffix + offset] + 1 : 0;
+                    keys[k] = (key << 32) | suffix;
+                }
+                if (end - start >= PARALLEL_GROUP_THRESHOLD) {
+                    Arrays.parallelSort(keys, start, end);
+                } else {
+                    Arrays.sort(keys, start, end);
+                }
+            });
+        }
+
+        final int[] lcp = heads;
+        computeLcp(text, sa, rank, lcp, pool.getParallelism());
+        return new SuffixData(sa, lcp);
+    }
+
+    /**
+     * Writes the sorted suffixes of the given groups from the keys into the suffix array and marks their new group heads
+     */
+    private static void finishGroups(long[] groups, long[] keys, int[] sa, int[] heads) {
+        IntStream.range(0, groups.length).parallel().forEach(g -> {
+            final int start = (int) (groups[g] >>> 32);
+            final int end = (int) groups[g];
+            if (end - start >= PARALLEL_GROUP_THRESHOLD) {
+                IntStream.range(start, end).parallel().forEach(k -> {
+                    sa[k] = (int) keys[k];
+                    heads[k] = k == start || (keys[k] >>> 32) != (keys[k - 1] >>> 32) ? k : -1;
+                });
+                Arrays.parallelPrefix(heads, start, end, Math::max);
+            } else {
+                int head = start;
+                for (int k = start; k < end; k++) {
+                    sa[k] = (int) keys[k];
+                    if ((keys[k] >>> 32) != (keys[head] >>> 32)) {
+                        head = k;
+                    }
+                    heads[k] = head;
+                }
+            }
+        });
+    }
+
+    private static void updateRanks(int start, int end, int[] sa, int[] heads, int[] rank) {
+        if (end - start >= PARALLEL_GROUP_THRESHOLD) {
+            IntStream.range(start, end).parallel().forEach(k -> rank[sa[k]] = heads[k]);
+        } else {
+            for (int k = start; k < end; k++) {
+                rank[sa[k]] = heads[k];
+            }
+        }
+    }
+
+    /**
+     * Finds the groups inside the given range that still contain more than one suffix
+     * @return The start and end of each group, encoded as in {@link #construct(char[])}
+     */
+    private static LongStream splitGroup(int start, int end, int[] heads) {
+        final var builder = LongStream.builder();
+        int head = start;
+        for (int k = start + 1; k <= end; k++) {
+            if (k == end || heads[k] != head) {
+                if (k - head > 1) {
+                    builder.add(((long) head << 32) | k);
+                }
+                head = k;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Computes the lcp array from the suffix array and the inverse suffix array with Kasai et al's algorithm
+     */
+    private static void computeLcp(char[] text, int[] sa, int[] inverse, int[] lcp, int parallelism) {
+        final int n = text.length;
+        final int chunks = Math.max(1, Math.min(parallelism * 4, n / MIN_LCP_CHUNK));
+        final int chunkSize = (n + chunks - 1) / chunks;
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            final int from = c * chunkSize;
+            final int to = Math.min(n, from + chunkSize);
+            int h = 0;
+            for (int i = from; i < to; i++) {
+                final int k = inverse[i];
+                if (k == 0) {
+                    h = 0;
+                    continue;
+                }
+                final int j = sa[k - 1];
+                while (i + h < n && j + h < n && text[i + h] == text[j + h]) {
+                    h++;
+                }
+                lcp[k] = h;
+                if (h > 0) h--;
+            }
+        });
+        lcp[0] = -1;
+    }
+}
@@ -0,0 +1,194 @@
+package compression.utils;
+
+import java.util.ArrayList;
+
+/**
+ * A set of ints in a fixed universe [0, universeSize), which supports predecessor and successor queries.
+ * <p>
+ * The elements are stored in a bit set, on top of which there are summary levels with one bit per word of the level
+ * below, which is set if the word is not zero. Queries go up the levels until they find a word with a matching bit and
+ * then down again, so every operation takes O(log_64(universeSize)) time, which are at most 6 steps, and the set
+ * needs little more than one bit per element of the universe. In contrast to {@link BucketPred} no objects are
+ * allocated after the set has been created.
+ */
+public final class PredecessorBitSet {
+
+    /**
+     * The levels of the set. The first level contains a bit for each element, every further level a bit for each word of the level before
+     */
+    private final long[][] levels;
+
+    private final int universeSize;
+
+    private int size;
+
+    /**
+     * Creates a new empty set
+     * @param universeSize The amount of possible elements. Valid elements are in the range [0, universeSize)
+     */
+    public PredecessorBitSet(int universeSize) {
+        if (universeSize < 0) {
+            throw new IllegalArgumentException("Negative universe size " + universeSize);
+        }
+        this.universeSize = universeSize;
+
+        final var levels = new ArrayList<long[]>();
+        int bits = universeSize;
+        int words;
+        do {
+            words = (bits + 63) >>> 6;
+            levels.add(new long[Math.max(1, words)]);
+            bits = words;
+        } while (words > 1);
+        this.levels = levels.toArray(new long[0][]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= universeSize) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for universe size " + universeSize);
+        }
+    }
+
+    /**
+     * Adds an element to the set
+     * @param index The element
+     * @return true, if the element was not in the set before, false otherwise
+     */
+    public boolean add(int index) {
+        checkIndex(index);
+        if (contains(index)) return false;
+
+        for (long[] level : levels) {
+            final int word = index >>> 6;
+            final long old = level[word];
+            level[word] = old | (1L << index);
+            // The higher levels already know about this word
+            if (old != 0) break;
+            index = word;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes an element from the set
+     * @param index The element
+     * @return true, if the element was in the set, false otherwise
+     */
+    public boolean remove(int index) {
+        checkIndex(index);
+        if (!contains(index)) return false;
+
+        for (long[] level : levels) {
+            final int word = index >>> 6;
+            level[word] &= ~(1L << index);
+            // The word still contains other elements, so it stays marked in the higher levels
+            if (level[word] != 0) break;
+            index = word;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Checks whether an element is in the set
+     * @param index The element
+     * @return true, if the element is in the set, false otherwise
+     */
+    public boolean contains(int index) {
+        checkIndex(index);
+        return (levels[0][index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Gets the greatest element of the set which is less than or equal to the given index
+     * @param index The index. May be outside of the universe
+     * @return The element, or -1 if there is no such element
+     */
+    public int floor(int index) {
+        if (index < 0 || size == 0) return -1;
+        if (index >= universeSize) index = universeSize - 1;
+
+        int level = 0;
+        while (true) {
+            final int word = index >>> 6;
+            final long bits = levels[level][word] & (-1L >>> (63 - (index & 63)));
+            if (bits != 0) {
+                index = (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+                break;
+            }
+            index = word - 1;
+            level++;
+            if (index < 0 || level == levels.length) return -1;
+        }
+
+        while (level > 0) {
+            level--;
+            index = (index << 6) + 63 - Long.numberOfLeadingZeros(levels[level][index]);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the smallest element of the set which is greater than or equal to the given index
+     * @param index The index. May be outside of the universe
+     * @return The element, or -1 if there is no such element
+     */
+    public int ceiling(int index) {
+        if (index >= universeSize || size == 0) return -1;
+        if (index < 0) index = 0;
+
+        int level = 0;
+        while (true) {
+            final int word = index >>> 6;
+            final long bits = levels[level][word] & (-1L << (index & 63));
+            if (bits != 0) {
+                index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                break;
+            }
+            index = word + 1;
+            level++;
+            if (level == levels.length || index >= levels[level - 1].length) return -1;
+        }
+
+        while (level > 0) {
+            level--;
+            index = (index << 6) + Long.numberOfTrailingZeros(levels[level][index]);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the greatest element of the set which is less than the given index
+     * @param index The index. May be outside of the universe
+     * @return The element, or -1 if there is no such element
+     */
+    public int lower(int index) {
+        return index == Integer.MIN_VALUE ? -1 : floor(index - 1);
+    }
+
+    /**
+     * Gets the smallest element of the set which is greater than the given index
+     * @param index The index. May be outside of the universe
+     * @return The element, or -1 if there is no such element
+     */
+    public int higher(int index) {
+        return index == Integer.MAX_VALUE ? -1 : ceiling(index + 1);
+    }
+
+    /**
+     * Gets the amount of elements in the set
+     * @return The amount of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the size of the universe
+     * @return The amount of possible elements
+     */
+    public int universeSize() {
+        return universeSize;
+    }
+}
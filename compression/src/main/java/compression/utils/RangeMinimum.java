@@ -0,0 +1,52 @@
+package compression.utils;
+
+/**
+ * Answers range minimum queries over an int array in constant time.
+ * The array is not copied, so it must not be modified while the structure is in use.
+ */
+public interface RangeMinimum {
+
+    /**
+     * Arrays up to this length get a {@link SparseTableRangeMinimum} from {@link #of(int[])}, larger ones a
+     * {@link BlockRangeMinimum}, whose memory usage does not grow with the logarithm of the length
+     */
+    int SPARSE_TABLE_LIMIT = 1 << 16;
+
+    /**
+     * Gets the position of the minimum in a range. If the minimum occurs multiple times, the leftmost position is returned
+     * @param from The inclusive start of the range
+     * @param to The inclusive end of the range
+     * @return The position of the minimum in the range
+     * @throws IndexOutOfBoundsException If the range is not inside the array
+     * @throws IllegalArgumentException If to is less than from
+     */
+    int minimumIndex(int from, int to);
+
+    /**
+     * Gets the minimum value in a range
+     * @param from The inclusive start of the range
+     * @param to The inclusive end of the range
+     * @return The minimum value in the range
+     * @throws IndexOutOfBoundsException If the range is not inside the array
+     * @throws IllegalArgumentException If to is less than from
+     */
+    int minimum(int from, int to);
+
+    /**
+     * Creates a range minimum structure over an array, choosing the implementation by the length of the array
+     * @param values The array
+     * @return The range minimum structure
+     */
+    static RangeMinimum of(int[] values) {
+        return values.length <= SPARSE_TABLE_LIMIT ? new SparseTableRangeMinimum(values) : new BlockRangeMinimum(values);
+    }
+
+    /**
+     * Checks whether [from, to] is a valid range in an array of the given length
+     */
+    static void checkRange(int from, int to, int length) {
+        if (from < 0) throw new IndexOutOfBoundsException("from = " + from);
+        if (to >= length) throw new IndexOutOfBoundsException("to = " + to);
+        if (to < from) throw new IllegalArgumentException("to(%d) < from(%d)".formatted(to, from));
+    }
+}
@@ -0,0 +1,80 @@
+package compression.utils;
+
+import org.jsuffixarrays.SAIS;
+import org.jsuffixarrays.SuffixArrays;
+
+/**
+ * Builds suffix arrays on a single thread using the jsuffixarrays library
+ */
+public class SequentialSuffixArrayBuilder implements SuffixArrayBuilder {
+
+    @Override
+    public SuffixData build(CharSequence text) {
+        final var suffixData = SuffixArrays.createWithLCP(text);
+        return new SuffixData(suffixData.getSuffixArray(), suffixData.getLCP());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bytes are sorted with the byte alphabet version of SA-IS. That version treats the end of the text as smaller
+     * than every byte, while the sentinel must be greater. Therefore the complemented bytes are sorted, which yields
+     * exactly the reversed order of the suffixes, followed by the sentinel's suffix as the greatest one.
+     */
+    @Override
+    public SuffixData build(ByteSequence text) {
+        final int n = text.byteLength();
+        final byte[] complement = new byte[n];
+        for (int i = 0; i < n; i++) {
+            complement[i] = (byte) ~text.byteAt(i);
+        }
+
+        // One additional entry with the value -1, like the arrays produced by jsuffixarrays
+        final int[] sa = new int[n + 2];
+        if (n > 0) {
+            SAIS.suffixsort(complement, sa, n);
+        }
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            final int tmp = sa[i];
+            sa[i] = sa[j];
+            sa[j] = tmp;
+        }
+        sa[n] = n;
+        sa[n + 1] = -1;
+
+        return new SuffixData(sa, lcp(text, sa));
+    }
+
+    /**
+     * Computes the lcp array of the bytes followed by the sentinel with Kasai et al's algorithm
+     * @param text The bytes
+     * @param sa The suffix array of the bytes with the sentinel
+     * @return The lcp array, whose first entry is -1
+     */
+    private static int[] lcp(ByteSequence text, int[] sa) {
+        final int n = text.byteLength();
+        final int[] inverse = new int[n + 1];
+        for (int k = 0; k <= n; k++) {
+            inverse[sa[k]] = k;
+        }
+
+        final int[] lcp = new int[n + 1];
+        int h = 0;
+        // The sentinel's suffix at position n never has a common prefix with another suffix
+        for (int i = 0; i < n; i++) {
+            final int k = inverse[i];
+            if (k == 0) {
+                h = 0;
+                continue;
+            }
+            final int j = sa[k - 1];
+            while (i + h < n && j + h < n && text.byteAt(i + h) == text.byteAt(j + h)) {
+                h++;
+            }
+            lcp[k] = h;
+            if (h > 0) h--;
+        }
+        lcp[0] = -1;
+        return lcp;
+    }
+}
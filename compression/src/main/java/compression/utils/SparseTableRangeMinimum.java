@@ -0,0 +1,57 @@
+package compression.utils;
+
+/**
+ * A range minimum structure which stores the position of the minimum of every range whose length is a power of two.
+ * Every query is answered by comparing the minima of two such ranges, which cover the queried range together.
+ * <p>
+ * The table needs n * floor(log2(n)) ints, so it is meant for small arrays. See {@link BlockRangeMinimum} for large ones.
+ */
+public class SparseTableRangeMinimum implements RangeMinimum {
+
+    private final int[] values;
+
+    /**
+     * The position of the minimum of [i, i + 2^(k+1)) at table[k][i]. Ranges of length 1 are not stored
+     */
+    private final int[][] table;
+
+    /**
+     * Creates the table for an array
+     * @param values The array. It is not copied
+     */
+    public SparseTableRangeMinimum(int[] values) {
+        this.values = values;
+        final int levels = values.length < 2 ? 0 : 31 - Integer.numberOfLeadingZeros(values.length);
+        this.table = new int[levels][];
+
+        for (int k = 0; k < levels; k++) {
+            final int half = 1 << k;
+            final int[] level = new int[values.length - 2 * half + 1];
+            for (int i = 0; i < level.length; i++) {
+                final int left = k == 0 ? i : table[k - 1][i];
+                final int right = k == 0 ? i + 1 : table[k - 1][i + half];
+                level[i] = values[right] < values[left] ? right : left;
+            }
+            table[k] = level;
+        }
+    }
+
+    @Override
+    public int minimumIndex(int from, int to) {
+        RangeMinimum.checkRange(from, to, values.length);
+        if (from == to) {
+            return from;
+        }
+
+        final int k = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        final int[] level = table[k - 1];
+        final int left = level[from];
+        final int right = level[to - (1 << k) + 1];
+        return values[right] < values[left] ? right : left;
+    }
+
+    @Override
+    public int minimum(int from, int to) {
+        return values[minimumIndex(from, to)];
+    }
+}
@@ -0,0 +1,62 @@
+package compression.utils;
+
+/**
+ * A backend for constructing the suffix array and lcp array of a text.
+ * {@link AugmentedString} uses the backend returned by {@link #defaultBuilder()} unless another one is passed to it.
+ */
+@FunctionalInterface
+public interface SuffixArrayBuilder {
+
+    /**
+     * The name of the system property which selects the default builder. See {@link #byName(String)} for the possible values.
+     */
+    String PROPERTY = "compression.suffixarray";
+
+    /**
+     * Constructs the suffix array and the lcp array of the given text
+     * @param text The text. Its last character must be unique in the text
+     * @return The suffix array and the lcp array of the text
+     */
+    SuffixData build(CharSequence text);
+
+    /**
+     * Constructs the suffix array and the lcp array of the given bytes followed by a sentinel, which is greater than every byte.
+     * The result is the same as for the text {@code text.withSentinel()}, so the suffix array
+     * contains one more suffix than there are bytes.
+     * @param text The bytes. A sentinel of the sequence itself is ignored
+     * @return The suffix array and the lcp array of the text including the sentinel
+     */
+    default SuffixData build(ByteSequence text) {
+        return build(text.withSentinel().toString());
+    }
+
+    /**
+     * Gets the builder selected by the system property {@link #PROPERTY}. If it is not set, the sequential builder is returned.
+     * @return The default builder
+     */
+    static SuffixArrayBuilder defaultBuilder() {
+        return byName(System.getProperty(PROPERTY, "sequential"));
+    }
+
+    /**
+     * Gets a builder by its name
+     * @param name Either "sequential" for the single-threaded jsuffixarrays backend, or "parallel" for
+     *             {@link ParallelSuffixArrayBuilder} using all available processors
+     * @return The builder
+     */
+    static SuffixArrayBuilder byName(String name) {
+        return switch (name.toLowerCase()) {
+            case "sequential" -> new SequentialSuffixArrayBuilder();
+            case "parallel" -> new ParallelSuffixArrayBuilder();
+            default -> throw new IllegalArgumentException("Unknown suffix array builder: " + name);
+        };
+    }
+
+    /**
+     * The result of a suffix array construction
+     * @param suffixArray The suffix array. An array of the starting indices of the text's suffixes sorted in lexicographical order
+     * @param lcp The lcp array. Entry i contains the length of the longest common prefix between the suffixes
+     *            at suffixArray[i] and suffixArray[i-1]. lcp[0] is undefined.
+     */
+    record SuffixData(int[] suffixArray, int[] lcp) {}
+}
@@ -9,6 +9,13 @@ import java.util.function.BiConsumer;
 
 public class XFastTrie<T> implements IntPredecessor<T> {
 
+    private static final Benchmark.Timer PUT_TIMER = Benchmark.timer(XFastTrie.class.getSimpleName(), "put");
+    private static final Benchmark.Timer PUT_LINK_TIMER = Benchmark.timer(XFastTrie.class.getSimpleName(), "put link");
+    private static final Benchmark.Timer PUT_INSERT_TIMER = Benchmark.timer(XFastTrie.class.getSimpleName(), "put insert");
+    private static final Benchmark.Timer REMOVE_TIMER = Benchmark.timer(XFastTrie.class.getSimpleName(), "remove");
+    private static final Benchmark.Timer LOWEST_ANCESTOR_TIMER = Benchmark.timer(XFastTrie.class.getSimpleName(), "lowest ancestor");
+    private static final Benchmark.Timer FLOOR_NODE_TIMER = Benchmark.timer(XFastTrie.class.getSimpleName(), "floorNode");
+
     private final Map<Integer, Node>[] lss;
     private int size;
 
@@ -27,27 +34,27 @@ public class XFastTrie<T> implements IntPredecessor<T> {
 
     @Override
     public T put(int key, T value) {
-        Benchmark.startTimer(XFastTrie.class.getSimpleName(), "put");
+        final long start = PUT_TIMER.start();
         var prevContent = lss[0].get(key);
         if(prevContent != null) {
             var temp = prevContent.content;
             prevContent.content = value;
-            Benchmark.stopTimer(XFastTrie.class.getSimpleName(), "put");
+            PUT_TIMER.stop(start);
             return temp;
         }
 
         Node newNode = new Node(key, value);
 
-        Benchmark.startTimer(XFastTrie.class.getSimpleName(), "put link");
+        final long linkStart = PUT_LINK_TIMER.start();
         linkNode(newNode);
-        Benchmark.stopTimer(XFastTrie.class.getSimpleName(), "put link");
+        PUT_LINK_TIMER.stop(linkStart);
 
-        Benchmark.startTimer(XFastTrie.class.getSimpleName(), "put insert");
+        final long insertStart = PUT_INSERT_TIMER.start();
         insertNode(newNode);
-        Benchmark.stopTimer(XFastTrie.class.getSimpleName(), "put insert");
+        PUT_INSERT_TIMER.stop(insertStart);
 
         size++;
-        Benchmark.stopTimer(XFastTrie.class.getSimpleName(), "put");
+        PUT_TIMER.stop(start);
         return null;
     }
 
@@ -149,11 +156,11 @@ public class XFastTrie<T> implements IntPredecessor<T> {
 
     @Override
     public T remove(int key) {
-        Benchmark.startTimer(XFastTrie.class.getSimpleName(), "remove");
+        final long start = REMOVE_TIMER.start();
         final var removed = lss[0].get(key);
 
         if(removed == null) {
-            Benchmark.stopTimer(XFastTrie.class.getSimpleName(), "remove");
+            REMOVE_TIMER.stop(start);
             return null;
         }
 
@@ -202,7 +209,7 @@ public class XFastTrie<T> implements IntPredecessor<T> {
             }
         }
         size--;
-        Benchmark.stopTimer(XFastTrie.class.getSimpleName(), "remove");
+        REMOVE_TIMER.stop(start);
         return lss[0].remove(key).content;
     }
 
@@ -244,7 +251,7 @@ public class XFastTrie<T> implements IntPredecessor<T> {
     }
 
     private Node searchLowestAncestor(int key) {
-        Benchmark.startTimer(XFastTrie.class.getSimpleName(), "lowest ancestor");
+        final long start = LOWEST_ANCESTOR_TIMER.start();
         int top = lss.length - 1;
         int bottom = 0;
         Node lastFind = null;
@@ -261,15 +268,15 @@ public class XFastTrie<T> implements IntPredecessor<T> {
                 bottom = mid + 1;
             }
         }
-        Benchmark.stopTimer(XFastTrie.class.getSimpleName(), "lowest ancestor");
+        LOWEST_ANCESTOR_TIMER.stop(start);
         return lastFind;
     }
 
     @Nullable
     private Node floorNode(int key) {
-        Benchmark.startTimer(XFastTrie.class.getSimpleName(), "floorNode");
+        final long start = FLOOR_NODE_TIMER.start();
         final var lowestAncestor = searchLowestAncestor(key);
-        Benchmark.stopTimer(XFastTrie.class.getSimpleName(), "floorNode");
+        FLOOR_NODE_TIMER.stop(start);
         if(lowestAncestor == null) {
             return null;
         } else if (lowestAncestor.isLeaf()){
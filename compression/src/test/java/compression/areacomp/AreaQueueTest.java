@@ -0,0 +1,106 @@
+package compression.areacomp;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class AreaQueueTest {
+
+    @Test
+    void testEmpty() {
+        final var queue = new AreaQueue();
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertEquals(-1, queue.poll());
+        Assertions.assertEquals(-1, queue.peek());
+    }
+
+    @Test
+    void testValues() {
+        final var queue = new AreaQueue(1);
+        queue.add(1, 2, 5, 3);
+        queue.add(4, 8, 9, 2);
+        queue.add(3, 5, 1, 7);
+
+        Assertions.assertEquals(3, queue.size());
+        final int row = queue.poll();
+        Assertions.assertEquals(4, queue.low(row));
+        Assertions.assertEquals(8, queue.high(row));
+        Assertions.assertEquals(9, queue.area(row));
+        Assertions.assertEquals(2, queue.len(row));
+        Assertions.assertEquals(5, queue.area(queue.poll()));
+        Assertions.assertEquals(1, queue.area(queue.poll()));
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testSameOrderAsPriorityQueue() {
+        final var random = new Random(42);
+        final var queue = new AreaQueue();
+        // Entries with the same area are polled in the order in which they were added
+        final var reference = new PriorityQueue<AreaFunction.AreaData>(Comparator.<AreaFunction.AreaData>comparingInt(areaData -> -areaData.area)
+                .thenComparingInt(areaData -> areaData.low));
+
+        for (int i = 0; i < 10000; i++) {
+            // Only few distinct areas, so that there are many ties
+            final int area = random.nextInt(20);
+            queue.add(i, i + 1, area, i);
+            reference.add(new AreaFunction.AreaData(i, i + 1, area, i));
+        }
+
+        while (!reference.isEmpty()) {
+            final var expected = reference.remove();
+            final int row = queue.poll();
+            Assertions.assertEquals(expected.area, queue.area(row));
+            Assertions.assertEquals(expected.low, queue.low(row));
+        }
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testSegments() {
+        final var random = new Random(7);
+        final var whole = new AreaQueue();
+        final var parallel = new AreaQueue(3000);
+        final var sequential = new AreaQueue(3000);
+        final var parallelSegments = new AreaSink[3];
+        final var sequentialSegments = new AreaSink[3];
+        for (int i = 0; i < 3; i++) {
+            // The segments have free rows at their end, which are skipped
+            parallelSegments[i] = parallel.segment(1000 * i, 1000 * i + 1000);
+            sequentialSegments[i] = sequential.segment(1000 * i, 1000 * i + 1000);
+        }
+        for (int i = 0; i < 2500; i++) {
+            final int area = random.nextInt(20);
+            whole.add(i, i + 1, area, i);
+            parallelSegments[i / 1000].add(i, i + 1, area, i);
+            sequentialSegments[i / 1000].add(i, i + 1, area, i);
+        }
+
+        final var pool = new ForkJoinPool(3);
+        try {
+            parallel.heapify(parallelSegments, pool);
+        } finally {
+            pool.shutdown();
+        }
+        sequential.heapify(sequentialSegments, null);
+
+        Assertions.assertEquals(whole.size(), parallel.size());
+        Assertions.assertEquals(whole.size(), sequential.size());
+        while (!whole.isEmpty()) {
+            final int expected = whole.low(whole.poll());
+            Assertions.assertEquals(expected, parallel.low(parallel.poll()));
+            Assertions.assertEquals(expected, sequential.low(sequential.poll()));
+        }
+
+        final var segment = new AreaQueue(2).segment(0, 1);
+        segment.add(0, 1, 1, 1);
+        Assertions.assertThrows(IllegalStateException.class, () -> segment.add(1, 2, 1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> whole.heapify(new AreaSink[]{segment}, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> whole.heapify(new AreaSink[]{whole}, null));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> whole.segment(0, 1 << 20));
+    }
+}
@@ -0,0 +1,34 @@
+package compression.areacomp.v4;
+
+import compression.areacomp.areas.ChildArea;
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.areas.NaiveArea;
+import compression.areacomp.areas.WidthFirstArea;
+import compression.utils.SuffixArrayBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class AreaCompV4Test {
+
+    @Test
+    void testParallelQueue() {
+        final var random = new Random(4);
+        final var sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            sb.append((char) ('a' + random.nextInt(4)));
+        }
+        final String text = sb.toString();
+
+        for (var area : List.of(new HeightFirstArea(), new ChildArea(), new WidthFirstArea(), new NaiveArea())) {
+            final var sequential = new AreaCompV4(area, SuffixArrayBuilder.defaultBuilder(), 1).compress(text).toUnified();
+            final var parallel = new AreaCompV4(area, SuffixArrayBuilder.defaultBuilder(), 3).compress(text).toUnified();
+            Assertions.assertEquals(sequential.getAsString(), parallel.getAsString(), area.getClass().getSimpleName());
+            Assertions.assertEquals(text, parallel.buildString());
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AreaCompV4(new ChildArea(), SuffixArrayBuilder.defaultBuilder(), 0));
+    }
+}
@@ -0,0 +1,150 @@
+package compression.areacomp.v4;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class ArrayRuleIntervalIndexTest {
+
+    /**
+     * Creates random, properly nested intervals inside [start, end], which do not include [start, end] itself
+     */
+    private static void nestedIntervals(int start, int end, Random random, List<int[]> intervals) {
+        int position = start;
+        while (position < end) {
+            final int length = 1 + random.nextInt(Math.min(end - position + 1, 40));
+            final int intervalEnd = position + length - 1;
+            if (length > 1 && !(position == start && intervalEnd == end) && random.nextInt(3) > 0) {
+                intervals.add(new int[]{position, intervalEnd});
+                nestedIntervals(position, intervalEnd, random, intervals);
+            }
+            position += length;
+        }
+    }
+
+    private static void assertSameInterval(RuleIntervalIndex.RuleInterval expected, ArrayRuleIntervalIndex index, int actual) {
+        if (expected == null) {
+            Assertions.assertEquals(ArrayRuleIntervalIndex.NONE, actual);
+            return;
+        }
+        Assertions.assertNotEquals(ArrayRuleIntervalIndex.NONE, actual);
+        Assertions.assertEquals(expected.ruleId(), index.ruleId(actual));
+        Assertions.assertEquals(expected.start(), index.start(actual));
+        Assertions.assertEquals(expected.end(), index.end(actual));
+    }
+
+    @Test
+    void testSameAsRuleIntervalIndex() {
+        final var random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            final int len = 50 + random.nextInt(500);
+            final var intervals = new ArrayList<int[]>();
+            nestedIntervals(0, len - 1, random, intervals);
+            // RuleIntervalIndex fails for some orders of nested intervals, so the outer ones are marked first
+            Collections.shuffle(intervals, random);
+            intervals.sort(Comparator.comparingInt(interval -> interval[0] - interval[1]));
+
+            final var expected = new RuleIntervalIndex(0, len);
+            final var actual = new ArrayRuleIntervalIndex(0, len);
+            int ruleId = 1;
+            for (int[] interval : intervals) {
+                expected.mark(ruleId, interval[0], interval[1]);
+                actual.mark(ruleId, interval[0], interval[1]);
+                ruleId++;
+            }
+            Assertions.assertEquals(intervals.size() + 1, actual.intervalCount());
+            Assertions.assertEquals(expected.toString(), actual.toString());
+
+            for (int i = 0; i < len; i++) {
+                assertSameInterval(expected.intervalAtStartIndex(i), actual, actual.intervalAtStartIndex(i));
+
+                // The chain of parents of the deepest interval at every index
+                var expectedInterval = expected.intervalContaining(i);
+                int actualInterval = actual.intervalContaining(i);
+                while (expectedInterval != null) {
+                    assertSameInterval(expectedInterval, actual, actualInterval);
+                    assertSameInterval(expectedInterval.firstAtStartIndex(), actual, actual.firstAtStartIndex(actualInterval));
+                    expectedInterval = expectedInterval.parent();
+                    actualInterval = actual.parent(actualInterval);
+                }
+                Assertions.assertEquals(ArrayRuleIntervalIndex.NONE, actualInterval);
+            }
+
+            for (int i = 0; i < 1000; i++) {
+                final int from = random.nextInt(len);
+                final int to = from + random.nextInt(Math.min(len - from, 60));
+                assertSameInterval(expected.intervalContaining(from, to), actual, actual.intervalContaining(from, to));
+            }
+        }
+    }
+
+    @Test
+    void testRandomOrder() {
+        final var random = new Random(12);
+        for (int round = 0; round < 50; round++) {
+            final int len = 50 + random.nextInt(500);
+            final var intervals = new ArrayList<int[]>();
+            nestedIntervals(0, len - 1, random, intervals);
+            Collections.shuffle(intervals, random);
+
+            final var index = new ArrayRuleIntervalIndex(0, len);
+            for (int i = 0; i < intervals.size(); i++) {
+                index.mark(i + 1, intervals.get(i)[0], intervals.get(i)[1]);
+            }
+            intervals.add(new int[]{0, len - 1});
+
+            for (int i = 0; i < 1000; i++) {
+                final int from = random.nextInt(len);
+                final int to = from + random.nextInt(Math.min(len - from, 60));
+
+                // The intervals containing [from, to] from the deepest to the least deeply nested one
+                final int[][] containing = intervals.stream()
+                        .filter(interval -> interval[0] <= from && to <= interval[1])
+                        .sorted(Comparator.comparingInt(interval -> interval[1] - interval[0]))
+                        .toArray(int[][]::new);
+                int interval = index.intervalContaining(from, to);
+                for (int[] expected : containing) {
+                    Assertions.assertArrayEquals(expected, new int[]{index.start(interval), index.end(interval)});
+                    final int first = index.firstAtStartIndex(interval);
+                    final int longest = intervals.stream().filter(other -> other[0] == expected[0]).mapToInt(other -> other[1]).max().orElseThrow();
+                    Assertions.assertEquals(expected[0], index.start(first));
+                    Assertions.assertEquals(longest, index.end(first));
+                    interval = index.parent(interval);
+                }
+                Assertions.assertEquals(ArrayRuleIntervalIndex.NONE, interval);
+            }
+        }
+    }
+
+    @Test
+    void testMark() {
+        // R0 -> R1 c R1, R1 -> R2 b, R2 -> a a
+        final var index = new ArrayRuleIntervalIndex(0, 7);
+        index.mark(2, 0, 1);
+        index.mark(2, 4, 5);
+        index.mark(1, 0, 2);
+        index.mark(1, 4, 6);
+
+        final int deepest = index.intervalAtStartIndex(0);
+        Assertions.assertEquals(2, index.ruleId(deepest));
+        Assertions.assertEquals(1, index.ruleId(index.parent(deepest)));
+        Assertions.assertEquals(0, index.ruleId(index.parent(index.parent(deepest))));
+        Assertions.assertEquals(ArrayRuleIntervalIndex.NONE, index.parent(index.parent(index.parent(deepest))));
+        Assertions.assertEquals(0, index.ruleId(index.firstAtStartIndex(deepest)));
+
+        Assertions.assertEquals(0, index.ruleId(index.intervalContaining(3)));
+        Assertions.assertEquals(1, index.ruleId(index.intervalContaining(6)));
+        Assertions.assertEquals(1, index.ruleId(index.intervalContaining(4, 6)));
+        Assertions.assertEquals(0, index.ruleId(index.intervalContaining(2, 4)));
+        Assertions.assertEquals(ArrayRuleIntervalIndex.NONE, index.intervalAtStartIndex(3));
+        Assertions.assertEquals("0: [0: 6, 1: 2, 2: 1], 4: [1: 6, 2: 5]", index.toString());
+
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.mark(3, 5, 7));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.intervalContaining(3, 2));
+    }
+}
@@ -0,0 +1,152 @@
+package compression.areacomp.v4;
+
+import compression.areacomp.areas.HeightFirstArea;
+import compression.unified.interfaces.GrammarListener;
+import compression.utils.ByteSequence;
+import compression.utils.RandomText;
+import compression.utils.SuffixArrayBuilder;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class StreamingAreaCompTest {
+
+    /**
+     * Records the calls to the listener
+     */
+    private static final class Recorder implements GrammarListener {
+
+        private final IntArrayList ruleIds = new IntArrayList();
+
+        private final IntArrayList topLevelLengths = new IntArrayList();
+
+        @Override
+        public void rule(int id, int[] symbols, int length) {
+            for (int i = 0; i < length; i++) {
+                // Rules refer only to rules which have been received before
+                Assertions.assertTrue(symbols[i] < 0 || symbols[i] <= ruleIds.size());
+            }
+            ruleIds.add(id);
+        }
+
+        @Override
+        public void topLevel(int[] symbols, int length) {
+            topLevelLengths.add(length);
+        }
+    }
+
+    @Test
+    void testReconstruct() {
+        final var random = new Random(24);
+        for (int chunkSize : new int[] {1, 7, 100, 1000, 1 << 20}) {
+            final var compressor = new StreamingAreaComp(new HeightFirstArea(), chunkSize);
+            for (int i = 0; i < 20; i++) {
+                final var text = RandomText.repetitive(random, 1 + random.nextInt(5000), 4, 30);
+                Assertions.assertEquals(text, compressor.compress(text).toUnified().buildString());
+                final var bytes = new ByteSequence(text.getBytes(StandardCharsets.ISO_8859_1));
+                Assertions.assertEquals(text, compressor.compress(bytes).toUnified().buildString());
+            }
+        }
+    }
+
+    @Test
+    void testSingleChunk() {
+        final var text = RandomText.repetitive(new Random(25), 20_000, 4, 30);
+        final var expected = new AreaCompV4(new HeightFirstArea()).compress(text).toUnified();
+        final var actual = new StreamingAreaComp(new HeightFirstArea(), text.length()).compress(text).toUnified();
+        Assertions.assertEquals(expected.rulesetSize(), actual.rulesetSize());
+        Assertions.assertEquals(expected.ruleCount(), actual.ruleCount());
+    }
+
+    @Test
+    void testSharedRules() throws IOException {
+        final var chunk = RandomText.repetitive(new Random(26), 1000, 4, 30).getBytes(StandardCharsets.ISO_8859_1);
+        final var recorder = new Recorder();
+        try (var out = new StreamingAreaComp(new HeightFirstArea(), chunk.length).open(recorder)) {
+            out.write(chunk);
+            final int rules = recorder.ruleIds.size();
+            Assertions.assertTrue(rules > 0);
+            Assertions.assertEquals(1, recorder.topLevelLengths.size());
+
+            // The same chunk again creates the same rules, which are in the dictionary already
+            out.write(chunk);
+            Assertions.assertEquals(rules, recorder.ruleIds.size());
+            Assertions.assertEquals(2, recorder.topLevelLengths.size());
+            Assertions.assertEquals(recorder.topLevelLengths.getInt(0), recorder.topLevelLengths.getInt(1));
+        }
+
+        for (int i = 0; i < recorder.ruleIds.size(); i++) {
+            Assertions.assertEquals(i + 1, recorder.ruleIds.getInt(i));
+        }
+    }
+
+    @Test
+    void testEviction() throws IOException {
+        final var random = new Random(27);
+        final var first = RandomText.repetitive(random, 1000, 4, 30).getBytes(StandardCharsets.ISO_8859_1);
+        final var recorder = new Recorder();
+        try (var out = new StreamingAreaComp(new HeightFirstArea(), first.length, 2, SuffixArrayBuilder.defaultBuilder()).open(recorder)) {
+            out.write(first);
+            final int rules = recorder.ruleIds.size();
+            for (int i = 0; i < 4; i++) {
+                out.write(RandomText.repetitive(random, 1000, 4, 30).getBytes(StandardCharsets.ISO_8859_1));
+            }
+
+            // The rules of the first chunk, which the following chunks have not used, have been removed
+            final int before = recorder.ruleIds.size();
+            out.write(first);
+            Assertions.assertTrue(recorder.ruleIds.size() > before);
+            Assertions.assertTrue(recorder.ruleIds.size() - before <= rules);
+        }
+    }
+
+    @Test
+    void testDictionarySize() throws IOException {
+        final var random = new Random(28);
+        final var dictionary = new RuleDictionary(new Recorder(), 2);
+        final var compressor = new AreaCompV4(new HeightFirstArea());
+        final var rules = new IntArrayList();
+        for (int i = 0; i < 20; i++) {
+            final var chunk = compressor.compress(RandomText.repetitive(random, 2000, 2 + i % 3, 30)).toUnified();
+            dictionary.add(chunk);
+            rules.add(chunk.ruleCount() - 1);
+
+            // Only the rules of the last four chunks are kept
+            int bound = 0;
+            for (int j = Math.max(0, rules.size() - 4); j < rules.size(); j++) {
+                bound += rules.getInt(j);
+            }
+            Assertions.assertTrue(dictionary.size() <= bound, "size " + dictionary.size());
+        }
+    }
+
+    @Test
+    void testFlush() throws IOException {
+        final var recorder = new Recorder();
+        final var out = new StreamingAreaComp(new HeightFirstArea(), 1 << 16).open(recorder);
+        out.write("abcabcabc".getBytes(StandardCharsets.ISO_8859_1));
+        Assertions.assertTrue(recorder.topLevelLengths.isEmpty());
+
+        // A partial chunk is compressed on flush, not only when the chunk is full
+        out.flush();
+        Assertions.assertEquals(1, recorder.topLevelLengths.size());
+        out.flush();
+        Assertions.assertEquals(1, recorder.topLevelLengths.size());
+
+        out.write('x');
+        out.close();
+        Assertions.assertEquals(2, recorder.topLevelLengths.size());
+        Assertions.assertThrows(IOException.class, () -> out.write('y'));
+    }
+
+    @Test
+    void testInvalidChunkSize() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new StreamingAreaComp(new HeightFirstArea(), 0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new StreamingAreaComp(new HeightFirstArea(), 1, 0, SuffixArrayBuilder.defaultBuilder()));
+    }
+}
@@ -0,0 +1,85 @@
+package compression.lz;
+
+import compression.utils.RandomText;
+import compression.utils.SuffixArrayBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class LZSLPTest {
+
+    private static void assertBalanced(AVLGrammar grammar, int symbol) {
+        if (symbol < AVLGrammar.FIRST_NON_TERMINAL) return;
+        final int left = grammar.left(symbol);
+        final int right = grammar.right(symbol);
+        Assertions.assertTrue(Math.abs(grammar.height(left) - grammar.height(right)) <= 1);
+        Assertions.assertEquals(Math.max(grammar.height(left), grammar.height(right)) + 1, grammar.height(symbol));
+        Assertions.assertEquals(grammar.length(left) + grammar.length(right), grammar.length(symbol));
+    }
+
+    @Test
+    void testReconstruct() {
+        final var random = new Random(23);
+        final var compressor = new LZSLP();
+        for (int i = 0; i < 200; i++) {
+            final var text = RandomText.repetitive(random, 1 + random.nextInt(i < 100 ? 30 : 3000), 1 + i % 4, 50);
+            Assertions.assertEquals(text, compressor.compress(text).toUnified().buildString());
+            final var bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+            Assertions.assertEquals(text, compressor.compress(bytes).toUnified().buildString());
+        }
+    }
+
+    @Test
+    void testBalanced() {
+        final var random = new Random(24);
+        for (int i = 0; i < 50; i++) {
+            final var grammar = (AVLGrammar) new LZSLP().compress(RandomText.repetitive(random, 5000, 1 + i % 3, 50));
+            for (int rule = 0; rule < grammar.ruleCount(); rule++) {
+                assertBalanced(grammar, AVLGrammar.FIRST_NON_TERMINAL + rule);
+            }
+        }
+
+        // A run consists of two factors, the second of which repeats the first
+        final var run = "a".repeat(1 << 16);
+        final var grammar = (AVLGrammar) new LZSLP().compress(run);
+        Assertions.assertEquals(run, grammar.toUnified().buildString());
+        Assertions.assertTrue(grammar.height(grammar.root()) <= 17, "height " + grammar.height(grammar.root()));
+        Assertions.assertTrue(grammar.ruleCount() < 200, "rules " + grammar.ruleCount());
+    }
+
+    @Test
+    void testFactors() {
+        final var random = new Random(25);
+        for (int i = 0; i < 100; i++) {
+            final var text = RandomText.repetitive(random, 1 + random.nextInt(2000), 1 + i % 5, 50);
+            final var sentinel = text + Character.MAX_VALUE;
+            final var factors = LZFactorizer.factorize(sentinel, SuffixArrayBuilder.defaultBuilder().build(sentinel).suffixArray());
+
+            int k = 0;
+            for (int f = 0; f < factors.size(); f += 2) {
+                final int source = factors.getInt(f);
+                final int length = factors.getInt(f + 1);
+                if (length == 0) {
+                    // A single character is only a factor if it does not occur before
+                    Assertions.assertEquals(text.charAt(k), (char) source);
+                    Assertions.assertEquals(-1, text.substring(0, k).indexOf(source));
+                    k++;
+                } else {
+                    // A copy is the longest prefix of the rest of the text which occurs earlier, possibly overlapping
+                    Assertions.assertTrue(source < k);
+                    Assertions.assertEquals(text.substring(source, source + length), text.substring(k, k + length));
+                    if (k + length < text.length()) {
+                        final var longer = text.substring(k, k + length + 1);
+                        for (int earlier = 0; earlier < k; earlier++) {
+                            Assertions.assertFalse(text.startsWith(longer, earlier));
+                        }
+                    }
+                    k += length;
+                }
+            }
+            Assertions.assertEquals(text.length(), k);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package compression.repair;
+
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.UnifiedSymbol;
+import compression.utils.RandomText;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ArrayRePairTest {
+
+    /**
+     * Asserts that no pair occurs twice without overlapping in the start rule
+     */
+    private static void assertNoRepeatedPair(UnifiedRuleset unified, String message) {
+        final List<UnifiedSymbol> symbols = unified.rules().get(unified.getTopLevelRuleId());
+        final Map<List<UnifiedSymbol>, Integer> lastStarts = new HashMap<>();
+        for (int i = 0; i + 1 < symbols.size(); i++) {
+            final var pair = List.of(symbols.get(i), symbols.get(i + 1));
+            final Integer lastStart = lastStarts.get(pair);
+            if (lastStart == null) {
+                lastStarts.put(pair, i);
+            } else if (lastStart + 1 < i) {
+                Assertions.fail(message + ": " + pair + " occurs at " + lastStart + " and " + i);
+            }
+        }
+    }
+
+    @Test
+    void testReconstruct() {
+        final var compressor = new ArrayRePair();
+        final var random = new Random(18);
+        for (int i = 0; i < 300; i++) {
+            final var text = RandomText.runs(random, 1 + random.nextInt(3000), 1 + i % 6);
+            final var unified = compressor.compress(text).toUnified();
+            Assertions.assertEquals(text, unified.buildString());
+            assertNoRepeatedPair(unified, text);
+        }
+
+        for (var text : List.of("a", "ab", "aa", "aaa", "aaaa", "aaaaaaaaaaaaaaaaa", "abababab", "abcabcabcabc", "\u4E16\u754C\u4E16\u754C")) {
+            final var unified = compressor.compress(text).toUnified();
+            Assertions.assertEquals(text, unified.buildString());
+            assertNoRepeatedPair(unified, text);
+        }
+    }
+
+    @Test
+    void testRules() {
+        final var unified = new ArrayRePair().compress("aaaaaaaa").toUnified();
+        final var a = UnifiedTerminal.of('a');
+        final var r1 = new UnifiedNonTerminal(1);
+        final var r2 = new UnifiedNonTerminal(2);
+        Assertions.assertEquals(3, unified.rules().size());
+        Assertions.assertEquals(List.of(r2, r2), unified.rules().get(0));
+        Assertions.assertEquals(List.of(a, a), unified.rules().get(1));
+        Assertions.assertEquals(List.of(r1, r1), unified.rules().get(2));
+    }
+
+    @Test
+    void testSameAsBytes() {
+        final var compressor = new ArrayRePair();
+        final var random = new Random(19);
+        final var bytes = new byte[20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (random.nextInt(4) * 70);
+        }
+        final var text = new String(bytes, StandardCharsets.ISO_8859_1);
+        Assertions.assertEquals(compressor.compress(text).toUnified().getAsString(), compressor.compress(bytes).toUnified().getAsString());
+        Assertions.assertEquals(text, compressor.compress(bytes).toUnified().buildString());
+    }
+}
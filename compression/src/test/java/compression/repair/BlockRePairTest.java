@@ -0,0 +1,52 @@
+package compression.repair;
+
+import compression.utils.RandomText;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class BlockRePairTest {
+
+    @Test
+    void testReconstruct() {
+        final var random = new Random(20);
+        for (int blockSize : new int[]{1, 7, 100, 1000, 100000}) {
+            for (boolean finalRound : new boolean[]{false, true}) {
+                final var compressor = new BlockRePair(blockSize, finalRound);
+                for (int length : new int[]{1, 99, 100, 101, 5000}) {
+                    final var text = RandomText.words(random, length);
+                    Assertions.assertEquals(text, compressor.compress(text).toUnified().buildString());
+                    final var bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+                    Assertions.assertEquals(text, compressor.compress(bytes).toUnified().buildString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMerge() {
+        final var block = RandomText.words(new Random(21), 1000);
+        final var single = (PairGrammar) new BlockRePair(1000, false).compress(block);
+        final var merged = (PairGrammar) new BlockRePair(1000, false).compress(block.repeat(4));
+
+        // Every block has the same grammar, so its rules are shared
+        Assertions.assertEquals(single.ruleCount(), merged.ruleCount());
+        Assertions.assertEquals(4 * single.startRule().length, merged.startRule().length);
+
+        // The final round replaces the start rule of a block with a single rule
+        final var finalRound = (PairGrammar) new BlockRePair(1000, true).compress(block.repeat(4));
+        Assertions.assertTrue(finalRound.size() < merged.size());
+        Assertions.assertEquals(2, finalRound.startRule().length);
+        Assertions.assertEquals(block.repeat(4), finalRound.toUnified().buildString());
+    }
+
+    @Test
+    void testSameAsArrayRePairForOneBlock() {
+        final var text = RandomText.words(new Random(22), 3000);
+        Assertions.assertEquals(new ArrayRePair().compress(text).toUnified().getAsString(),
+                new BlockRePair(3000, true).compress(text).toUnified().getAsString());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BlockRePair(0, true));
+    }
+}
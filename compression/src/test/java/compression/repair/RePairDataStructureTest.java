@@ -0,0 +1,68 @@
+package compression.repair;
+
+import compression.utils.RandomText;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class RePairDataStructureTest {
+
+    @Test
+    void testCompaction() {
+        final var text = "the quick brown fox jumps over the lazy dog. ".repeat(2000);
+        final var repair = new RePairDataStructure(text);
+        repair.compress();
+
+        // The repetitions collapse into a few symbols, so almost the whole sequence has been removed
+        Assertions.assertTrue(repair.sequenceLength() < text.length() / 100, "length " + repair.sequenceLength());
+        Assertions.assertTrue(repair.getQueue().isEmpty());
+        Assertions.assertEquals(text, repair.toUnified().buildString());
+    }
+
+    @Test
+    void testReconstructAfterCompaction() {
+        final var random = new Random(19);
+        for (int i = 0; i < 50; i++) {
+            final var sb = new StringBuilder();
+            final var block = new StringBuilder();
+            for (int j = 0; j < 1 + random.nextInt(30); j++) {
+                block.append((char) ('a' + random.nextInt(1 + i % 4)));
+            }
+            while (sb.length() < 5000) {
+                sb.append(random.nextInt(4) == 0 ? String.valueOf((char) ('a' + random.nextInt(4))) : block);
+            }
+
+            final var text = sb.toString();
+            final var repair = new RePairDataStructure(text);
+            repair.compress();
+            Assertions.assertEquals(text, repair.toUnified().buildString());
+        }
+    }
+
+    @Test
+    void testSameGrammarAsWithoutCompaction() throws IOException {
+        final var random = new Random(20);
+        final var texts = new ArrayList<String>();
+        texts.add(Files.readString(Path.of("input", "calgary", "paper1.txt"), StandardCharsets.ISO_8859_1));
+        for (int i = 0; i < 50; i++) {
+            texts.add(RandomText.repetitive(random, 3000, 1 + i % 4, 30));
+        }
+
+        for (var text : texts) {
+            final var expected = new RePairDataStructure(text, 0);
+            expected.compress();
+            Assertions.assertEquals(text.length(), expected.sequenceLength());
+
+            // Compacts whenever there is an empty container
+            final var compacted = new RePairDataStructure(text, 1);
+            compacted.compress();
+            Assertions.assertEquals(expected.toUnified().getAsString(), compacted.toUnified().getAsString());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package compression.repair;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RePairQueueTest {
+
+    @Test
+    void testFrequencies() {
+        final var a = new Terminal('a');
+        final var b = new Terminal('b');
+        final var c = new Terminal('c');
+        final var queue = new RePairQueue(100);
+
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertNull(queue.poll());
+
+        final int ab = queue.add(a, b);
+        Assertions.assertEquals(ab, queue.add(a, b));
+        Assertions.assertEquals(ab, queue.add(a, b));
+        final int bc = queue.add(b, c);
+        queue.add(b, c);
+        final int ca = queue.add(c, a);
+
+        Assertions.assertEquals(3, queue.frequency(ab));
+        Assertions.assertEquals(2, queue.frequency(bc));
+        Assertions.assertEquals(1, queue.frequency(ca));
+        // Pairs which occur only once are not worth replacing
+        Assertions.assertEquals(2, queue.size());
+        Assertions.assertTrue(queue.contains(c, a));
+        Assertions.assertFalse(queue.contains(b, a));
+        Assertions.assertEquals(RePairQueue.NONE, queue.find(b, a));
+
+        queue.updateFrequency(a, b, -2);
+        queue.updateFrequency(b, a, 5);
+        Assertions.assertEquals(1, queue.size());
+        Assertions.assertFalse(queue.contains(b, a));
+
+        queue.setFirstOccurrence(bc, 4);
+        queue.setLastOccurrence(bc, 9);
+        final var pair = queue.poll();
+        Assertions.assertSame(b, pair.getLeft());
+        Assertions.assertSame(c, pair.getRight());
+        Assertions.assertEquals(2, pair.frequency());
+        Assertions.assertEquals(4, pair.getFirstOccurrence());
+        Assertions.assertEquals(9, pair.getLastOccurrence());
+        Assertions.assertFalse(queue.contains(b, c));
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertNull(queue.poll());
+    }
+
+    @Test
+    void testOrder() {
+        final var terminals = new Terminal[20];
+        for (int i = 0; i < terminals.length; i++) {
+            terminals[i] = new Terminal('a' + i);
+        }
+
+        // Frequencies above sqrt(100) = 10 share the first list, which is polled first
+        final var queue = new RePairQueue(100);
+        for (int i = 0; i + 1 < terminals.length; i++) {
+            for (int j = 0; j < i + 2; j++) {
+                queue.add(terminals[i], terminals[i + 1]);
+            }
+        }
+
+        int previous = Integer.MAX_VALUE;
+        while (!queue.isEmpty()) {
+            final var pair = queue.poll();
+            Assertions.assertTrue(pair.frequency() <= Math.max(previous, 10), pair + " polled after frequency " + previous);
+            previous = pair.frequency();
+
+            // A polled pair can be added again as a new pair
+            Assertions.assertFalse(queue.contains(pair.getLeft(), pair.getRight()));
+        }
+        Assertions.assertEquals(2, previous);
+    }
+
+    @Test
+    void testNonTerminals() {
+        final var terminal = new Terminal(7);
+        final var pair = new SymbolPair(terminal, terminal);
+        pair.mark(7);
+        final var queue = new RePairQueue(100);
+
+        // A non-terminal is distinct from the terminal with the same value as its id
+        final int entry = queue.add(pair, terminal);
+        Assertions.assertFalse(queue.contains(terminal, terminal));
+        Assertions.assertNotEquals(entry, queue.add(terminal, pair));
+        Assertions.assertEquals(entry, queue.find(pair, terminal));
+    }
+}
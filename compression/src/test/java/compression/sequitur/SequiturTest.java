@@ -0,0 +1,40 @@
+package compression.sequitur;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class SequiturTest {
+
+    private static void assertReconstructable(String text) {
+        Assertions.assertEquals(text, new Sequitur().compress(text).toUnified().buildString());
+    }
+
+    @Test
+    void testReconstruct() {
+        assertReconstructable("a");
+        assertReconstructable("abcabcabcabc");
+        assertReconstructable("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+        // Terminals at the ends of the char range must not collide with each other or with non-terminals in the digram index
+        assertReconstructable("\0\0\0\uFFFF\uFFFF\uFFFF\0\uFFFF\0\uFFFF\0\0\0\0");
+
+        final var random = new Random(12);
+        for (char[] alphabet : new char[][] {{'a', 'b'}, {'\0', '\uFFFF', 'x'}, {'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h'}}) {
+            final var sb = new StringBuilder();
+            for (int i = 0; i < 20_000; i++) {
+                sb.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertReconstructable(sb.toString());
+        }
+    }
+
+    @Test
+    void testIndependentRuns() {
+        // A run must not see the digrams or rule numbers of a previous run
+        final var sequitur = new Sequitur();
+        final var first = sequitur.compress("abcdabcdabcd").toUnified().getAsString();
+        sequitur.compress("xyxyxyzzzz").toUnified();
+        Assertions.assertEquals(first, sequitur.compress("abcdabcdabcd").toUnified().getAsString());
+    }
+}
@@ -0,0 +1,115 @@
+package compression.sequitur;
+
+import compression.unified.GrammarCollector;
+import compression.unified.interfaces.GrammarListener;
+import compression.utils.ByteSequence;
+import compression.utils.RandomText;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class StreamingSequiturTest {
+
+    /**
+     * Checks that every symbol only refers to rules which have been received before
+     */
+    private static final class Recorder implements GrammarListener {
+
+        private final IntOpenHashSet rules = new IntOpenHashSet();
+
+        private int topLevelCalls;
+
+        private void assertKnown(int[] symbols, int length) {
+            for (int i = 0; i < length; i++) {
+                Assertions.assertTrue(symbols[i] < 0 || rules.contains(symbols[i]), "unknown rule " + symbols[i]);
+            }
+        }
+
+        @Override
+        public void rule(int id, int[] symbols, int length) {
+            assertKnown(symbols, length);
+            Assertions.assertTrue(id > 0);
+            Assertions.assertTrue(rules.add(id), "rule " + id + " received twice");
+        }
+
+        @Override
+        public void topLevel(int[] symbols, int length) {
+            assertKnown(symbols, length);
+            topLevelCalls++;
+        }
+    }
+
+    @Test
+    void testReconstruct() {
+        final var random = new Random(25);
+        for (int window : new int[] {1, 2, 16, 1000, 1 << 16}) {
+            final var compressor = new StreamingSequitur(window);
+            for (int i = 0; i < 20; i++) {
+                final var text = RandomText.repetitive(random, 1 + random.nextInt(5000), 1 + i % 4, 30);
+                Assertions.assertEquals(text, compressor.compress(text).toUnified().buildString());
+                final var bytes = new ByteSequence(text.getBytes(StandardCharsets.ISO_8859_1));
+                Assertions.assertEquals(text, compressor.compress(bytes).toUnified().buildString());
+            }
+        }
+    }
+
+    @Test
+    void testStreams() throws IOException {
+        final var text = RandomText.repetitive(new Random(26), 50_000, 3, 30);
+        final var bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        final var compressor = new StreamingSequitur(100);
+
+        final var fromStream = new GrammarCollector();
+        compressor.compress(new ByteArrayInputStream(bytes), fromStream);
+        Assertions.assertEquals(text, fromStream.toUnified().buildString());
+
+        final var fromChannel = new GrammarCollector();
+        compressor.compress(Channels.newChannel(new ByteArrayInputStream(bytes)), fromChannel);
+        Assertions.assertEquals(text, fromChannel.toUnified().buildString());
+
+        final var recorder = new Recorder();
+        compressor.compress(new ByteArrayInputStream(bytes), recorder);
+        Assertions.assertTrue(recorder.topLevelCalls > 1);
+    }
+
+    @Test
+    void testLargeWindow() {
+        // Nothing is removed from the grammar before the end, so the grammar is the one of Sequitur
+        final var text = RandomText.repetitive(new Random(27), 20_000, 4, 30);
+        final var expected = new Sequitur().compress(text).toUnified();
+        final var actual = new StreamingSequitur(text.length()).compress(text).toUnified();
+        Assertions.assertEquals(expected.rulesetSize(), actual.rulesetSize());
+        Assertions.assertEquals(expected.ruleCount(), actual.ruleCount());
+    }
+
+    @Test
+    void testFlush() throws IOException {
+        final var recorder = new Recorder();
+        final var out = new StreamingSequitur(8).open(recorder);
+        out.write("abcdefgh".getBytes(StandardCharsets.ISO_8859_1));
+        Assertions.assertEquals(0, recorder.topLevelCalls);
+
+        // The start rule is longer than the window, so its prefix is passed on flush
+        out.write("ijkl".getBytes(StandardCharsets.ISO_8859_1));
+        Assertions.assertEquals(0, recorder.topLevelCalls);
+        out.flush();
+        Assertions.assertEquals(1, recorder.topLevelCalls);
+        out.flush();
+        Assertions.assertEquals(1, recorder.topLevelCalls);
+
+        out.close();
+        Assertions.assertEquals(2, recorder.topLevelCalls);
+        Assertions.assertThrows(IOException.class, () -> out.write('a'));
+    }
+
+    @Test
+    void testInvalidWindow() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new StreamingSequitur(0));
+    }
+}
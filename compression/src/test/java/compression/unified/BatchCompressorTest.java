@@ -0,0 +1,97 @@
+package compression.unified;
+
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.v4.AreaCompV4;
+import compression.repair.RePair;
+import compression.sequitur.Sequitur;
+import compression.unified.interfaces.UnifiedCompressor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+public class BatchCompressorTest {
+
+    private static List<String> randomTexts(Random random, int count) {
+        final var texts = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            final var sb = new StringBuilder();
+            final int length = 2000 + random.nextInt(3000);
+            for (int j = 0; j < length; j++) {
+                sb.append((char) ('a' + random.nextInt(2 + i % 5)));
+            }
+            texts.add(sb.toString());
+        }
+        return texts;
+    }
+
+    @Test
+    void testSameAsSequential() {
+        final var texts = randomTexts(new Random(10), 24);
+        for (UnifiedCompressor compressor : List.of(new AreaCompV4(new HeightFirstArea()), new RePair(), new Sequitur())) {
+            final var expected = new ArrayList<String>();
+            for (var text : texts) {
+                expected.add(compressor.compress(text).toUnified().getAsString());
+            }
+
+            try (var batch = new BatchCompressor(compressor, 4)) {
+                Assertions.assertEquals(4, batch.parallelism());
+                final var futures = batch.submitAll(texts);
+                for (int i = 0; i < texts.size(); i++) {
+                    final var unified = futures.get(i).join();
+                    Assertions.assertEquals(expected.get(i), unified.getAsString(), compressor.name());
+                    Assertions.assertEquals(texts.get(i), unified.buildString(), compressor.name());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFiles() throws IOException {
+        final var directory = Files.createTempDirectory("batch");
+        try {
+            final var texts = randomTexts(new Random(11), 4);
+            final var files = new ArrayList<Path>();
+            for (int i = 0; i < texts.size(); i++) {
+                files.add(Files.writeString(directory.resolve(i + ".txt"), texts.get(i)));
+            }
+            files.add(directory.resolve("missing.txt"));
+
+            try (var batch = new BatchCompressor(new Sequitur(), 2)) {
+                final var futures = batch.submitFiles(files);
+                for (int i = 0; i < texts.size(); i++) {
+                    Assertions.assertEquals(texts.get(i), futures.get(i).join().buildString());
+                }
+
+                final var exception = Assertions.assertThrows(CompletionException.class, () -> futures.get(texts.size()).join());
+                Assertions.assertTrue(exception.getCause() instanceof NoSuchFileException);
+            }
+        } finally {
+            try (var stream = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) stream::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void testClosed() {
+        final var batch = new BatchCompressor(new RePair(), 1);
+        final var future = batch.submit("abcabcabc");
+        batch.close();
+        Assertions.assertEquals("abcabcabc", future.join().buildString());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> batch.submit("abc"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BatchCompressor(new RePair(), 0));
+    }
+}
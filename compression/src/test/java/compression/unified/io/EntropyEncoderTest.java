@@ -0,0 +1,78 @@
+package compression.unified.io;
+
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.v4.AreaCompV4;
+import compression.repair.RePair;
+import compression.sequitur.Sequitur;
+import compression.unified.UnifiedRuleset;
+import compression.unified.interfaces.UnifiedCompressor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class EntropyEncoderTest {
+
+    private static final List<UnifiedCompressor> COMPRESSORS = List.of(new AreaCompV4(new HeightFirstArea()), new RePair(), new Sequitur());
+
+    private static void assertRoundTrip(String text) throws IOException {
+        for (var compressor : COMPRESSORS) {
+            final UnifiedRuleset unified = compressor.compress(text).toUnified();
+            final byte[] encoded = EntropyEncoder.encode(unified);
+            final UnifiedRuleset decoded = EntropyDecoder.decode(encoded);
+
+            Assertions.assertEquals(text, decoded.buildString(), compressor.name());
+            Assertions.assertEquals(unified.rulesetSize(), decoded.rulesetSize(), compressor.name());
+        }
+    }
+
+    @Test
+    void testTokens() {
+        for (int value : new int[]{0, 1, 31, 32, 33, 47, 48, 63, 64, 100, 1000, 123456, Integer.MAX_VALUE}) {
+            final int token = EntropyFormat.token(value);
+            Assertions.assertTrue(token < EntropyFormat.TOKENS);
+            final int extra = value & ((1 << EntropyFormat.extraBits(token)) - 1);
+            Assertions.assertEquals(value, EntropyFormat.baseValue(token) | extra);
+        }
+    }
+
+    @Test
+    void testNormalize() {
+        final long[] counts = new long[EntropyFormat.SYMBOL_TOKENS];
+        counts[0] = 1_000_000_000L;
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] = 1;
+        }
+        final int[] freqs = EntropyFormat.normalize(counts);
+        Assertions.assertEquals(EntropyFormat.PROB_SCALE, Arrays.stream(freqs).sum());
+        Assertions.assertTrue(Arrays.stream(freqs).allMatch(freq -> freq >= 1));
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        assertRoundTrip("a");
+        assertRoundTrip("aaaaaaaaaaaaaaaaaaaaaaaa");
+        assertRoundTrip("how much wood would a woodchuck chuck if a woodchuck could chuck wood");
+        assertRoundTrip("\u0000\u00FF\u0100\uFFFE\u0000\u00FF\u0100\uFFFE");
+    }
+
+    @Test
+    void testMultipleBlocks() throws IOException {
+        final var random = new Random(5);
+        final var sb = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            sb.append((char) random.nextInt(300));
+        }
+        assertRoundTrip(sb.toString());
+    }
+
+    @Test
+    void testInvalid() {
+        final byte[] encoded = EntropyEncoder.encode(new RePair().compress("abababababab").toUnified());
+        Assertions.assertThrows(GrammarFormatException.class, () -> EntropyDecoder.decode(Arrays.copyOf(encoded, encoded.length - 2)));
+        Assertions.assertThrows(GrammarFormatException.class, () -> EntropyDecoder.decode(GrammarEncoder.encode(new UnifiedRuleset())));
+    }
+}
@@ -0,0 +1,102 @@
+package compression.unified.io;
+
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.v4.AreaCompV4;
+import compression.repair.RePair;
+import compression.sequitur.Sequitur;
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.UnifiedCompressor;
+import compression.unified.interfaces.UnifiedSymbol;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class GrammarEncoderTest {
+
+    private static final List<UnifiedCompressor> COMPRESSORS = List.of(new AreaCompV4(new HeightFirstArea()), new RePair(), new Sequitur());
+
+    private static void assertRoundTrip(String text) throws IOException {
+        for (var compressor : COMPRESSORS) {
+            final UnifiedRuleset unified = compressor.compress(text).toUnified();
+            final byte[] encoded = GrammarEncoder.encode(unified);
+            final UnifiedRuleset decoded = GrammarDecoder.decode(encoded);
+
+            Assertions.assertEquals(text, decoded.buildString(), compressor.name());
+            Assertions.assertEquals(unified.rulesetSize(), decoded.rulesetSize(), compressor.name());
+            Assertions.assertEquals(unified.ruleCount(), decoded.ruleCount(), compressor.name());
+
+            final var header = GrammarDecoder.readHeader(new ByteArrayInputStream(encoded));
+            Assertions.assertEquals(text.length(), header.textLength());
+            Assertions.assertEquals(unified.rulesetSize(), header.symbolCount());
+        }
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        assertRoundTrip("a");
+        assertRoundTrip("abcabcabcabc");
+        assertRoundTrip("how much wood would a woodchuck chuck if a woodchuck could chuck wood");
+        assertRoundTrip("\u0000\u00FF\u0100\uFFFE\u0000\u00FF\u0100\uFFFE");
+    }
+
+    @Test
+    void testMultipleBlocks() throws IOException {
+        final var random = new Random(3);
+        final var sb = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            sb.append((char) ('a' + random.nextInt(4)));
+        }
+        assertRoundTrip(sb.toString());
+    }
+
+    @Test
+    void testTopologicalOrder() throws IOException {
+        // R5 -> R2 R2 c, R2 -> R9 b, R9 -> a a, R7 is unused
+        final var ruleset = new UnifiedRuleset();
+        ruleset.putRule(5, List.of(new UnifiedNonTerminal(2), new UnifiedNonTerminal(2), new UnifiedTerminal('c')));
+        ruleset.putRule(2, List.of(new UnifiedNonTerminal(9), new UnifiedTerminal('b')));
+        ruleset.putRule(9, List.of(new UnifiedTerminal('a'), new UnifiedTerminal('a')));
+        ruleset.putRule(7, List.of(new UnifiedTerminal('x'), new UnifiedTerminal('y')));
+        ruleset.setTopLevelRuleId(5);
+
+        final var ids = new int[4];
+        final var header = GrammarDecoder.decode(new ByteArrayInputStream(GrammarEncoder.encode(ruleset)), (id, symbols, length) -> {
+            ids[id] = length;
+            for (int i = 0; i < length; i++) {
+                if (symbols[i] >= 0) {
+                    Assertions.assertTrue(symbols[i] < id);
+                }
+            }
+        });
+
+        Assertions.assertEquals(4, header.ruleCount());
+        Assertions.assertEquals(2, header.topLevelRuleId());
+        Assertions.assertEquals(7, header.textLength());
+        Assertions.assertArrayEquals(new int[]{2, 2, 3, 2}, ids);
+        Assertions.assertEquals("aabaabc", GrammarDecoder.decode(GrammarEncoder.encode(ruleset)).buildString());
+    }
+
+    @Test
+    void testInvalid() {
+        final var cyclic = new UnifiedRuleset();
+        cyclic.putRule(0, List.<UnifiedSymbol>of(new UnifiedNonTerminal(1)));
+        cyclic.putRule(1, List.<UnifiedSymbol>of(new UnifiedNonTerminal(0)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GrammarEncoder.encode(cyclic));
+
+        final var missing = new UnifiedRuleset();
+        missing.putRule(0, List.<UnifiedSymbol>of(new UnifiedNonTerminal(1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GrammarEncoder.encode(missing));
+
+        final byte[] encoded = GrammarEncoder.encode(new Sequitur().compress("abababab").toUnified());
+        Assertions.assertThrows(GrammarFormatException.class, () -> GrammarDecoder.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        encoded[0] = 'X';
+        Assertions.assertThrows(GrammarFormatException.class, () -> GrammarDecoder.decode(encoded));
+    }
+}
@@ -0,0 +1,102 @@
+package compression.unified.io;
+
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.v4.AreaCompV4;
+import compression.repair.RePair;
+import compression.sequitur.Sequitur;
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.UnifiedCompressor;
+import compression.unified.interfaces.UnifiedSymbol;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+public class GrammarExpanderTest {
+
+    private static final List<UnifiedCompressor> COMPRESSORS = List.of(new AreaCompV4(new HeightFirstArea()), new RePair(), new Sequitur());
+
+    private static byte[] expand(GrammarExpander expander) throws IOException {
+        final var out = new ByteArrayOutputStream();
+        expander.expand(out);
+        Assertions.assertEquals(out.size(), expander.length());
+        return out.toByteArray();
+    }
+
+    private static void assertExpands(byte[] text) throws IOException {
+        for (var compressor : COMPRESSORS) {
+            final UnifiedRuleset unified = compressor.compress(text).toUnified();
+            Assertions.assertArrayEquals(text, expand(GrammarExpander.of(unified)), compressor.name());
+
+            final var channelOut = new ByteArrayOutputStream();
+            try (var channel = Channels.newChannel(channelOut)) {
+                GrammarExpander.of(unified).expand(channel);
+            }
+            Assertions.assertArrayEquals(text, channelOut.toByteArray(), compressor.name());
+
+            final var binary = new ByteArrayInputStream(GrammarEncoder.encode(unified));
+            Assertions.assertArrayEquals(text, expand(GrammarExpander.read(binary)), compressor.name());
+            final var entropyCoded = new ByteArrayInputStream(EntropyEncoder.encode(unified));
+            Assertions.assertArrayEquals(text, expand(GrammarExpander.readEntropyCoded(entropyCoded)), compressor.name());
+        }
+    }
+
+    @Test
+    void testExpand() throws IOException {
+        assertExpands("a".getBytes(StandardCharsets.ISO_8859_1));
+        assertExpands("abcabcabcabc".getBytes(StandardCharsets.ISO_8859_1));
+        assertExpands("how much wood would a woodchuck chuck if a woodchuck could chuck wood".getBytes(StandardCharsets.ISO_8859_1));
+        assertExpands(new byte[] {0, -1, 0x7F, -128, 0, -1, 0x7F, -128});
+    }
+
+    @Test
+    void testLargerThanBuffer() throws IOException {
+        final var random = new Random(9);
+        final byte[] text = new byte[3 * GrammarExpander.BUFFER_SIZE + 17];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (byte) ('a' + random.nextInt(3));
+        }
+        assertExpands(text);
+    }
+
+    @Test
+    void testDeepGrammar() throws IOException {
+        // R0 -> a b, Ri -> R(i-1) c for i > 0, which is far too deep for recursion
+        final int depth = 200_000;
+        final var ruleset = new UnifiedRuleset();
+        ruleset.putRule(0, List.of(new UnifiedTerminal('a'), new UnifiedTerminal('b')));
+        for (int i = 1; i < depth; i++) {
+            ruleset.putRule(i, List.of(new UnifiedNonTerminal(i - 1), new UnifiedTerminal('c')));
+        }
+        ruleset.setTopLevelRuleId(depth - 1);
+
+        final byte[] expanded = expand(GrammarExpander.of(ruleset));
+        Assertions.assertEquals(depth + 1, expanded.length);
+        Assertions.assertEquals('a', expanded[0]);
+        Assertions.assertEquals('b', expanded[1]);
+        for (int i = 2; i < expanded.length; i++) {
+            Assertions.assertEquals('c', expanded[i]);
+        }
+    }
+
+    @Test
+    void testInvalid() throws IOException {
+        Assertions.assertEquals(0, expand(GrammarExpander.of(new UnifiedRuleset())).length);
+
+        final var wide = new UnifiedRuleset();
+        wide.putRule(0, List.<UnifiedSymbol>of(new UnifiedTerminal('\u0100')));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GrammarExpander.of(wide));
+
+        final var missing = new UnifiedRuleset();
+        missing.putRule(0, List.<UnifiedSymbol>of(new UnifiedNonTerminal(1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GrammarExpander.of(missing));
+    }
+}
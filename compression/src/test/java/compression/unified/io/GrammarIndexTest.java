@@ -0,0 +1,88 @@
+package compression.unified.io;
+
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.v4.AreaCompV4;
+import compression.repair.RePair;
+import compression.sequitur.Sequitur;
+import compression.unified.UnifiedNonTerminal;
+import compression.unified.UnifiedRuleset;
+import compression.unified.UnifiedTerminal;
+import compression.unified.interfaces.UnifiedCompressor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+public class GrammarIndexTest {
+
+    private static final List<UnifiedCompressor> COMPRESSORS = List.of(new AreaCompV4(new HeightFirstArea()), new RePair(), new Sequitur());
+
+    private static void assertIndex(String text, GrammarIndex index, Random random) {
+        Assertions.assertEquals(text.length(), index.length());
+        for (int i = 0; i < text.length(); i++) {
+            Assertions.assertEquals(text.charAt(i), index.charAt(i));
+        }
+        Assertions.assertEquals(text, index.substring(0, text.length()));
+        for (int i = 0; i < 200; i++) {
+            final int start = random.nextInt(text.length() + 1);
+            final int end = start + random.nextInt(text.length() - start + 1);
+            Assertions.assertEquals(text.substring(start, end), index.substring(start, end));
+        }
+    }
+
+    @Test
+    void testRandomAccess() throws IOException {
+        final var random = new Random(5);
+        final var sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append((char) ('a' + random.nextInt(3)));
+        }
+        sb.append("how much wood would a woodchuck chuck if a woodchuck could chuck wood \u0100\uFFFE");
+
+        final String text = sb.toString();
+        for (var compressor : COMPRESSORS) {
+            final UnifiedRuleset unified = compressor.compress(text).toUnified();
+            assertIndex(text, GrammarIndex.of(unified), random);
+            assertIndex(text, GrammarIndex.read(new ByteArrayInputStream(GrammarEncoder.encode(unified))), random);
+            assertIndex(text, GrammarIndex.readEntropyCoded(new ByteArrayInputStream(EntropyEncoder.encode(unified))), random);
+        }
+    }
+
+    @Test
+    void testDeepGrammar() {
+        // R0 -> a b, Ri -> c R(i-1) d for i > 0
+        final int depth = 100_000;
+        final var ruleset = new UnifiedRuleset();
+        ruleset.putRule(0, List.of(new UnifiedTerminal('a'), new UnifiedTerminal('b')));
+        for (int i = 1; i < depth; i++) {
+            ruleset.putRule(i, List.of(new UnifiedTerminal('c'), new UnifiedNonTerminal(i - 1), new UnifiedTerminal('d')));
+        }
+        ruleset.setTopLevelRuleId(depth - 1);
+
+        final var index = GrammarIndex.of(ruleset);
+        Assertions.assertEquals(2L * depth, index.length());
+        Assertions.assertEquals('c', index.charAt(0));
+        Assertions.assertEquals('a', index.charAt(depth - 1));
+        Assertions.assertEquals('b', index.charAt(depth));
+        Assertions.assertEquals('d', index.charAt(2L * depth - 1));
+        Assertions.assertEquals("ccabdd", index.substring(depth - 3, depth + 3));
+    }
+
+    @Test
+    void testBounds() {
+        final var index = GrammarIndex.of(new Sequitur().compress("abcabcabc").toUnified());
+        Assertions.assertEquals("", index.substring(9, 9));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.charAt(-1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.charAt(9));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.substring(3, 10));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.substring(4, 3));
+
+        final var empty = GrammarIndex.of(new UnifiedRuleset());
+        Assertions.assertEquals(0, empty.length());
+        Assertions.assertEquals("", empty.substring(0, 0));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> empty.charAt(0));
+    }
+}
@@ -0,0 +1,189 @@
+package compression.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AugmentedStringTest {
+
+    private static void assertBytesSameAsString(byte[] bytes, SuffixArrayBuilder builder) {
+        final var fromString = new AugmentedString(new String(bytes, StandardCharsets.ISO_8859_1), new SequentialSuffixArrayBuilder());
+        final var fromBytes = new AugmentedString(bytes, builder);
+
+        Assertions.assertEquals(fromString.length(), fromBytes.length());
+        Assertions.assertArrayEquals(
+                Arrays.copyOf(fromString.getSuffixArray(), bytes.length + 1),
+                Arrays.copyOf(fromBytes.getSuffixArray(), bytes.length + 1));
+        Assertions.assertArrayEquals(fromString.getLcp(), fromBytes.getLcp());
+        Assertions.assertEquals(fromString.getLCPIntervals(2), fromBytes.getLCPIntervals(2));
+        for (int i = 0; i <= bytes.length; i++) {
+            Assertions.assertEquals(fromString.charAt(i), fromBytes.charAt(i));
+        }
+    }
+
+    private static void assertBytesSameAsString(byte[] bytes) {
+        assertBytesSameAsString(bytes, new SequentialSuffixArrayBuilder());
+        assertBytesSameAsString(bytes, new ParallelSuffixArrayBuilder(2));
+    }
+
+    @Test
+    void testBytes() {
+        assertBytesSameAsString(new byte[0]);
+        assertBytesSameAsString("a".getBytes(StandardCharsets.ISO_8859_1));
+        assertBytesSameAsString("banana".getBytes(StandardCharsets.ISO_8859_1));
+        assertBytesSameAsString("abcabcabcabcabxabcab".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void testBinaryBytes() {
+        // Bytes above 127 must be treated as unsigned
+        assertBytesSameAsString(new byte[]{(byte) 0xFF, 0, (byte) 0xFF, 0, (byte) 0x80, 0x7F, (byte) 0xFF, 0});
+
+        final var random = new Random(7);
+        for (int alphabet : new int[]{2, 16, 256}) {
+            final byte[] bytes = new byte[20_000];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) random.nextInt(alphabet);
+            }
+            assertBytesSameAsString(bytes);
+        }
+    }
+
+    @Test
+    void testLcpMinimum() {
+        final var random = new Random(8);
+        final var sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append((char) ('a' + random.nextInt(3)));
+        }
+        final var augmented = new AugmentedString(sb.toString());
+        final int[] lcp = augmented.getLcp();
+        for (int i = 0; i < 2000; i++) {
+            final int from = random.nextInt(lcp.length);
+            final int to = from + random.nextInt(lcp.length - from);
+            Assertions.assertEquals(Arrays.stream(lcp, from, to + 1).min().orElseThrow(), augmented.lcpMinimum(from, to));
+        }
+    }
+
+    @Test
+    void testConcurrentConstruction() throws InterruptedException, ExecutionException {
+        final var random = new Random(9);
+        final var texts = new ArrayList<String>();
+        for (int i = 0; i < 16; i++) {
+            final var sb = new StringBuilder();
+            for (int j = 0; j < 20_000; j++) {
+                sb.append((char) ('a' + random.nextInt(2 + i % 4)));
+            }
+            texts.add(sb.toString());
+        }
+
+        final var expected = new ArrayList<Collection<Interval>>();
+        for (var text : texts) {
+            expected.add(new AugmentedString(text).getAllLCPIntervals());
+        }
+
+        final var executor = Executors.newFixedThreadPool(4);
+        try {
+            final var futures = new ArrayList<Future<Collection<Interval>>>();
+            for (var text : texts) {
+                futures.add(executor.submit(() -> new AugmentedString(text).getAllLCPIntervals()));
+            }
+            for (int i = 0; i < texts.size(); i++) {
+                Assertions.assertEquals(expected.get(i), futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The recursive enumeration of child intervals, which {@link AugmentedString#forEachLCPInterval(int, LCPIntervalConsumer)}
+     * has to reproduce in the same order
+     */
+    private static void addChildIntervals(AugmentedString augmented, int low, int high, int minLValue, List<int[]> intervals) {
+        if (low >= high) return;
+
+        int currentLIndex = low < augmented.up(high + 1) && augmented.up(high + 1) <= high ? augmented.up(high + 1) : augmented.down(low);
+        if (currentLIndex - 1 > low && augmented.lValue(low, currentLIndex - 1) >= minLValue) {
+            intervals.add(new int[]{low, currentLIndex - 1, augmented.lValue(low, currentLIndex - 1)});
+            addChildIntervals(augmented, low, currentLIndex - 1, minLValue, intervals);
+        }
+        while (augmented.hasNextLIndex(currentLIndex)) {
+            final int nextLIndex = augmented.nextLIndex(currentLIndex);
+            if (nextLIndex - 1 > currentLIndex && augmented.lValue(currentLIndex, nextLIndex - 1) >= minLValue) {
+                intervals.add(new int[]{currentLIndex, nextLIndex - 1, augmented.lValue(currentLIndex, nextLIndex - 1)});
+                addChildIntervals(augmented, currentLIndex, nextLIndex - 1, minLValue, intervals);
+            }
+            currentLIndex = nextLIndex;
+        }
+        if (high > currentLIndex && augmented.lValue(currentLIndex, high) >= minLValue) {
+            intervals.add(new int[]{currentLIndex, high, augmented.lValue(currentLIndex, high)});
+            addChildIntervals(augmented, currentLIndex, high, minLValue, intervals);
+        }
+    }
+
+    private static List<int[]> recursiveLCPIntervals(AugmentedString augmented, int minLValue) {
+        final var intervals = new ArrayList<int[]>();
+        if (0 >= minLValue) intervals.add(new int[]{0, augmented.length(), 0});
+
+        int last = 0;
+        for (int current = augmented.nextLIndex(0); current != -1; current = augmented.nextLIndex(current)) {
+            if (augmented.lValue(last, current - 1) >= minLValue) {
+                intervals.add(new int[]{last, current - 1, augmented.lValue(last, current - 1)});
+            }
+            addChildIntervals(augmented, last, current - 1, minLValue, intervals);
+            last = current;
+        }
+        return intervals;
+    }
+
+    @Test
+    void testForEachLCPInterval() {
+        final var random = new Random(21);
+        for (int i = 0; i < 40; i++) {
+            final var sb = new StringBuilder();
+            final int length = 1 + random.nextInt(2000);
+            for (int j = 0; j < length; j++) {
+                sb.append((char) ('a' + random.nextInt(1 + i % 5)));
+            }
+            final var augmented = new AugmentedString(sb.toString());
+
+            for (int minLValue = 0; minLValue < 4; minLValue++) {
+                final var intervals = new ArrayList<int[]>();
+                augmented.forEachLCPInterval(minLValue, (low, high, lValue) -> intervals.add(new int[]{low, high, lValue}));
+
+                final var expected = recursiveLCPIntervals(augmented, minLValue);
+                Assertions.assertEquals(expected.size(), intervals.size());
+                for (int j = 0; j < expected.size(); j++) {
+                    Assertions.assertArrayEquals(expected.get(j), intervals.get(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDeeplyNestedLCPIntervals() {
+        // Every prefix of a run is an lcp interval, nested in the one of the next shorter prefix
+        final int length = 200_000;
+        final var augmented = new AugmentedString("a".repeat(length));
+        final int[] count = new int[1];
+        final int[] maxLValue = new int[1];
+        augmented.forEachLCPInterval(2, (low, high, lValue) -> {
+            count[0]++;
+            maxLValue[0] = Math.max(maxLValue[0], lValue);
+        });
+
+        Assertions.assertEquals(length - 2, count[0]);
+        Assertions.assertEquals(length - 1, maxLValue[0]);
+        Assertions.assertEquals(count[0], augmented.getLCPIntervals(2).size());
+    }
+}
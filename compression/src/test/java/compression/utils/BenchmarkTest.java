@@ -0,0 +1,74 @@
+package compression.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BenchmarkTest {
+
+    @AfterEach
+    void tearDown() {
+        Benchmark.setEnabled(false);
+        Benchmark.reset();
+    }
+
+    @Test
+    void testDisabled() {
+        Benchmark.setEnabled(false);
+        final var timer = Benchmark.timer("BenchmarkTest", "disabled");
+        timer.stop(timer.start());
+        timer.record(100);
+        Assertions.assertEquals(0, timer.snapshot().callCount());
+    }
+
+    @Test
+    void testSameHandle() {
+        Assertions.assertSame(Benchmark.timer("BenchmarkTest", "handle"), Benchmark.timer("BenchmarkTest", "handle"));
+    }
+
+    @Test
+    void testRecord() {
+        Benchmark.setEnabled(true);
+        final var timer = Benchmark.timer("BenchmarkTest", "record");
+        timer.record(1);
+        timer.record(1000);
+        timer.record(3000);
+
+        final var data = Benchmark.getGroupBenchmarkData("BenchmarkTest").get("record");
+        Assertions.assertEquals(3, data.callCount());
+        Assertions.assertEquals(4001, data.timeNanos());
+        Assertions.assertEquals(1, data.percentileNanos(0.3));
+        Assertions.assertEquals(4095, data.percentileNanos(1));
+    }
+
+    @Test
+    void testConcurrentRecord() throws InterruptedException {
+        Benchmark.setEnabled(true);
+        final var timer = Benchmark.timer("BenchmarkTest", "concurrent");
+        final var threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    timer.record(2);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertEquals(40000, timer.snapshot().callCount());
+        Assertions.assertEquals(80000, timer.snapshot().timeNanos());
+    }
+
+    @Test
+    void testStringTimers() {
+        Benchmark.setEnabled(true);
+        Benchmark.startTimer("BenchmarkTest", "string");
+        Assertions.assertThrows(Benchmark.TimerAlreadyStartedException.class, () -> Benchmark.startTimer("BenchmarkTest", "string"));
+        Benchmark.stopTimer("BenchmarkTest", "string");
+        Assertions.assertThrows(Benchmark.NoTimerStartedException.class, () -> Benchmark.stopTimer("BenchmarkTest", "string"));
+        Assertions.assertEquals(1, Benchmark.getAllValues().get("BenchmarkTest").get("string").callCount());
+    }
+}
@@ -0,0 +1,91 @@
+package compression.utils;
+
+import compression.areacomp.areas.HeightFirstArea;
+import compression.areacomp.v4.AreaCompV4;
+import compression.areacomp.v4.StreamingAreaComp;
+import compression.repair.RePair;
+import compression.sequitur.Sequitur;
+import compression.sequitur.StreamingSequitur;
+import compression.unified.interfaces.UnifiedCompressor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ByteSequenceTest {
+
+    @Test
+    void testByteSequence() {
+        final byte[] bytes = {'a', (byte) 0xE4, 0};
+        final var sequence = ByteSequence.withSentinel(bytes);
+
+        Assertions.assertEquals(4, sequence.length());
+        Assertions.assertEquals(3, sequence.byteLength());
+        Assertions.assertEquals('\u00E4', sequence.charAt(1));
+        Assertions.assertEquals(0xE4, sequence.byteAt(1));
+        Assertions.assertEquals(Character.MAX_VALUE, sequence.charAt(3));
+        Assertions.assertEquals("a\u00E4\u0000" + Character.MAX_VALUE, sequence.toString());
+        Assertions.assertEquals("\u00E4\u0000", sequence.subSequence(1, 3).toString());
+        Assertions.assertEquals("a\u00E4\u0000", new ByteSequence(bytes).toString());
+    }
+
+    @Test
+    void testMap(@TempDir Path dir) throws IOException {
+        final byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        final Path file = Files.write(dir.resolve("bytes.bin"), bytes);
+
+        final var mapped = ByteSequence.map(file);
+        Assertions.assertEquals(bytes.length, mapped.length());
+        for (int i = 0; i < bytes.length; i++) {
+            Assertions.assertEquals(bytes[i] & 0xFF, mapped.byteAt(i));
+        }
+        Assertions.assertArrayEquals(bytes, mapped.toByteArray());
+        Assertions.assertEquals(new String(bytes, StandardCharsets.ISO_8859_1), mapped.toString());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> mapped.byteAt(bytes.length));
+
+        final var empty = ByteSequence.map(Files.write(dir.resolve("empty.bin"), new byte[0]));
+        Assertions.assertEquals(0, empty.length());
+    }
+
+    @Test
+    void testCompressFile(@TempDir Path dir) throws IOException {
+        final String text = "how much wood would a woodchuck chuck if a woodchuck could chuck wood \u00FF\u0080\u0000";
+        final Path file = Files.writeString(dir.resolve("text.txt"), text, StandardCharsets.ISO_8859_1);
+
+        for (UnifiedCompressor compressor : List.of(new AreaCompV4(new HeightFirstArea()), new RePair(), new Sequitur())) {
+            final var fromString = compressor.compress(text).toUnified();
+            final var fromFile = compressor.compress(file).toUnified();
+            Assertions.assertEquals(fromString.rulesetSize(), fromFile.rulesetSize(), compressor.name());
+            Assertions.assertEquals(text, fromFile.buildString(), compressor.name());
+        }
+    }
+
+    @Test
+    void testStreamFile(@TempDir Path dir) throws IOException {
+        final String text = RandomText.repetitive(new Random(6), 100_000, 4, 30);
+
+        // A file in a zip file system can be read as a stream, but not be memory-mapped
+        try (var zip = FileSystems.newFileSystem(dir.resolve("text.zip"), Map.of("create", "true"))) {
+            final Path file = Files.writeString(zip.getPath("text.txt"), text, StandardCharsets.ISO_8859_1);
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> ByteSequence.map(file));
+
+            for (UnifiedCompressor compressor : List.of(new StreamingSequitur(1000), new StreamingAreaComp(new HeightFirstArea(), 1 << 14))) {
+                final var fromString = compressor.compress(text).toUnified();
+                final var fromFile = compressor.compress(file).toUnified();
+                Assertions.assertEquals(fromString.rulesetSize(), fromFile.rulesetSize(), compressor.name());
+                Assertions.assertEquals(text, fromFile.buildString(), compressor.name());
+            }
+        }
+    }
+}
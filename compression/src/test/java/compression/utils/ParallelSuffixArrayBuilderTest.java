@@ -0,0 +1,71 @@
+package compression.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ParallelSuffixArrayBuilderTest {
+
+    private static void assertSameAsSequential(String s) {
+        final String text = s + Character.MAX_VALUE;
+        final var expected = new SequentialSuffixArrayBuilder().build(text);
+        final var actual = new ParallelSuffixArrayBuilder(4).build(text);
+
+        Assertions.assertArrayEquals(
+                Arrays.copyOf(expected.suffixArray(), text.length()),
+                Arrays.copyOf(actual.suffixArray(), text.length()));
+        // lcp[0] is undefined
+        Assertions.assertArrayEquals(
+                Arrays.copyOfRange(expected.lcp(), 1, text.length()),
+                Arrays.copyOfRange(actual.lcp(), 1, text.length()));
+    }
+
+    @Test
+    void testSmall() {
+        assertSameAsSequential("");
+        assertSameAsSequential("a");
+        assertSameAsSequential("banana");
+        assertSameAsSequential("mississippi");
+        assertSameAsSequential("abracadabra abracadabra");
+    }
+
+    @Test
+    void testRepetitive() {
+        assertSameAsSequential("a".repeat(200_000));
+        assertSameAsSequential("abc".repeat(70_000));
+    }
+
+    @Test
+    void testRandom() {
+        final var random = new Random(42);
+        for (int alphabet : new int[]{2, 4, 26, 0x10000 - 1}) {
+            final var sb = new StringBuilder();
+            for (int i = 0; i < 150_000; i++) {
+                sb.append((char) random.nextInt(alphabet));
+            }
+            assertSameAsSequential(sb.toString());
+        }
+    }
+
+    @Test
+    void testAugmentedString() {
+        final String s = "to be or not to be, that is the question. to be or not to be";
+        final var sequential = new AugmentedString(s, new SequentialSuffixArrayBuilder());
+        final var parallel = new AugmentedString(s, new ParallelSuffixArrayBuilder(2));
+
+        Assertions.assertArrayEquals(
+                Arrays.copyOf(sequential.getSuffixArray(), s.length() + 1),
+                Arrays.copyOf(parallel.getSuffixArray(), s.length() + 1));
+        Assertions.assertArrayEquals(sequential.getLcp(), parallel.getLcp());
+        Assertions.assertEquals(sequential.getLCPIntervals(2), parallel.getLCPIntervals(2));
+    }
+
+    @Test
+    void testByName() {
+        Assertions.assertTrue(SuffixArrayBuilder.byName("sequential") instanceof SequentialSuffixArrayBuilder);
+        Assertions.assertTrue(SuffixArrayBuilder.byName("parallel") instanceof ParallelSuffixArrayBuilder);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SuffixArrayBuilder.byName("unknown"));
+    }
+}
@@ -0,0 +1,57 @@
+package compression.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+public class PredecessorBitSetTest {
+
+    private static int orMinusOne(Integer value) {
+        return value == null ? -1 : value;
+    }
+
+    @Test
+    void testAgainstTreeSet() {
+        final var random = new Random(1);
+        for (int universe : new int[]{1, 63, 64, 65, 4096, 4097, 300_000}) {
+            final var set = new PredecessorBitSet(universe);
+            final var expected = new TreeSet<Integer>();
+            for (int i = 0; i < 2000; i++) {
+                final int element = random.nextInt(universe);
+                if (random.nextInt(4) == 0) {
+                    Assertions.assertEquals(expected.remove(element), set.remove(element));
+                } else {
+                    Assertions.assertEquals(expected.add(element), set.add(element));
+                }
+                Assertions.assertEquals(expected.size(), set.size());
+
+                final int query = random.nextInt(universe + 2) - 1;
+                Assertions.assertEquals(orMinusOne(expected.floor(query)), set.floor(query), "floor " + query);
+                Assertions.assertEquals(orMinusOne(expected.ceiling(query)), set.ceiling(query), "ceiling " + query);
+                Assertions.assertEquals(orMinusOne(expected.lower(query)), set.lower(query), "lower " + query);
+                Assertions.assertEquals(orMinusOne(expected.higher(query)), set.higher(query), "higher " + query);
+            }
+        }
+    }
+
+    @Test
+    void testEmpty() {
+        final var set = new PredecessorBitSet(1000);
+        Assertions.assertEquals(-1, set.floor(999));
+        Assertions.assertEquals(-1, set.ceiling(0));
+        set.add(0);
+        set.add(999);
+        Assertions.assertEquals(0, set.floor(998));
+        Assertions.assertEquals(999, set.ceiling(1));
+        Assertions.assertEquals(999, set.floor(Integer.MAX_VALUE));
+        Assertions.assertEquals(0, set.ceiling(Integer.MIN_VALUE));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> set.add(1000));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> set.contains(-1));
+
+        final var none = new PredecessorBitSet(0);
+        Assertions.assertEquals(-1, none.floor(5));
+        Assertions.assertEquals(-1, none.ceiling(0));
+    }
+}
@@ -0,0 +1,67 @@
+package compression.utils;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates random texts with repetitions for the tests of the compressors
+ */
+public final class RandomText {
+
+    private static final List<String> WORDS = List.of("lorem", "ipsum", "dolor", "sit", "amet", "aaaa", "b");
+
+    private RandomText() {
+    }
+
+    /**
+     * Creates a text of random letters, in which about half of the steps copy a part of the text so far, so that there
+     * are long repetitions
+     * @param random The source of randomness
+     * @param length The length of the text
+     * @param alphabetSize The amount of letters starting at 'a'
+     * @param maxCopyLength The length of the copied parts is less than this
+     * @return The text
+     */
+    public static String repetitive(Random random, int length, int alphabetSize, int maxCopyLength) {
+        final var sb = new StringBuilder();
+        while (sb.length() < length) {
+            if (sb.length() > 0 && random.nextBoolean()) {
+                final int start = random.nextInt(sb.length());
+                sb.append(sb, start, Math.min(sb.length(), start + random.nextInt(maxCopyLength)));
+            } else {
+                sb.append((char) ('a' + random.nextInt(alphabetSize)));
+            }
+        }
+        return sb.substring(0, length);
+    }
+
+    /**
+     * Creates a text of runs of up to 6 equal random letters, which exercise the handling of overlapping pairs
+     * @param random The source of randomness
+     * @param length The length of the text
+     * @param alphabetSize The amount of letters starting at 'a'
+     * @return The text
+     */
+    public static String runs(Random random, int length, int alphabetSize) {
+        final var sb = new StringBuilder();
+        while (sb.length() < length) {
+            final char c = (char) ('a' + random.nextInt(alphabetSize));
+            sb.append(String.valueOf(c).repeat(1 + random.nextInt(random.nextBoolean() ? 2 : 6)));
+        }
+        return sb.substring(0, length);
+    }
+
+    /**
+     * Creates a text of random words from a small vocabulary, separated by spaces and dots
+     * @param random The source of randomness
+     * @param length The length of the text
+     * @return The text
+     */
+    public static String words(Random random, int length) {
+        final var sb = new StringBuilder();
+        while (sb.length() < length) {
+            sb.append(WORDS.get(random.nextInt(WORDS.size()))).append(random.nextInt(8) == 0 ? '.' : ' ');
+        }
+        return sb.substring(0, length);
+    }
+}
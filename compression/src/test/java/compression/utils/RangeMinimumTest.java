@@ -0,0 +1,65 @@
+package compression.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class RangeMinimumTest {
+
+    private static int leftmostMinimum(int[] values, int from, int to) {
+        int minimum = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (values[i] < values[minimum]) minimum = i;
+        }
+        return minimum;
+    }
+
+    private static void assertQueries(int[] values, RangeMinimum rangeMinimum, Random random) {
+        for (int i = 0; i < 3000; i++) {
+            final int from = random.nextInt(values.length);
+            // Mostly short ranges, so that ranges inside one block and across few blocks are covered
+            final int maxLength = random.nextBoolean() ? Math.min(values.length - from, 70) : values.length - from;
+            final int to = from + random.nextInt(maxLength);
+            Assertions.assertEquals(leftmostMinimum(values, from, to), rangeMinimum.minimumIndex(from, to), "[" + from + ", " + to + "]");
+            Assertions.assertEquals(values[leftmostMinimum(values, from, to)], rangeMinimum.minimum(from, to));
+        }
+    }
+
+    @Test
+    void testAgainstScan() {
+        final var random = new Random(21);
+        for (int length : new int[]{1, 2, 3, 31, 32, 33, 64, 100, 1000, 5000}) {
+            for (int range : new int[]{3, 1000}) {
+                final int[] values = random.ints(length, 0, range).toArray();
+                assertQueries(values, new SparseTableRangeMinimum(values), random);
+                assertQueries(values, new BlockRangeMinimum(values), random);
+            }
+        }
+    }
+
+    @Test
+    void testMonotone() {
+        final var random = new Random(22);
+        final int[] increasing = new int[1000];
+        final int[] decreasing = new int[1000];
+        for (int i = 0; i < increasing.length; i++) {
+            increasing[i] = i;
+            decreasing[i] = -i;
+        }
+        assertQueries(increasing, new BlockRangeMinimum(increasing), random);
+        assertQueries(decreasing, new BlockRangeMinimum(decreasing), random);
+        assertQueries(decreasing, new SparseTableRangeMinimum(decreasing), random);
+    }
+
+    @Test
+    void testInvalid() {
+        final int[] values = {3, 1, 2};
+        for (var rangeMinimum : new RangeMinimum[]{new SparseTableRangeMinimum(values), new BlockRangeMinimum(values), RangeMinimum.of(values)}) {
+            Assertions.assertEquals(1, rangeMinimum.minimumIndex(0, 2));
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> rangeMinimum.minimumIndex(-1, 2));
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> rangeMinimum.minimumIndex(0, 3));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> rangeMinimum.minimumIndex(2, 1));
+        }
+    }
+}